@@ -0,0 +1,173 @@
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Analizador sintáctico de programas completos, guiado por una {@link TablaLL1}.
+ * <p>
+ * A diferencia de {@link AnalizadorSintactico}, que tiene escrita a mano la gramática de las expresiones, este
+ * analizador no conoce la gramática: solo compara la cima de una pila de símbolos con el token actual y consulta
+ * la tabla. La pila y la derivación son arreglos de enteros, así que el ciclo no crea objetos; los {@link Token}
+ * solo se crean para los mensajes de error.
+ * <p>
+ * Los errores se recuperan en modo pánico, así que una sola pasada reporta todos. Si a un no terminal no le
+ * corresponde el token actual, se descartan tokens hasta uno que pueda seguirlo (su conjunto SIGUIENTE, que
+ * incluye ';' y ')' donde corresponden) o hasta una palabra reservada, que empieza otra sentencia o parte del
+ * programa; entonces el no terminal se saca de la pila. Un terminal que no coincide se da por insertado. Cada
+ * paso consume un token o saca un símbolo de la pila, así que la recuperación no retrocede y el análisis
+ * sigue siendo lineal. Después de un error no se reporta otro hasta que coincida algún terminal, para no repetir
+ * los que causa el anterior.
+ */
+public class AnalizadorLL1 {
+    private final TablaLL1 tabla;
+    private final BufferTokens buffer;
+    private final List<Token> tokens;
+    private final Diagnosticos diagnosticos = new Diagnosticos();
+
+    // Palabras reservadas: siempre sincronizan, porque empiezan una sentencia o una parte del programa
+    private static final boolean[] PALABRAS_RESERVADAS = new boolean[Escaner.cantidadTipos()];
+
+    static {
+        for (String tipo : Gramatica.palabrasReservadas.values()) {
+            PALABRAS_RESERVADAS[Escaner.codigo(tipo)] = true;
+        }
+    }
+
+    private int[] derivacion = new int[64];
+    private int pasos = 0;
+
+    /** Crea un analizador de programas pf2024 (ver {@link TablaLL1#PF2024}). */
+    public AnalizadorLL1(BufferTokens buffer) {
+        this(buffer, TablaLL1.PF2024);
+    }
+
+    public AnalizadorLL1(BufferTokens buffer, TablaLL1 tabla) {
+        this.tabla = tabla;
+        this.buffer = buffer;
+        this.tokens = null;
+    }
+
+    public AnalizadorLL1(List<Token> tokens) {
+        this(tokens, TablaLL1.PF2024);
+    }
+
+    public AnalizadorLL1(List<Token> tokens, TablaLL1 tabla) {
+        this.tabla = tabla;
+        this.buffer = null;
+        this.tokens = tokens;
+    }
+
+    /**
+     * Analiza los tokens desde el símbolo inicial de la tabla, recuperándose de los errores que encuentre.
+     * @return true si los tokens forman un programa válido.
+     */
+    public boolean analizar() {
+        diagnosticos.limpiar();
+        pasos = 0;
+        int cantidad = (buffer != null) ? buffer.tamano() : tokens.size();
+        if (cantidad == 0) {
+            diagnosticos.agregar(Diagnosticos.SIN_TOKENS, -1, 0, 1, -1, null);
+            return false;
+        }
+
+        int[] celdas = tabla.celdas;
+        int[] inicioCuerpo = tabla.inicioCuerpo;
+        int[] cuerpos = tabla.cuerpos;
+        int terminales = tabla.terminales;
+
+        int[] pila = new int[32];
+        pila[0] = Escaner.FIN;
+        pila[1] = tabla.getInicial();
+        int altura = 2;
+        int posicion = 0;
+        int codigo = codigo(0, cantidad);
+        boolean recuperando = false;
+
+        while (altura > 0) {
+            int cima = pila[--altura];
+            if (cima < terminales) {
+                if (cima == codigo) {
+                    if (cima == Escaner.FIN) {
+                        break;
+                    }
+                    codigo = codigo(++posicion, cantidad);
+                    recuperando = false;
+                    continue;
+                }
+                if (!recuperando) {
+                    reportar(cima, posicion, cantidad);
+                    recuperando = true;
+                }
+                if (cima == Escaner.FIN) {
+                    break; // Lo que sigue al final del programa no se analiza
+                }
+                continue; // El terminal se da por insertado
+            }
+            int produccion = celdas[(cima - terminales) * terminales + codigo];
+            if (produccion == TablaLL1.SIN_PRODUCCION) {
+                if (!recuperando) {
+                    reportar(cima, posicion, cantidad);
+                    recuperando = true;
+                }
+                if (codigo != Escaner.FIN && !PALABRAS_RESERVADAS[codigo]
+                        && !tabla.siguiente[cima - terminales].get(codigo)) {
+                    pila[altura++] = cima; // Se descarta el token y se vuelve a intentar con el mismo no terminal
+                    codigo = codigo(++posicion, cantidad);
+                }
+                continue;
+            }
+            if (pasos == derivacion.length) {
+                derivacion = Arrays.copyOf(derivacion, pasos * 2);
+            }
+            derivacion[pasos++] = produccion;
+            int desde = inicioCuerpo[produccion];
+            int largo = inicioCuerpo[produccion + 1] - desde;
+            if (altura + largo > pila.length) {
+                pila = Arrays.copyOf(pila, Math.max(pila.length * 2, altura + largo));
+            }
+            System.arraycopy(cuerpos, desde, pila, altura, largo);
+            altura += largo;
+        }
+        return diagnosticos.isEmpty();
+    }
+
+    private int codigo(int posicion, int cantidad) {
+        if (posicion >= cantidad) {
+            return Escaner.FIN;
+        }
+        return (buffer != null) ? buffer.tipo(posicion) : Escaner.codigo(tokens.get(posicion).getTipo());
+    }
+
+    // Reporta lo que se esperaba con el símbolo de la cima, sobre el token encontrado o al final de la entrada
+    private void reportar(int cima, int posicion, int cantidad) {
+        String esperado = tabla.esperado(cima);
+        if (posicion < cantidad) {
+            Token encontrado = (buffer != null) ? buffer.token(posicion) : tokens.get(posicion);
+            diagnosticos.agregar(Diagnosticos.SE_ESPERABA, encontrado.getInicio(), encontrado.getLexema().length(),
+                    encontrado.getLinea(), encontrado.getColumna(), encontrado.getLexema(), esperado);
+        } else {
+            Token ultimo = (buffer != null) ? buffer.token(cantidad - 1) : tokens.get(cantidad - 1);
+            diagnosticos.agregar(Diagnosticos.SE_ESPERABA, -1, 0, ultimo.getLinea(), -1, null, esperado);
+        }
+    }
+
+    public List<String> getErroresSintacticos() {
+        return diagnosticos.getMensajes();
+    }
+
+    /** Los errores sintácticos del último análisis, sin formatear. */
+    public Diagnosticos getDiagnosticos() {
+        return diagnosticos;
+    }
+
+    /**
+     * Las producciones aplicadas, en orden (derivación por la izquierda); ver {@link TablaLL1#texto(int)}. Si hubo
+     * errores es una derivación parcial: faltan las partes que se descartaron al recuperarse.
+     */
+    public int[] getDerivacion() {
+        return Arrays.copyOf(derivacion, pasos);
+    }
+
+    public TablaLL1 getTabla() {
+        return tabla;
+    }
+}
@@ -1,161 +1,488 @@
 // Contenido del archivo AnalizadorLexico.java
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 public class AnalizadorLexico {
-    public static List<Token> analizarLexicamente(String codigoFuente, List<String> erroresLexicos) {
+    /** Tamaño mínimo, en caracteres, de cada trozo del análisis en paralelo. */
+    private static final int TAMANO_MINIMO_TROZO = 1 << 16;
+
+    public static List<Token> analizarLexicamente(String codigoFuente, RegistroSimbolos tablaSimbolos, List<String> erroresLexicos) {
+        Diagnosticos diagnosticos = new Diagnosticos();
+        List<Token> tokens = analizarLexicamente(codigoFuente, tablaSimbolos, diagnosticos);
+        erroresLexicos.addAll(diagnosticos.getMensajes());
+        return tokens;
+    }
+
+    /**
+     * Analiza el código fuente registrando los errores léxicos en {@code diagnosticos}. Si se alcanza su
+     * límite de errores, el análisis se detiene en ese punto.
+     * @param codigoFuente El código fuente completo.
+     * @param tablaSimbolos La tabla de símbolos de esta compilación, donde se agregan los identificadores y tipos.
+     * @param diagnosticos Donde se registran los errores léxicos.
+     * @return La lista de tokens reconocidos.
+     */
+    public static List<Token> analizarLexicamente(String codigoFuente, RegistroSimbolos tablaSimbolos, Diagnosticos diagnosticos) {
         List<Token> tokens = new ArrayList<>();
-        int lineaNumero = 1;
+        // El escáner recorre la entrada una sola vez y descarta los comentarios por su cuenta
+        Escaner escaner = new Escaner(codigoFuente.toCharArray());
+        escaner.setCacheLexemas(tablaSimbolos.getLexemas().nuevaCache());
 
-        codigoFuente = codigoFuente.replaceAll("/\\*.*?\\*/", ""); 
-        String[] lineas = codigoFuente.split("\\r?\\n");
+        Token token;
+        while ((token = siguienteToken(escaner, diagnosticos, tablaSimbolos)) != null) {
+            tokens.add(token);
+        }
+        return tokens;
+    }
 
-        for (String linea : lineas) {
-            String lineaDepurada = linea.trim();
-            if (lineaDepurada.isEmpty()) {
-                lineaNumero++;
-                continue;
-            }
+    /**
+     * Analiza un archivo sin cargarlo completo como texto: el archivo se mapea en memoria y se recorre
+     * byte a byte mientras sea ASCII (ver {@link Escaner#mapear}).
+     * @param rutaArchivo El archivo del código fuente.
+     * @param juegoCaracteres La codificación del archivo.
+     * @param tablaSimbolos La tabla de símbolos de esta compilación, donde se agregan los identificadores y tipos.
+     * @param erroresLexicos La lista donde se agregan los errores léxicos.
+     * @return La lista de tokens reconocidos.
+     * @throws IOException Si no se puede abrir el archivo.
+     */
+    public static List<Token> analizarArchivo(Path rutaArchivo, Charset juegoCaracteres, RegistroSimbolos tablaSimbolos,
+                                              List<String> erroresLexicos) throws IOException {
+        Diagnosticos diagnosticos = new Diagnosticos();
+        List<Token> tokens = analizarArchivo(rutaArchivo, juegoCaracteres, tablaSimbolos, diagnosticos);
+        erroresLexicos.addAll(diagnosticos.getMensajes());
+        return tokens;
+    }
 
-            int posicion = 0;
-            while (posicion < lineaDepurada.length()) {
-                int initialPos = posicion;
-                if (Character.isWhitespace(lineaDepurada.charAt(posicion))) {
-                    posicion++;
-                    continue;
-                }
+    /**
+     * Igual que {@link #analizarArchivo(Path, Charset, RegistroSimbolos, List)}, pero registra los errores en
+     * {@code diagnosticos} y se detiene al alcanzar su límite.
+     */
+    public static List<Token> analizarArchivo(Path rutaArchivo, Charset juegoCaracteres, RegistroSimbolos tablaSimbolos,
+                                              Diagnosticos diagnosticos) throws IOException {
+        List<Token> tokens = new ArrayList<>();
+        Escaner escaner = Escaner.mapear(rutaArchivo, juegoCaracteres);
+        escaner.setCacheLexemas(tablaSimbolos.getLexemas().nuevaCache());
+
+        Token token;
+        while ((token = siguienteToken(escaner, diagnosticos, tablaSimbolos)) != null) {
+            tokens.add(token);
+        }
+        return tokens;
+    }
 
-                boolean palabraReservadaEncontrada = false;
-                // Manejar palabras reservadas
-                for (Map.Entry<String, String> entry : Gramatica.palabrasReservadas.entrySet()) {
-                    if (lineaDepurada.startsWith(entry.getKey(), posicion)) {
-                        tokens.add(new Token(entry.getKey(), entry.getValue(), lineaNumero));
-                        // Opcional: Agregar palabras reservadas a la tabla de símbolos
-                        // TablaSimbolos.agregar(entry.getKey(), entry.getValue(), lineaNumero); 
-                        posicion += entry.getKey().length();
-                        palabraReservadaEncontrada = true;
-                        break;
+    /**
+     * Analiza el código fuente guardando los tokens por columnas, sin crear un objeto {@link Token} por lexema.
+     * @param codigoFuente El código fuente completo.
+     * @param tablaSimbolos La tabla de símbolos de esta compilación, donde se agregan los identificadores y tipos.
+     * @param erroresLexicos La lista donde se agregan los errores léxicos.
+     * @return El buffer de tokens; sus lexemas se leen de la fuente al pedirlos.
+     */
+    public static BufferTokens analizarEnBuffer(String codigoFuente, RegistroSimbolos tablaSimbolos, List<String> erroresLexicos) {
+        Diagnosticos diagnosticos = new Diagnosticos();
+        BufferTokens buffer = analizarEnBuffer(codigoFuente, tablaSimbolos, diagnosticos);
+        erroresLexicos.addAll(diagnosticos.getMensajes());
+        return buffer;
+    }
+
+    /**
+     * Igual que {@link #analizarEnBuffer(String, RegistroSimbolos, List)}, pero registra los errores en
+     * {@code diagnosticos} y se detiene al alcanzar su límite.
+     */
+    public static BufferTokens analizarEnBuffer(String codigoFuente, RegistroSimbolos tablaSimbolos, Diagnosticos diagnosticos) {
+        char[] fuente = codigoFuente.toCharArray();
+        BufferTokens buffer = new BufferTokens(fuente);
+        Escaner escaner = new Escaner(fuente);
+        escaner.setCacheLexemas(tablaSimbolos.getLexemas().nuevaCache());
+        ReferenciasCruzadas referencias = tablaSimbolos.getReferencias();
+
+        int codigo;
+        while (!diagnosticos.isLimiteAlcanzado() && (codigo = escaner.siguiente()) != Escaner.FIN) {
+            if (codigo > 0) {
+                buffer.agregar(codigo, escaner.getInicio(), escaner.getLongitud(), escaner.getLinea());
+                if (Escaner.esRegistrable(codigo)) {
+                    tablaSimbolos.agregar(escaner.getIdLexema(), escaner.lexema(), Escaner.tipo(codigo), escaner.getLinea(),
+                            escaner.getInicio());
+                    if (referencias != null) {
+                        referencias.agregar(escaner.lexema(), escaner.getInicio(), escaner.getLinea());
                     }
                 }
-                if (palabraReservadaEncontrada) {
-                    continue;
-                }
+            } else {
+                registrarError(codigo, escaner, diagnosticos);
+            }
+        }
+        return buffer;
+    }
 
-                // Manejar identificadores y tipos de datos (que también pueden ser IDs en un sentido más amplio)
-                if (posicion < lineaDepurada.length() && Character.isLetter(lineaDepurada.charAt(posicion))) {
-                    int startPos = posicion;
-                    StringBuilder potentialIdentifier = new StringBuilder();
-                    int currentPos = posicion;
-                    boolean hasSymbols = false;
-
-                    while (currentPos < lineaDepurada.length()
-                            && !Character.isWhitespace(lineaDepurada.charAt(currentPos))) {
-                        char c = lineaDepurada.charAt(currentPos);
-                        if (Character.isLetterOrDigit(c)) {
-                            potentialIdentifier.append(c);
-                            currentPos++;
-                        } else if ((c == ',') || (c == ';') || (c == ')') || (c == ':') || (c == '*') || (c == '-')) {
-                            break;
-                        } else {
-                            potentialIdentifier.append(c);
-                            hasSymbols = true;
-                            currentPos++;
-                        }
-                    }
+    /**
+     * Analiza el código fuente en paralelo usando el pool común de fork/join.
+     * @see #analizarEnParalelo(String, RegistroSimbolos, List, ForkJoinPool)
+     */
+    public static List<Token> analizarEnParalelo(String codigoFuente, RegistroSimbolos tablaSimbolos, List<String> erroresLexicos) {
+        return analizarEnParalelo(codigoFuente, tablaSimbolos, erroresLexicos, ForkJoinPool.commonPool());
+    }
 
-                    String palabra = potentialIdentifier.toString();
+    /**
+     * Analiza el código fuente dividiéndolo en trozos que terminan en un salto de línea, de modo que ningún
+     * token queda partido (salvo los comentarios, que se corrigen al unir los resultados).
+     * Los tokens, los errores y la tabla de símbolos quedan exactamente igual que con {@link #analizarLexicamente}.
+     * Si la tabla es una {@link TablaSimbolosConcurrente}, los símbolos de los trozos también se agregan en paralelo.
+     * @param codigoFuente El código fuente completo.
+     * @param tablaSimbolos La tabla de símbolos de esta compilación, donde se agregan los identificadores y tipos.
+     * @param erroresLexicos La lista donde se agregan los errores léxicos.
+     * @param pool El pool donde se analizan los trozos.
+     * @return La lista de tokens reconocidos, en el orden de la entrada.
+     */
+    public static List<Token> analizarEnParalelo(String codigoFuente, RegistroSimbolos tablaSimbolos, List<String> erroresLexicos,
+                                                 ForkJoinPool pool) {
+        Diagnosticos diagnosticos = new Diagnosticos();
+        List<Token> tokens = analizarEnParalelo(codigoFuente, tablaSimbolos, diagnosticos, pool);
+        erroresLexicos.addAll(diagnosticos.getMensajes());
+        return tokens;
+    }
 
-                    if (hasSymbols) {
-                        erroresLexicos.add("Error léxico en la línea " + lineaNumero + ", posición " + (startPos + 1)
-                                + ": Identificador inválido '" + palabra + "' contiene símbolos no permitidos.");
-                        posicion = currentPos;
-                    } else {
-                        boolean hasAccents = false;
-                        for (char c : palabra.toCharArray()) {
-                            if (Character.isLetter(c) && !(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z')) {
-                                hasAccents = true;
-                                break;
-                            }
-                        }
+    /**
+     * Igual que {@link #analizarEnParalelo(String, RegistroSimbolos, List, ForkJoinPool)}, pero registra los errores en
+     * {@code diagnosticos}. Si se alcanza su límite, el resultado se corta en el mismo punto que en
+     * {@link #analizarLexicamente(String, RegistroSimbolos, Diagnosticos)}.
+     */
+    public static List<Token> analizarEnParalelo(String codigoFuente, RegistroSimbolos tablaSimbolos, Diagnosticos diagnosticos,
+                                                 ForkJoinPool pool) {
+        if (diagnosticos.isLimiteAlcanzado()) {
+            return new ArrayList<>();
+        }
+        char[] fuente = codigoFuente.toCharArray();
+        PoolLexemas lexemas = tablaSimbolos.getLexemas();
+        List<Trozo> trozos = dividirEnTrozos(fuente, pool.getParallelism());
 
-                        if (hasAccents) {
-                            erroresLexicos.add("Error léxico en la línea " + lineaNumero + ", posición "
-                                    + (startPos + 1) + ": Identificador o tipo de dato inválido '" + palabra
-                                    + "' contiene caracteres acentuados.");
-                            posicion = currentPos;
-                        } else if (Gramatica.tiposDeDatos.containsKey(palabra)) {
-                            // Los tipos de datos son tokens, pero también pueden ir a la tabla de símbolos
-                            String tipoToken = Gramatica.tiposDeDatos.get(palabra);
-                            tokens.add(new Token(palabra, tipoToken, lineaNumero));
-                            TablaSimbolos.agregar(palabra, tipoToken, lineaNumero); // Agregar tipo a tabla de símbolos
-                            posicion = currentPos;
-                        } else if (palabra.matches(Gramatica.idRegex)) {
-                            tokens.add(new Token(palabra, "ID", lineaNumero));
-                            TablaSimbolos.agregar(palabra, "ID", lineaNumero); // Agregar ID a tabla de símbolos
-                            posicion = currentPos;
-                        } else if (!palabra.isEmpty()) {
-                            erroresLexicos.add("Error léxico en la línea " + lineaNumero + ", posición "
-                                    + (startPos + 1) + ": Identificador inválido '" + palabra + "'.");
-                            posicion = currentPos;
-                        }
+        // Primera fase: contar los saltos de línea de cada trozo para conocer su línea inicial
+        List<ForkJoinTask<?>> conteos = new ArrayList<>();
+        for (Trozo trozo : trozos) {
+            conteos.add(ForkJoinTask.adapt(() -> trozo.saltosDeLinea = contarLineas(fuente, trozo.desde, trozo.hasta)));
+        }
+        pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(conteos)));
+        int linea = 1;
+        for (Trozo trozo : trozos) {
+            trozo.lineaInicial = linea;
+            linea += trozo.saltosDeLinea;
+        }
+
+        // Segunda fase: analizar cada trozo por separado
+        List<ForkJoinTask<?>> analisis = new ArrayList<>();
+        for (Trozo trozo : trozos) {
+            analisis.add(ForkJoinTask.adapt(() -> trozo.analizar(fuente, trozo.desde, trozo.lineaInicial, lexemas)));
+        }
+        pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(analisis)));
+
+        // Tercera fase: unir en orden. Si un comentario quedó abierto al final de un trozo, el siguiente
+        // se vuelve a analizar a partir del cierre del comentario.
+        int totalTokens = 0;
+        for (Trozo trozo : trozos) {
+            totalTokens += trozo.tokens.size();
+        }
+        List<Token> tokens = new ArrayList<>(totalTokens);
+        List<Trozo> conSimbolos = new ArrayList<>(trozos.size()); // Los trozos cuyos símbolos van a la tabla
+        Trozo trozoComentario = null; // El último trozo, si la entrada quedó dentro de un comentario
+        for (Trozo trozo : trozos) {
+            if (trozoComentario != null) {
+                int cierre = buscarCierreComentario(fuente, trozo.desde, trozo.hasta);
+                if (cierre < 0) {
+                    continue; // Todo el trozo es parte del comentario
+                }
+                trozo.analizar(fuente, cierre, trozo.lineaInicial + contarLineas(fuente, trozo.desde, cierre), lexemas);
+            }
+            int errores = trozo.errores.tamano() - (trozo.terminaEnComentario ? 1 : 0);
+            int disponibles = diagnosticos.getLimite() - diagnosticos.tamano();
+            if (errores >= disponibles) {
+                // El límite se alcanza dentro de este trozo: solo cuenta lo anterior al último error admitido
+                diagnosticos.agregarDe(trozo.errores, 0, disponibles);
+                int corte = trozo.errores.inicio(disponibles - 1);
+                for (Token token : trozo.tokens) {
+                    if (token.getInicio() < corte) {
+                        tokens.add(token);
                     }
-                    continue;
                 }
+                trozo.corteSimbolos = corte;
+                conSimbolos.add(trozo);
+                agregarSimbolos(conSimbolos, tablaSimbolos, pool);
+                agregarReferencias(tokens, tablaSimbolos);
+                return tokens;
+            }
+            tokens.addAll(trozo.tokens);
+            diagnosticos.agregarDe(trozo.errores, 0, errores);
+            conSimbolos.add(trozo);
+            trozoComentario = trozo.terminaEnComentario ? trozo : null;
+        }
+        if (trozoComentario != null) {
+            int ultimo = trozoComentario.errores.tamano() - 1;
+            diagnosticos.agregarDe(trozoComentario.errores, ultimo, ultimo + 1);
+        }
+        agregarSimbolos(conSimbolos, tablaSimbolos, pool);
+        agregarReferencias(tokens, tablaSimbolos);
+        return tokens;
+    }
+
+    // Las apariciones se registran sobre los tokens ya unidos, que están en el orden del código fuente
+    private static void agregarReferencias(List<Token> tokens, RegistroSimbolos tablaSimbolos) {
+        ReferenciasCruzadas referencias = tablaSimbolos.getReferencias();
+        if (referencias == null) {
+            return;
+        }
+        for (Token token : tokens) {
+            if (token.getIdLexema() >= 0) {
+                referencias.agregar(token.getLexema(), token.getInicio(), token.getLinea());
+            }
+        }
+    }
+
+    // Pasa a la tabla los símbolos de los trozos. Una tabla concurrente ordena por posición, así que cada trozo
+    // se puede agregar en su propia tarea y el resultado es el mismo que agregándolos en orden.
+    private static void agregarSimbolos(List<Trozo> trozos, RegistroSimbolos tablaSimbolos, ForkJoinPool pool) {
+        if (tablaSimbolos instanceof TablaSimbolosConcurrente && trozos.size() > 1) {
+            List<ForkJoinTask<?>> inserciones = new ArrayList<>();
+            for (Trozo trozo : trozos) {
+                inserciones.add(ForkJoinTask.adapt(() -> trozo.agregarSimbolos(tablaSimbolos)));
+            }
+            pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(inserciones)));
+        } else {
+            for (Trozo trozo : trozos) {
+                trozo.agregarSimbolos(tablaSimbolos);
+            }
+        }
+    }
+
+    private static List<Trozo> dividirEnTrozos(char[] fuente, int paralelismo) {
+        // Varios trozos por hilo para repartir mejor la carga
+        int tamano = Math.max(TAMANO_MINIMO_TROZO, fuente.length / (paralelismo * 4) + 1);
+        List<Trozo> trozos = new ArrayList<>();
+        int desde = 0;
+        do {
+            int hasta = Math.min(fuente.length, desde + tamano);
+            while (hasta < fuente.length && fuente[hasta - 1] != '\n') {
+                hasta++;
+            }
+            trozos.add(new Trozo(desde, hasta));
+            desde = hasta;
+        } while (desde < fuente.length);
+        return trozos;
+    }
+
+    private static int contarLineas(char[] fuente, int desde, int hasta) {
+        int saltos = 0;
+        for (int i = desde; i < hasta; i++) {
+            if (fuente[i] == '\n') {
+                saltos++;
+            }
+        }
+        return saltos;
+    }
+
+    // Devuelve la posición siguiente al primer "*/", o -1 si no hay
+    private static int buscarCierreComentario(char[] fuente, int desde, int hasta) {
+        for (int i = desde + 1; i < hasta; i++) {
+            if (fuente[i] == '/' && fuente[i - 1] == '*') {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
 
-                // Manejar otros tipos de tokens (literales, operadores, etc.)
-                Pattern literalPattern = Pattern.compile(Gramatica.literalRegex);
-                Matcher matchLiteral = literalPattern.matcher(lineaDepurada.substring(posicion));
-                if (matchLiteral.lookingAt()) {
-                    String literal = matchLiteral.group(0);
-                    tokens.add(new Token(literal, "LITERAL_CAD", lineaNumero));
-                    // Generalmente los literales no van a la tabla de símbolos de esta manera
-                    posicion += literal.length();
-                    continue;
+    /** Resultado del análisis de una parte de la entrada. */
+    private static class Trozo {
+        private final int desde;
+        private final int hasta;
+        private int saltosDeLinea;
+        private int lineaInicial;
+        private List<Token> tokens;
+        private Diagnosticos errores;
+        private Map<String, Token> simbolos;
+        private boolean terminaEnComentario; // Si es así, el último error es el del comentario sin cerrar
+        private int corteSimbolos = Integer.MAX_VALUE; // Solo cuentan los símbolos que aparecen antes
+
+        private Trozo(int desde, int hasta) {
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        private void analizar(char[] fuente, int inicio, int linea, PoolLexemas lexemas) {
+            tokens = new ArrayList<>();
+            errores = new Diagnosticos();
+            simbolos = new LinkedHashMap<>();
+            Escaner escaner = new Escaner(fuente, inicio, hasta, linea);
+            escaner.setCacheLexemas(lexemas.nuevaCache());
+            Token token;
+            while ((token = siguienteToken(escaner, errores, null, simbolos)) != null) {
+                tokens.add(token);
+            }
+            terminaEnComentario = escaner.terminoEnComentario();
+        }
+
+        private void agregarSimbolos(RegistroSimbolos tablaSimbolos) {
+            for (Token simbolo : simbolos.values()) {
+                if (simbolo.getInicio() < corteSimbolos) {
+                    tablaSimbolos.agregar(simbolo.getIdLexema(), simbolo.getLexema(), simbolo.getTipo(), simbolo.getLinea(),
+                            simbolo.getInicio());
                 }
+            }
+        }
+    }
 
-                if (posicion < lineaDepurada.length()) {
-                    String currentCharStr = String.valueOf(lineaDepurada.charAt(posicion));
-                    if (Gramatica.signosOperadores.containsKey(currentCharStr)) {
-                        String tipoToken = Gramatica.signosOperadores.get(currentCharStr);
-                        tokens.add(new Token(currentCharStr, tipoToken, lineaNumero));
-                        // Opcional: algunos operadores podrían ir a la tabla de símbolos si se desea
-                        // TablaSimbolos.agregar(currentCharStr, tipoToken, lineaNumero);
-                        posicion++;
-                        continue;
-                    }
+    /**
+     * Crea un flujo de tokens que lee el código fuente por partes, con memoria acotada.
+     * Los tokens se producen a medida que se piden; los errores léxicos y la tabla de símbolos
+     * se actualizan en ese mismo momento.
+     * @param fuente El lector del código fuente. Se cierra al llegar al final.
+     * @param tablaSimbolos La tabla de símbolos de esta compilación, donde se agregan los identificadores y tipos.
+     * @param erroresLexicos La lista donde se agregan los errores léxicos.
+     * @return Un iterador de tokens.
+     */
+    public static Iterator<Token> flujoDeTokens(Reader fuente, RegistroSimbolos tablaSimbolos, List<String> erroresLexicos) {
+        Escaner escaner = new Escaner(fuente, Escaner.TAMANO_VENTANA);
+        escaner.setCacheLexemas(tablaSimbolos.getLexemas().nuevaCache());
+        return new FlujoTokens(escaner, tablaSimbolos, new Diagnosticos(), erroresLexicos);
+    }
 
-                    Pattern cintPattern = Pattern.compile(Gramatica.cintRegex);
-                    Matcher matchCint = cintPattern.matcher(lineaDepurada.substring(posicion));
-                    if (matchCint.lookingAt()) { 
-                        String numero = matchCint.group(0);
-                        tokens.add(new Token(numero, "CINT", lineaNumero));
-                        // Generalmente las constantes numéricas no van a la tabla de símbolos de esta manera
-                        posicion += numero.length();
-                        continue;
-                    }
+    /**
+     * Igual que {@link #flujoDeTokens(Reader, RegistroSimbolos, List)}, pero registra los errores en {@code diagnosticos}.
+     * Al alcanzar su límite el flujo termina y el lector se cierra.
+     */
+    public static Iterator<Token> flujoDeTokens(Reader fuente, RegistroSimbolos tablaSimbolos, Diagnosticos diagnosticos) {
+        Escaner escaner = new Escaner(fuente, Escaner.TAMANO_VENTANA);
+        escaner.setCacheLexemas(tablaSimbolos.getLexemas().nuevaCache());
+        return new FlujoTokens(escaner, tablaSimbolos, diagnosticos, null);
+    }
+
+    /**
+     * Crea un flujo de tokens sobre un canal de bytes, decodificado con el juego de caracteres indicado.
+     * @see #flujoDeTokens(Reader, RegistroSimbolos, List)
+     */
+    public static Iterator<Token> flujoDeTokens(ReadableByteChannel canal, Charset juegoCaracteres, RegistroSimbolos tablaSimbolos,
+                                                List<String> erroresLexicos) {
+        return flujoDeTokens(Channels.newReader(canal, juegoCaracteres.newDecoder(), Escaner.TAMANO_VENTANA), tablaSimbolos,
+                erroresLexicos);
+    }
 
-                    Pattern boolPattern = Pattern.compile(Gramatica.boolRegex);
-                    Matcher matchBool = boolPattern.matcher(lineaDepurada.substring(posicion));
-                    if (matchBool.lookingAt()) { 
-                        String booleano = matchBool.group(0);
-                        tokens.add(new Token(booleano, "BOOL", lineaNumero));
-                        // TablaSimbolos.agregar(booleano, "BOOL", lineaNumero); // Si quieres 'verdadero'/'falso' en la tabla
-                        posicion += booleano.length();
-                        continue;
+    /**
+     * Crea un flujo de tokens sobre un archivo mapeado en memoria.
+     * @see #analizarArchivo(Path, Charset, RegistroSimbolos, List)
+     * @see #flujoDeTokens(Reader, RegistroSimbolos, List)
+     */
+    public static Iterator<Token> flujoDeTokens(Path rutaArchivo, Charset juegoCaracteres, RegistroSimbolos tablaSimbolos,
+                                                List<String> erroresLexicos) throws IOException {
+        Escaner escaner = Escaner.mapear(rutaArchivo, juegoCaracteres);
+        escaner.setCacheLexemas(tablaSimbolos.getLexemas().nuevaCache());
+        return new FlujoTokens(escaner, tablaSimbolos, new Diagnosticos(), erroresLexicos);
+    }
+
+    /**
+     * Igual que {@link #flujoDeTokens(Path, Charset, RegistroSimbolos, List)}, pero registra los errores en
+     * {@code diagnosticos}. Al alcanzar su límite el flujo termina y el archivo se cierra.
+     */
+    public static Iterator<Token> flujoDeTokens(Path rutaArchivo, Charset juegoCaracteres, RegistroSimbolos tablaSimbolos,
+                                                Diagnosticos diagnosticos) throws IOException {
+        Escaner escaner = Escaner.mapear(rutaArchivo, juegoCaracteres);
+        escaner.setCacheLexemas(tablaSimbolos.getLexemas().nuevaCache());
+        return new FlujoTokens(escaner, tablaSimbolos, diagnosticos, null);
+    }
+
+    /**
+     * Obtiene el siguiente token válido del escáner, registrando los errores léxicos que encuentre antes.
+     * @return El token, o null si se llegó al final de la entrada o al límite de errores.
+     */
+    private static Token siguienteToken(Escaner escaner, Diagnosticos diagnosticos, RegistroSimbolos tablaSimbolos) {
+        return siguienteToken(escaner, diagnosticos, tablaSimbolos, null);
+    }
+
+    /**
+     * Igual que {@link #siguienteToken(Escaner, Diagnosticos, RegistroSimbolos)}, pero si se indica {@code simbolosLocales}
+     * los símbolos se guardan ahí (solo su primera aparición, en orden) en lugar de ir directo a la tabla de símbolos.
+     */
+    private static Token siguienteToken(Escaner escaner, Diagnosticos diagnosticos, RegistroSimbolos tablaSimbolos,
+                                        Map<String, Token> simbolosLocales) {
+        while (!diagnosticos.isLimiteAlcanzado()) {
+            int codigo = escaner.siguiente();
+            if (codigo == Escaner.FIN) {
+                return null;
+            }
+            if (codigo > 0) {
+                String lexema = escaner.lexema();
+                String tipoToken = Escaner.tipo(codigo);
+                int idLexema = escaner.getIdLexema();
+                Token token = new Token(lexema, tipoToken, escaner.getLinea(), idLexema,
+                        escaner.getInicio(), escaner.getColumna());
+                if (Escaner.esRegistrable(codigo)) {
+                    // Los identificadores y los tipos de datos van a la tabla de símbolos
+                    if (simbolosLocales != null) {
+                        simbolosLocales.putIfAbsent(lexema, token);
+                    } else {
+                        tablaSimbolos.agregar(idLexema, lexema, tipoToken, escaner.getLinea(), escaner.getInicio());
+                        ReferenciasCruzadas referencias = tablaSimbolos.getReferencias();
+                        if (referencias != null) {
+                            referencias.agregar(lexema, escaner.getInicio(), escaner.getLinea());
+                        }
                     }
                 }
+                return token;
+            }
+            registrarError(codigo, escaner, diagnosticos);
+        }
+        escaner.cerrar();
+        return null;
+    }
+
+    private static class FlujoTokens implements Iterator<Token> {
+        private final Escaner escaner;
+        private final RegistroSimbolos tablaSimbolos;
+        private final Diagnosticos diagnosticos;
+        private final List<String> erroresLexicos; // Si se indica, recibe el texto de cada error en cuanto aparece
+        private Token siguiente;
+        private boolean terminado = false;
+
+        private FlujoTokens(Escaner escaner, RegistroSimbolos tablaSimbolos, Diagnosticos diagnosticos, List<String> erroresLexicos) {
+            this.escaner = escaner;
+            this.tablaSimbolos = tablaSimbolos;
+            this.diagnosticos = diagnosticos;
+            this.erroresLexicos = erroresLexicos;
+        }
 
-                if (posicion == initialPos && posicion < lineaDepurada.length()) {
-                    erroresLexicos.add("Error léxico en la línea " + lineaNumero + ", posición " + (posicion + 1)
-                            + ": Carácter no reconocido '" + lineaDepurada.charAt(posicion) + "'");
-                    posicion++;
+        @Override
+        public boolean hasNext() {
+            if (siguiente == null && !terminado) {
+                siguiente = siguienteToken(escaner, diagnosticos, tablaSimbolos);
+                terminado = (siguiente == null);
+                if (erroresLexicos != null) {
+                    erroresLexicos.addAll(diagnosticos.getMensajes());
+                    diagnosticos.limpiar();
                 }
             }
-            lineaNumero++;
+            return siguiente != null;
         }
-        return tokens;
+
+        @Override
+        public Token next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Token token = siguiente;
+            siguiente = null;
+            return token;
+        }
+    }
+
+    private static void registrarError(int codigo, Escaner escaner, Diagnosticos diagnosticos) {
+        // El texto de un comentario sin cerrar ya no está completo en la ventana del escáner, y no se usa
+        String lexema = (codigo == Escaner.ERROR_COMENTARIO) ? null : escaner.lexema();
+        diagnosticos.agregar(codigo, escaner.getInicio(), escaner.getLongitud(), escaner.getLinea(),
+                escaner.getColumna(), lexema);
     }
 }
\ No newline at end of file
@@ -0,0 +1,447 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Análisis léxico de un texto que se edita: tras cada cambio solo se vuelve a escanear la zona dañada,
+ * hasta que los lexemas nuevos coinciden otra vez con los anteriores, y el resto se conserva desplazado.
+ * Los tokens, los errores y la tabla de símbolos quedan igual que con {@link AnalizadorLexico#analizarLexicamente}.
+ * <p>
+ * El análisis tiene su propia tabla de símbolos ({@link #getTablaSimbolos()}): cada edición solo inserta,
+ * quita o recorre las entradas que cambian.
+ */
+public class AnalizadorLexicoIncremental {
+    private char[] fuente;
+    private int longitud;
+    private final Lexemas lexemas = new Lexemas(16);
+    // Símbolos presentes en el texto; "orden" sigue el mismo orden que las entradas de la tabla de símbolos
+    private final Map<String, Simbolo> simbolos = new HashMap<>();
+    private final List<Simbolo> orden = new ArrayList<>();
+    private final TablaSimbolos tablaSimbolos = new TablaSimbolos();
+
+    /**
+     * Analiza el código fuente completo y registra sus símbolos en una tabla de símbolos nueva.
+     * @param codigoFuente El código fuente inicial.
+     */
+    public AnalizadorLexicoIncremental(String codigoFuente) {
+        fuente = codigoFuente.toCharArray();
+        longitud = fuente.length;
+        Escaner escaner = new Escaner(fuente);
+        while (lexemas.agregar(escaner)) {
+            // Se agregan todos los lexemas
+        }
+        for (int i = 0; i < lexemas.tamano; i++) {
+            if (esRegistrable(lexemas.codigos[i])) {
+                String lexema = texto(lexemas, i);
+                Simbolo simbolo = simbolos.get(lexema);
+                if (simbolo == null) {
+                    simbolo = new Simbolo(lexema, lexemas.codigos[i], lexemas.inicios[i]);
+                    simbolos.put(lexema, simbolo);
+                    orden.add(simbolo);
+                    tablaSimbolos.agregar(lexema, Escaner.tipo(simbolo.codigo), lexemas.lineas[i]);
+                }
+                simbolo.apariciones++;
+            }
+        }
+    }
+
+    /**
+     * Aplica una edición al texto y actualiza los tokens, los errores y la tabla de símbolos.
+     * @param desplazamiento La posición (base 0) donde empieza el cambio.
+     * @param eliminados Cuántos caracteres se quitan a partir de esa posición.
+     * @param insertado El texto que se pone en su lugar.
+     */
+    public void editar(int desplazamiento, int eliminados, String insertado) {
+        Objects.checkFromIndexSize(desplazamiento, eliminados, longitud);
+        int finEliminado = desplazamiento + eliminados;
+        int delta = insertado.length() - eliminados;
+        char[] eliminado = Arrays.copyOfRange(fuente, desplazamiento, finEliminado);
+        int deltaLineas = contarLineas(insertado.toCharArray()) - contarLineas(eliminado);
+
+        // Primer lexema cuyo reconocimiento pudo depender del texto cambiado. Antes de la línea del cambio
+        // ninguno examinó más allá de su propia línea, así que basta revisar los de esa línea.
+        int primero = lexemas.buscar(desplazamiento);
+        int reinicio = primero;
+        for (int i = primero - 1; i >= 0 && lexemas.lineas[i] == lexemas.lineas[primero - 1]; i--) {
+            if (lexemas.inicios[i] + lexemas.alcances[i] > desplazamiento) {
+                reinicio = i;
+            }
+        }
+
+        if (longitud + delta > fuente.length) {
+            fuente = Arrays.copyOf(fuente, Math.max(longitud + delta, fuente.length + fuente.length / 2));
+        }
+        System.arraycopy(fuente, finEliminado, fuente, desplazamiento + insertado.length(), longitud - finEliminado);
+        insertado.getChars(0, insertado.length(), fuente, desplazamiento);
+        longitud += delta;
+
+        // Se vuelve a escanear desde el final del último lexema intacto hasta que un lexema nuevo coincide,
+        // en posición, tipo y longitud, con uno anterior que está después del cambio
+        Escaner escaner;
+        if (reinicio == 0) {
+            escaner = new Escaner(fuente, 0, longitud, 1);
+        } else {
+            int ultimo = reinicio - 1;
+            escaner = new Escaner(fuente, lexemas.inicios[ultimo] + lexemas.longitudes[ultimo], longitud,
+                    lexemas.lineas[ultimo]);
+        }
+        Lexemas nuevos = new Lexemas(16);
+        int conservado = reinicio;
+        int resto = lexemas.tamano;
+        while (nuevos.agregar(escaner)) {
+            int ultimo = nuevos.tamano - 1;
+            int inicio = nuevos.inicios[ultimo];
+            while (conservado < lexemas.tamano
+                    && (lexemas.inicios[conservado] < finEliminado || lexemas.inicios[conservado] + delta < inicio)) {
+                conservado++;
+            }
+            if (conservado < lexemas.tamano && lexemas.inicios[conservado] + delta == inicio
+                    && lexemas.codigos[conservado] == nuevos.codigos[ultimo]
+                    && lexemas.longitudes[conservado] == nuevos.longitudes[ultimo]) {
+                resto = conservado + 1;
+                break;
+            }
+        }
+
+        actualizarSimbolos(reinicio, resto, nuevos, desplazamiento, eliminado, delta, deltaLineas);
+        lexemas.reemplazar(reinicio, resto, nuevos, delta, deltaLineas);
+    }
+
+    /**
+     * Reemplaza el texto completo, aplicando como una sola edición la parte que difiere del texto actual.
+     * @param codigoFuente El nuevo código fuente.
+     */
+    public void actualizar(String codigoFuente) {
+        char[] nueva = codigoFuente.toCharArray();
+        int comun = Arrays.mismatch(fuente, 0, longitud, nueva, 0, nueva.length);
+        if (comun < 0) {
+            return;
+        }
+        // El sufijo común se compara por bloques desde el final
+        int maximo = Math.min(longitud, nueva.length) - comun;
+        int sufijo = 0;
+        while (sufijo < maximo) {
+            int bloque = Math.min(4096, maximo - sufijo);
+            int diferencia = Arrays.mismatch(fuente, longitud - sufijo - bloque, longitud - sufijo,
+                    nueva, nueva.length - sufijo - bloque, nueva.length - sufijo);
+            if (diferencia >= 0) {
+                int iguales = bloque - 1;
+                while (fuente[longitud - sufijo - bloque + iguales] == nueva[nueva.length - sufijo - bloque + iguales]) {
+                    iguales--;
+                }
+                sufijo += bloque - 1 - iguales;
+                break;
+            }
+            sufijo += bloque;
+        }
+        editar(comun, longitud - comun - sufijo, new String(nueva, comun, nueva.length - comun - sufijo));
+    }
+
+    public String getCodigoFuente() {
+        return new String(fuente, 0, longitud);
+    }
+
+    /** La tabla de símbolos del texto actual; se mantiene al día con cada edición. */
+    public TablaSimbolos getTablaSimbolos() {
+        return tablaSimbolos;
+    }
+
+    /** Los tokens válidos del texto actual, guardados por columnas. El buffer no cambia con las ediciones siguientes. */
+    public BufferTokens getBuffer() {
+        BufferTokens buffer = new BufferTokens(Arrays.copyOf(fuente, longitud));
+        for (int i = 0; i < lexemas.tamano; i++) {
+            if (lexemas.codigos[i] > 0) {
+                buffer.agregar(lexemas.codigos[i], lexemas.inicios[i], lexemas.longitudes[i], lexemas.lineas[i]);
+            }
+        }
+        return buffer;
+    }
+
+    /** Los tokens válidos del texto actual. */
+    public List<Token> getTokens() {
+        return getBuffer().comoLista();
+    }
+
+    /** Los errores léxicos del texto actual, en el orden en que aparecen. */
+    public List<String> getErroresLexicos() {
+        return getDiagnosticos(Integer.MAX_VALUE).getMensajes();
+    }
+
+    /**
+     * Los errores léxicos del texto actual, en el orden en que aparecen.
+     * @param limite La cantidad máxima de errores que se incluyen.
+     */
+    public Diagnosticos getDiagnosticos(int limite) {
+        Diagnosticos diagnosticos = new Diagnosticos(limite);
+        for (int i = 0; i < lexemas.tamano && !diagnosticos.isLimiteAlcanzado(); i++) {
+            int codigo = lexemas.codigos[i];
+            if (codigo < 0) {
+                String lexema = (codigo == Escaner.ERROR_COMENTARIO) ? null : texto(lexemas, i);
+                diagnosticos.agregar(codigo, lexemas.inicios[i], lexemas.longitudes[i], lexemas.lineas[i],
+                        columna(lexemas.inicios[i]), lexema);
+            }
+        }
+        return diagnosticos;
+    }
+
+    // Columna (base 1) de una posición del texto actual
+    private int columna(int posicion) {
+        int inicioLinea = posicion;
+        while (inicioLinea > 0 && fuente[inicioLinea - 1] != '\n') {
+            inicioLinea--;
+        }
+        return posicion - inicioLinea + 1;
+    }
+
+    /**
+     * Ajusta los símbolos a la edición: los lexemas {@code [desde, hasta)} se quitan y entran los nuevos.
+     * Se llama con el texto ya editado pero antes de reemplazar los lexemas.
+     */
+    private void actualizarSimbolos(int desde, int hasta, Lexemas nuevos, int desplazamiento, char[] eliminado,
+                                    int delta, int deltaLineas) {
+        int inicioQuitado = (desde < lexemas.tamano) ? lexemas.inicios[desde] : Integer.MAX_VALUE;
+        int inicioResto = (hasta < lexemas.tamano) ? lexemas.inicios[hasta] : Integer.MAX_VALUE;
+        int finEliminado = desplazamiento + eliminado.length;
+
+        Map<String, Simbolo> afectados = new HashMap<>();
+        for (int i = desde; i < hasta; i++) {
+            if (esRegistrable(lexemas.codigos[i])) {
+                String lexema = textoAnterior(i, desplazamiento, eliminado, delta);
+                afectados.computeIfAbsent(lexema, simbolos::get).apariciones--;
+            }
+        }
+        for (int i = 0; i < nuevos.tamano; i++) {
+            int codigo = nuevos.codigos[i];
+            if (esRegistrable(codigo)) {
+                String lexema = new String(fuente, nuevos.inicios[i], nuevos.longitudes[i]);
+                Simbolo simbolo = afectados.computeIfAbsent(lexema,
+                        l -> simbolos.computeIfAbsent(l, n -> new Simbolo(n, codigo, -1)));
+                simbolo.apariciones++;
+            }
+        }
+
+        // Se sacan de la tabla los símbolos cuya primera aparición pudo cambiar
+        List<Simbolo> pendientes = new ArrayList<>();
+        for (Simbolo simbolo : afectados.values()) {
+            if (simbolo.primerInicio >= 0 && simbolo.primerInicio < inicioQuitado) {
+                continue; // Sigue apareciendo primero antes de la zona reemplazada
+            }
+            if (simbolo.primerInicio >= 0) {
+                int indice = buscarSimbolo(simbolo.primerInicio);
+                simbolo.primeraLinea = tablaSimbolos.getEntradas().get(indice).getReferencia();
+                orden.remove(indice);
+                tablaSimbolos.quitar(indice);
+            }
+            if (simbolo.apariciones == 0) {
+                simbolos.remove(simbolo.lexema);
+            } else {
+                pendientes.add(simbolo);
+            }
+        }
+
+        // Las demás entradas posteriores al cambio solo se recorren
+        int primeroDesplazado = buscarSimbolo(finEliminado);
+        if (delta != 0) {
+            for (int i = primeroDesplazado; i < orden.size(); i++) {
+                orden.get(i).primerInicio += delta;
+            }
+        }
+        if (deltaLineas != 0) {
+            tablaSimbolos.desplazarReferencias(primeroDesplazado, deltaLineas);
+        }
+
+        for (Simbolo simbolo : pendientes) {
+            int primerInicio = -1;
+            int primeraLinea = -1;
+            for (int i = 0; i < nuevos.tamano && primerInicio < 0; i++) {
+                if (esRegistrable(nuevos.codigos[i]) && coincide(nuevos.inicios[i], nuevos.longitudes[i], simbolo.lexema)) {
+                    primerInicio = nuevos.inicios[i];
+                    primeraLinea = nuevos.lineas[i];
+                }
+            }
+            if (primerInicio < 0 && simbolo.primerInicio >= inicioResto) {
+                primerInicio = simbolo.primerInicio + delta;
+                primeraLinea = simbolo.primeraLinea + deltaLineas;
+            }
+            for (int i = hasta; i < lexemas.tamano && primerInicio < 0; i++) {
+                // La primera aparición se quitó: se busca la siguiente en el resto del texto
+                if (esRegistrable(lexemas.codigos[i])
+                        && coincide(lexemas.inicios[i] + delta, lexemas.longitudes[i], simbolo.lexema)) {
+                    primerInicio = lexemas.inicios[i] + delta;
+                    primeraLinea = lexemas.lineas[i] + deltaLineas;
+                }
+            }
+            simbolo.primerInicio = primerInicio;
+            int indice = buscarSimbolo(primerInicio);
+            orden.add(indice, simbolo);
+            tablaSimbolos.insertar(indice, simbolo.lexema, Escaner.tipo(simbolo.codigo), primeraLinea);
+        }
+    }
+
+    // Índice del primer símbolo cuya primera aparición está en la posición indicada o después
+    private int buscarSimbolo(int posicion) {
+        int bajo = 0;
+        int alto = orden.size();
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (orden.get(medio).primerInicio < posicion) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo;
+    }
+
+    private static boolean esRegistrable(int codigo) {
+        return codigo > 0 && Escaner.esRegistrable(codigo);
+    }
+
+    private String texto(Lexemas lista, int i) {
+        String canonico = (lista.codigos[i] > 0) ? Escaner.lexemaCanonico(lista.codigos[i]) : null;
+        return (canonico != null) ? canonico : new String(fuente, lista.inicios[i], lista.longitudes[i]);
+    }
+
+    // Texto que tenía el lexema i antes de la edición, armado con el texto editado y lo que se eliminó
+    private String textoAnterior(int i, int desplazamiento, char[] eliminado, int delta) {
+        char[] texto = new char[lexemas.longitudes[i]];
+        for (int j = 0; j < texto.length; j++) {
+            int p = lexemas.inicios[i] + j;
+            if (p < desplazamiento) {
+                texto[j] = fuente[p];
+            } else if (p < desplazamiento + eliminado.length) {
+                texto[j] = eliminado[p - desplazamiento];
+            } else {
+                texto[j] = fuente[p + delta];
+            }
+        }
+        return new String(texto);
+    }
+
+    private boolean coincide(int inicio, int longitudLexema, String lexema) {
+        if (longitudLexema != lexema.length()) {
+            return false;
+        }
+        for (int j = 0; j < longitudLexema; j++) {
+            if (fuente[inicio + j] != lexema.charAt(j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int contarLineas(char[] texto) {
+        int saltos = 0;
+        for (char c : texto) {
+            if (c == '\n') {
+                saltos++;
+            }
+        }
+        return saltos;
+    }
+
+    /** Un símbolo registrable, con el desplazamiento de su primera aparición en el texto. */
+    private static class Simbolo {
+        private final String lexema;
+        private final int codigo;
+        private int primerInicio;
+        private int primeraLinea; // Solo se usa mientras el símbolo está fuera de la tabla
+        private int apariciones;
+
+        private Simbolo(String lexema, int codigo, int primerInicio) {
+            this.lexema = lexema;
+            this.codigo = codigo;
+            this.primerInicio = primerInicio;
+        }
+    }
+
+    /**
+     * Lexemas reconocidos (tokens y errores) en el orden del texto, guardados por columnas.
+     * El alcance de cada uno es cuánto texto se examinó desde su inicio para reconocerlo (ver {@link Escaner#getAlcance()}).
+     */
+    private static class Lexemas {
+        private int[] codigos;
+        private int[] inicios;
+        private int[] longitudes;
+        private int[] lineas;
+        private int[] alcances;
+        private int tamano = 0;
+
+        private Lexemas(int capacidad) {
+            codigos = new int[capacidad];
+            inicios = new int[capacidad];
+            longitudes = new int[capacidad];
+            lineas = new int[capacidad];
+            alcances = new int[capacidad];
+        }
+
+        // Agrega el siguiente lexema del escáner; devuelve false al llegar al final de la entrada
+        private boolean agregar(Escaner escaner) {
+            int codigo = escaner.siguiente();
+            if (codigo == Escaner.FIN) {
+                return false;
+            }
+            asegurarCapacidad(tamano + 1);
+            codigos[tamano] = codigo;
+            inicios[tamano] = escaner.getInicio();
+            longitudes[tamano] = escaner.getLongitud();
+            lineas[tamano] = escaner.getLinea();
+            alcances[tamano] = escaner.getAlcance() - escaner.getInicio();
+            tamano++;
+            return true;
+        }
+
+        // Índice del primer lexema que empieza en la posición indicada o después
+        private int buscar(int posicion) {
+            int bajo = 0;
+            int alto = tamano;
+            while (bajo < alto) {
+                int medio = (bajo + alto) >>> 1;
+                if (inicios[medio] < posicion) {
+                    bajo = medio + 1;
+                } else {
+                    alto = medio;
+                }
+            }
+            return bajo;
+        }
+
+        // Cambia los lexemas [desde, hasta) por los nuevos y recorre los siguientes según la edición
+        private void reemplazar(int desde, int hasta, Lexemas nuevos, int delta, int deltaLineas) {
+            int resto = tamano - hasta;
+            int destino = desde + nuevos.tamano;
+            if (destino != hasta) {
+                asegurarCapacidad(destino + resto);
+                for (int[] columna : new int[][] {codigos, inicios, longitudes, lineas, alcances}) {
+                    System.arraycopy(columna, hasta, columna, destino, resto);
+                }
+            }
+            System.arraycopy(nuevos.codigos, 0, codigos, desde, nuevos.tamano);
+            System.arraycopy(nuevos.inicios, 0, inicios, desde, nuevos.tamano);
+            System.arraycopy(nuevos.longitudes, 0, longitudes, desde, nuevos.tamano);
+            System.arraycopy(nuevos.lineas, 0, lineas, desde, nuevos.tamano);
+            System.arraycopy(nuevos.alcances, 0, alcances, desde, nuevos.tamano);
+            tamano = destino + resto;
+            for (int i = destino; i < tamano && delta != 0; i++) {
+                inicios[i] += delta;
+            }
+            for (int i = destino; i < tamano && deltaLineas != 0; i++) {
+                lineas[i] += deltaLineas;
+            }
+        }
+
+        private void asegurarCapacidad(int minimo) {
+            if (minimo > codigos.length) {
+                int capacidad = Math.max(minimo, codigos.length * 2);
+                codigos = Arrays.copyOf(codigos, capacidad);
+                inicios = Arrays.copyOf(inicios, capacidad);
+                longitudes = Arrays.copyOf(longitudes, capacidad);
+                lineas = Arrays.copyOf(lineas, capacidad);
+                alcances = Arrays.copyOf(alcances, capacidad);
+            }
+        }
+    }
+}
@@ -0,0 +1,188 @@
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Modo por lotes: analiza y evalúa muchas expresiones independientes de un mismo archivo.
+ * <p>
+ * Los tokens se dividen en unidades que terminan en ';' o en un salto de línea, así que en este modo una
+ * expresión no puede ocupar varias líneas. Cada unidad se analiza sobre el mismo {@link BufferTokens}, sin copiar
+ * tokens, con el analizador reutilizable de cada hilo ({@link AnalizadorSintactico#delHilo()}), y si no tiene
+ * errores se evalúa su NPI. Las unidades se reparten en un {@link ForkJoinPool}: cada tarea divide su rango de
+ * unidades en dos hasta que es pequeño, y los hilos libres roban las mitades pendientes de los demás. Cada resultado se guarda en la posición de su
+ * unidad, así que salen en el orden de la entrada sin necesidad de ordenarlos.
+ */
+public class AnalizadorLotes {
+    // Unidades que una tarea procesa sin volver a dividirse
+    private static final int UNIDADES_POR_TAREA = 256;
+    private static final int PC = Escaner.codigo(Gramatica.signosOperadores.get(";"));
+
+    /** El resultado de una expresión del lote. */
+    public static class Resultado {
+        private final int linea;
+        private final List<String> errores;
+        private final List<String> polacaInversa;
+        private final List<AnalizadorSintactico.Triplo> triplos;
+        private final Integer valor;
+        private final String errorEvaluacion;
+
+        private Resultado(int linea, List<String> errores, List<String> polacaInversa,
+                          List<AnalizadorSintactico.Triplo> triplos, Integer valor, String errorEvaluacion) {
+            this.linea = linea;
+            this.errores = errores;
+            this.polacaInversa = polacaInversa;
+            this.triplos = triplos;
+            this.valor = valor;
+            this.errorEvaluacion = errorEvaluacion;
+        }
+
+        /** La línea donde empieza la expresión. */
+        public int getLinea() {
+            return linea;
+        }
+
+        /** Los errores sintácticos de la expresión; si hay alguno, no se generó la NPI ni se evaluó. */
+        public List<String> getErrores() {
+            return errores;
+        }
+
+        public List<String> getPolacaInversa() {
+            return polacaInversa;
+        }
+
+        public List<AnalizadorSintactico.Triplo> getTriplos() {
+            return triplos;
+        }
+
+        /** El valor de la expresión, o null si tuvo errores sintácticos o no se pudo evaluar. */
+        public Integer getValor() {
+            return valor;
+        }
+
+        /** Por qué no se pudo evaluar (una división entre cero, una variable sin valor), o null. */
+        public String getErrorEvaluacion() {
+            return errorEvaluacion;
+        }
+
+        @Override
+        public String toString() {
+            if (!errores.isEmpty()) {
+                return "Línea " + linea + ": " + String.join(" | ", errores);
+            }
+            if (valor == null) {
+                return "Línea " + linea + ": Error al evaluar la expresión: " + errorEvaluacion;
+            }
+            return "Línea " + linea + ": " + polacaInversa + " = " + valor;
+        }
+    }
+
+    /**
+     * Analiza y evalúa las expresiones en el pool común de fork/join.
+     * @see #analizar(BufferTokens, Map, ForkJoinPool)
+     */
+    public static List<Resultado> analizar(BufferTokens tokens, Map<String, Integer> valores) {
+        return analizar(tokens, valores, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Analiza y evalúa cada expresión de los tokens.
+     * @param tokens Los tokens de todo el archivo, sin errores léxicos.
+     * @param valores Los valores de las variables, compartidos por todas las expresiones; no se modifica.
+     * @param pool El pool donde se procesan las expresiones.
+     * @return Un resultado por expresión, en el orden de la entrada; las unidades vacías (por ejemplo ";;") se omiten.
+     */
+    public static List<Resultado> analizar(BufferTokens tokens, Map<String, Integer> valores, ForkJoinPool pool) {
+        int[] limites = dividirEnUnidades(tokens);
+        int cantidad = limites.length / 2;
+        Resultado[] resultados = new Resultado[cantidad];
+        if (cantidad > 0) {
+            // El índice de líneas del buffer se crea al pedir la primera columna; se crea aquí, antes de repartir,
+            // para que los hilos que reportan errores no lo creen a la vez
+            tokens.columna(0);
+            pool.invoke(new Tarea(tokens, valores, limites, resultados, 0, cantidad));
+        }
+        return Collections.unmodifiableList(Arrays.asList(resultados));
+    }
+
+    // Los límites de cada unidad, en pares [inicio, fin) consecutivos
+    private static int[] dividirEnUnidades(BufferTokens tokens) {
+        int[] limites = new int[16];
+        int cantidad = 0;
+        int inicio = 0;
+        int total = tokens.tamano();
+        for (int i = 0; i <= total; i++) {
+            boolean separador = i < total && tokens.tipo(i) == PC;
+            boolean fin = i == total || separador || (i > inicio && tokens.linea(i) != tokens.linea(i - 1));
+            if (!fin) {
+                continue;
+            }
+            if (i > inicio) {
+                if (cantidad + 2 > limites.length) {
+                    limites = Arrays.copyOf(limites, limites.length * 2);
+                }
+                limites[cantidad++] = inicio;
+                limites[cantidad++] = i;
+            }
+            inicio = separador ? i + 1 : i;
+        }
+        return Arrays.copyOf(limites, cantidad);
+    }
+
+    private static Resultado procesar(BufferTokens tokens, int inicio, int fin, Map<String, Integer> valores) {
+        AnalizadorSintactico analizador = AnalizadorSintactico.delHilo();
+        analizador.reiniciar(tokens, inicio, fin);
+        analizador.analizarPlano();
+        int linea = tokens.linea(inicio);
+        if (!analizador.getDiagnosticos().isEmpty()) {
+            return new Resultado(linea, List.copyOf(analizador.getErroresSintacticos()), List.of(), List.of(), null, null);
+        }
+        Integer valor = null;
+        String errorEvaluacion = null;
+        try {
+            valor = analizador.ejecutarNPI(valores);
+        } catch (RuntimeException e) {
+            errorEvaluacion = e.getMessage();
+        }
+        // El analizador se reutiliza en la siguiente unidad, así que lo que devuelve se copia
+        return new Resultado(linea, List.of(), List.copyOf(analizador.getPolacaInversa()),
+                List.copyOf(analizador.getTriplos()), valor, errorEvaluacion);
+    }
+
+    // Procesa las unidades [desde, hasta), dividiéndolas en dos mientras sean muchas
+    private static class Tarea extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final BufferTokens tokens;
+        private final Map<String, Integer> valores;
+        private final int[] limites;
+        private final Resultado[] resultados;
+        private final int desde;
+        private final int hasta;
+
+        private Tarea(BufferTokens tokens, Map<String, Integer> valores, int[] limites, Resultado[] resultados,
+                      int desde, int hasta) {
+            this.tokens = tokens;
+            this.valores = valores;
+            this.limites = limites;
+            this.resultados = resultados;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        protected void compute() {
+            if (hasta - desde <= UNIDADES_POR_TAREA) {
+                for (int u = desde; u < hasta; u++) {
+                    resultados[u] = procesar(tokens, limites[2 * u], limites[2 * u + 1], valores);
+                }
+                return;
+            }
+            int mitad = (desde + hasta) >>> 1;
+            invokeAll(new Tarea(tokens, valores, limites, resultados, desde, mitad),
+                      new Tarea(tokens, valores, limites, resultados, mitad, hasta));
+        }
+    }
+}
@@ -2,9 +2,9 @@ import java.util.List;
 
 public class AnalizadorSemantico {
 
-    private TablaSimbolos tablaSimbolos;
+    private RegistroSimbolos tablaSimbolos;
 
-    public AnalizadorSemantico(TablaSimbolos tablaSimbolos) {
+    public AnalizadorSemantico(RegistroSimbolos tablaSimbolos) {
         this.tablaSimbolos = tablaSimbolos;
     }
 
@@ -40,10 +40,10 @@ public class AnalizadorSemantico {
     // Verifica una declaración de variable
     private void verificarDeclaracion(Node nodo) throws Exception {
         String nombre = nodo.getValor();
-        if (tablaSimbolos.existeSimbolo(nombre)) {
+        // Una variable de un ámbito exterior se puede volver a declarar; queda oculta en este
+        if (!tablaSimbolos.declarar(nombre, "tipo_desconocido", -1)) { // Ajustar tipo según el lenguaje
             throw new Exception("Error semántico: La variable '" + nombre + "' ya fue declarada.");
         }
-        tablaSimbolos.agregarSimbolo(nombre, "tipo_desconocido"); // Ajustar tipo según el lenguaje
     }
 
     // Verifica una asignación
@@ -1,16 +1,110 @@
+import java.util.AbstractList;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 public class AnalizadorSintactico {
-    private final List<Token> tokens;
-    private int indice = 0;
-    private final List<String> erroresSintacticos;
+    // Códigos de tipo de los operadores, tomados de Gramatica
+    private static final int MAS = Escaner.codigo(Gramatica.signosOperadores.get("+"));
+    private static final int MENOS = Escaner.codigo(Gramatica.signosOperadores.get("-"));
+    private static final int MUL = Escaner.codigo(Gramatica.signosOperadores.get("*"));
+    private static final int DIV = Escaner.codigo(Gramatica.signosOperadores.get("/"));
+    private static final int PAREN = Escaner.codigo(Gramatica.signosOperadores.get("("));
+    private static final int TESIS = Escaner.codigo(Gramatica.signosOperadores.get(")"));
+
+    /** El valor de los nodos que ocupan el lugar de un operando faltante en un árbol parcial. */
+    public static final String OPERANDO_FALTANTE = "<error>";
+
+    // Tokens de sincronización de la recuperación en modo pánico: los que terminan la expresión (el fin de la
+    // entrada, ';' y las palabras reservadas de las sentencias) y, para un operando faltante, también los
+    // operadores y ')', que pueden continuarla
+    private static final boolean[] FIN_DE_EXPRESION = new boolean[Escaner.cantidadTipos()];
+    private static final boolean[] SINCRONIZACION = new boolean[Escaner.cantidadTipos()];
+
+    static {
+        FIN_DE_EXPRESION[Escaner.FIN] = true;
+        FIN_DE_EXPRESION[Escaner.codigo(Gramatica.signosOperadores.get(";"))] = true;
+        for (String tipo : Gramatica.palabrasReservadas.values()) {
+            FIN_DE_EXPRESION[Escaner.codigo(tipo)] = true;
+        }
+        System.arraycopy(FIN_DE_EXPRESION, 0, SINCRONIZACION, 0, SINCRONIZACION.length);
+        for (int codigo : new int[] {MAS, MENOS, MUL, DIV, TESIS}) {
+            SINCRONIZACION[codigo] = true;
+        }
+    }
+
+    // Un analizador por hilo para reutilizar con reiniciar(...); ver delHilo()
+    private static final ThreadLocal<AnalizadorSintactico> DEL_HILO = ThreadLocal.withInitial(AnalizadorSintactico::new);
+    // Lexemas distintos que se guardan en el pool propio antes de descartarlo
+    private static final int LIMITE_LEXEMAS = 1 << 14;
+
+    private List<Token> tokens;
+    private Iterator<Token> flujo;
+    private BufferTokens buffer;
+    private int desde;             // En modo columnar, los tokens analizados son [desde, hasta)
+    private int hasta;
+    private Iterator<Token> fuente;
+    private Token tokenActual;
+    private Token tokenAnterior;
+    private int posicion;          // Índice del token actual en modo columnar
+    private int indiceToken;       // Índice del token actual en cualquier modo
+    private int indiceUltimoError; // Token sobre el que se reportó el último error
+    private int codigoActual;      // Código de tipo del token actual, o Escaner.FIN al terminar
+    private String lexemaActual;   // Lexema del token actual, leído solo si hace falta
+    private final Diagnosticos diagnosticos = new Diagnosticos();
     private boolean error = false;
     private final List<String> polacaInversa = new ArrayList<>();
-    private final List<Triplo> triplos = new ArrayList<>();
+    private final List<String> vistaPolacaInversa = Collections.unmodifiableList(polacaInversa);
+    // Pila semántica: el nombre (variable, constante o temporal) del valor de cada subexpresión ya reducida
+    private final Deque<String> operandos = new ArrayDeque<>();
+    private boolean iterativo = false;
+    private boolean construirNodos = true; // Falso con analizarPlano: solo se arma el árbol abstracto
+    private ArbolPlano arbol;
+
+    // Lo que sigue se conserva entre análisis, así que un analizador reutilizado casi no crea objetos.
+    // Los triplos van por columnas: el operador (un tipo de ArbolPlano) y los dos argumentos; el resultado del
+    // triplo i es el temporal "t" + (i + 1), que se crea una sola vez.
+    private final ArbolPlano arbolReutilizable = new ArbolPlano();
+    private int[] operadoresTriplo = new int[16];
+    private String[] argumentos1 = new String[16];
+    private String[] argumentos2 = new String[16];
+    private int cantidadTriplos = 0;
+    private String[] temporales = new String[16];
+    private final List<Triplo> vistaTriplos = new AbstractList<Triplo>() {
+        @Override
+        public Triplo get(int indice) {
+            Objects.checkIndex(indice, cantidadTriplos);
+            return new Triplo(ArbolPlano.simbolo(operadoresTriplo[indice]), argumentos1[indice], argumentos2[indice],
+                    temporal(indice));
+        }
+
+        @Override
+        public int size() {
+            return cantidadTriplos;
+        }
+    };
+    private int[] tareasPendientes = new int[64];
+    private Node[] padresPendientes = new Node[64];
+    private int tareasApiladas = 0;
+    // Los lexemas de los operandos se internan en un pool propio, así que leer uno ya visto no crea un String
+    private PoolLexemas lexemas;
+    private PoolLexemas.Cache cacheLexemas;
+
+    // Tareas de la pila explícita del modo iterativo; cada una equivale a una llamada del descenso recursivo
+    private static final int TAREA_E = 0;
+    private static final int TAREA_EP = 1;
+    private static final int TAREA_T = 2;
+    private static final int TAREA_TP = 3;
+    private static final int TAREA_F = 4;
+    private static final int TAREA_CIERRE = 5; // El ')' de F -> (E)
+    // La acción semántica al terminar el operando derecho de E' o T'; se suma el tipo de operador de ArbolPlano
+    private static final int TAREA_OPERADOR = 6;
 
     public static class Triplo {
         private final String operador;
@@ -32,48 +126,219 @@ public class AnalizadorSintactico {
     }
 
     public AnalizadorSintactico(List<Token> tokens) {
+        reiniciar(tokens);
+    }
+
+    /**
+     * Crea un analizador que consume los tokens a medida que los necesita, sin guardarlos en una lista.
+     * En este modo {@link #analizar()} solo puede invocarse una vez.
+     * @param flujo El flujo de tokens, por ejemplo el de {@link AnalizadorLexico#flujoDeTokens}.
+     */
+    public AnalizadorSintactico(Iterator<Token> flujo) {
+        this.flujo = flujo;
+    }
+
+    /**
+     * Crea un analizador que lee directamente los arreglos de un {@link BufferTokens}; los objetos
+     * {@link Token} solo se crean para los mensajes de error.
+     */
+    public AnalizadorSintactico(BufferTokens buffer) {
+        this(buffer, 0, buffer.tamano());
+    }
+
+    /**
+     * Crea un analizador de los tokens {@code [desde, hasta)} de un {@link BufferTokens}, como si fueran toda la
+     * entrada; así varias expresiones del mismo buffer se pueden analizar por separado (ver {@link AnalizadorLotes}).
+     */
+    public AnalizadorSintactico(BufferTokens buffer, int desde, int hasta) {
+        reiniciar(buffer, desde, hasta);
+    }
+
+    /** Crea un analizador sin tokens; se le indican con {@code reiniciar} antes de cada análisis. */
+    public AnalizadorSintactico() {
+    }
+
+    /**
+     * El analizador reutilizable del hilo actual. Conviene cuando se compilan muchas expresiones seguidas: el
+     * árbol abstracto, la NPI, los triplos, los errores y las pilas del análisis se vacían y se vuelven a llenar
+     * en el mismo almacenamiento, así que en régimen estable {@link #analizarPlano()} casi no crea objetos.
+     * Lo que devuelven sus métodos (el árbol, las vistas de la NPI, de los triplos y de los errores) cambia
+     * con el siguiente análisis; si hay que conservarlo, se copia.
+     */
+    public static AnalizadorSintactico delHilo() {
+        return DEL_HILO.get();
+    }
+
+    /** Prepara el analizador para analizar otra lista de tokens. */
+    public void reiniciar(List<Token> tokens) {
+        usarFuente(tokens, null, 0, 0);
+    }
+
+    /** Prepara el analizador para analizar todos los tokens de un {@link BufferTokens}. */
+    public void reiniciar(BufferTokens buffer) {
+        reiniciar(buffer, 0, buffer.tamano());
+    }
+
+    /** Prepara el analizador para analizar los tokens {@code [desde, hasta)} de un {@link BufferTokens}. */
+    public void reiniciar(BufferTokens buffer, int desde, int hasta) {
+        Objects.checkFromToIndex(desde, hasta, buffer.tamano());
+        usarFuente(null, buffer, desde, hasta);
+    }
+
+    private void usarFuente(List<Token> tokens, BufferTokens buffer, int desde, int hasta) {
         this.tokens = tokens;
-        this.erroresSintacticos = new ArrayList<>();
+        this.flujo = null;
+        this.fuente = null;
+        this.buffer = buffer;
+        this.desde = desde;
+        this.hasta = hasta;
+        this.tokenActual = null;
+        this.tokenAnterior = null;
+    }
+
+    /**
+     * Activa o desactiva el análisis sin recursión. Con él, las expresiones se analizan con una pila explícita
+     * en lugar de la pila de llamadas, de modo que la longitud de las cadenas de operadores y la profundidad de
+     * los paréntesis solo están limitadas por la memoria. El árbol, los errores, la NPI y los triplos son los
+     * mismos en ambos modos.
+     */
+    public void setIterativo(boolean iterativo) {
+        this.iterativo = iterativo;
     }
 
+    /**
+     * Analiza la expresión y devuelve su árbol de derivación. Un error no detiene el análisis: se recupera en
+     * modo pánico, descartando tokens hasta uno de sincronización (un operador, ')', ';', una palabra reservada
+     * o el fin de la entrada), así que todos los errores se reportan en una sola pasada y cada token se lee una
+     * sola vez. En ese caso el árbol es parcial: cada operando faltante es un nodo {@link #OPERANDO_FALTANTE},
+     * y la NPI y los triplos quedan vacíos.
+     * @return El árbol, o null si no había tokens.
+     */
     public Node analizar() {
-        indice = 0;
+        construirNodos = true;
+        return ejecutarAnalisis();
+    }
+
+    /**
+     * Analiza la expresión sin armar el árbol de derivación: solo el árbol abstracto (ver {@link ArbolPlano}),
+     * la NPI y los triplos. Siempre usa la pila explícita, como con {@link #setIterativo(boolean)}.
+     * @return El árbol abstracto; si hubo errores, el árbol parcial (ver {@link #analizar()}).
+     */
+    public ArbolPlano analizarPlano() {
+        construirNodos = false;
+        ejecutarAnalisis();
+        return arbol;
+    }
+
+    /** El árbol abstracto del último análisis; si hubo errores, el árbol parcial. */
+    public ArbolPlano getArbol() {
+        return arbol;
+    }
+
+    private Node ejecutarAnalisis() {
         error = false;
-        erroresSintacticos.clear();
+        indiceToken = -1;
+        indiceUltimoError = -1;
+        diagnosticos.limpiar();
         polacaInversa.clear();
-        triplos.clear();
+        limpiarTriplos();
+        operandos.clear();
+        tareasApiladas = 0;
+        arbol = arbolReutilizable;
+        arbol.limpiar();
+
+        if (buffer != null) {
+            posicion = desde - 1;
+        } else if (tokens != null) {
+            fuente = tokens.iterator();
+        } else if (flujo == null) {
+            throw new IllegalStateException("No hay tokens que analizar; se indican con reiniciar(...).");
+        } else if (fuente == null) {
+            fuente = flujo;
+        } else {
+            throw new IllegalStateException("El flujo de tokens ya fue consumido por un análisis anterior.");
+        }
+        tokenActual = null;
+        leerSiguiente();
 
-        if (tokens.isEmpty()) {
-            reportarErrorBase("No hay tokens para analizar. La expresión está vacía.");
+        if (codigoActual == Escaner.FIN) {
+            reportarErrorBase(Diagnosticos.SIN_TOKENS);
+            arbol = null;
             return null;
         }
 
-        Node raiz = E();
+        boolean sinRecursion = iterativo || !construirNodos;
+        Node raiz = sinRecursion ? analizarSinRecursion() : E();
 
-        if (!this.error && indice < tokens.size()) {
-            Token tokenSobrante = tokens.get(indice);
-            reportarErrorConToken("Caracteres extra o token inesperado después de una expresión válida", tokenSobrante);
+        // Un token que no puede continuar la expresión completa (por ejemplo un ')' de más) se reporta y se
+        // descarta hasta el siguiente operador; la expresión sigue desde ahí, colgando de la raíz
+        while (codigoActual != Escaner.FIN) {
+            reportarErrorConToken(Diagnosticos.TOKEN_EXTRA, actual());
+            while (codigoActual != Escaner.FIN && !esOperadorBinario(codigoActual)) {
+                avanzar();
+            }
+            if (codigoActual == Escaner.FIN) {
+                break;
+            }
+            if (sinRecursion) {
+                apilarTarea(TAREA_EP, raiz);
+                apilarTarea(TAREA_TP, raiz);
+                ejecutarTareas();
+            } else {
+                raiz.agregarHijo(Tp());
+                raiz.agregarHijo(Ep());
+            }
         }
 
-        if (!this.error && raiz != null) {
-            generarCodigoIntermedio();
+        if (this.error) {
+            polacaInversa.clear();
+            limpiarTriplos();
         }
 
-        return !this.error ? raiz : null;
+        return raiz;
     }
 
     public List<String> getErroresSintacticos() {
-        return erroresSintacticos;
+        return diagnosticos.getMensajes();
     }
 
+    /** Los errores sintácticos del último análisis, sin formatear. */
+    public Diagnosticos getDiagnosticos() {
+        return diagnosticos;
+    }
+
+    /** Vista de solo lectura de la NPI del último análisis. */
     public List<String> getPolacaInversa() {
-        return new ArrayList<>(polacaInversa);
+        return vistaPolacaInversa;
     }
 
+    /** Vista de solo lectura de los triplos del último análisis; cada acceso crea el {@link Triplo}. */
     public List<Triplo> getTriplos() {
-        return new ArrayList<>(triplos);
+        return vistaTriplos;
+    }
+
+    /**
+     * Compila la NPI del último análisis para evaluarla muchas veces (ver {@link ProgramaNPI}). El programa no
+     * depende del analizador, así que sigue siendo válido después de reutilizarlo.
+     * @throws IllegalStateException Si no hay NPI, por ejemplo porque el análisis tuvo errores.
+     */
+    public ProgramaNPI compilarNPI() {
+        return ProgramaNPI.compilar(polacaInversa);
     }
 
+    /**
+     * Compila la NPI del último análisis a una clase de la JVM (ver {@link CompiladorJVM}), para las expresiones que
+     * se evalúan tantas veces que conviene que HotSpot las compile.
+     * @throws IllegalStateException Si no hay NPI.
+     */
+    public ExpresionEvaluable compilarJVM() {
+        return CompiladorJVM.compilar(compilarNPI());
+    }
+
+    /**
+     * Evalúa la NPI del último análisis con los valores dados. Para evaluar la misma expresión con muchos valores
+     * conviene {@link #compilarNPI()}.
+     */
     public int ejecutarNPI(Map<String, Integer> valores) {
         if (polacaInversa.isEmpty()) {
             throw new IllegalStateException("La notación polaca inversa aún no ha sido generada.");
@@ -125,150 +390,350 @@ public class AnalizadorSintactico {
         return pila.pop();
     }
 
-    private void generarCodigoIntermedio() {
-        List<String> postfix = convertirTokensAPostfijo();
-        polacaInversa.clear();
-        polacaInversa.addAll(postfix);
-        triplos.clear();
-        generarTriplosDesdePostfijo(postfix);
-    }
-
-    private List<String> convertirTokensAPostfijo() {
-        List<String> salida = new ArrayList<>();
-        Deque<String> operadores = new ArrayDeque<>();
-
-        for (Token token : tokens) {
-            String lexema = token.getLexema();
-            String tipo = token.getTipo();
-
-            if (tipo != null && (tipo.equals("CINT") || tipo.equals("ID"))) {
-                salida.add(lexema);
-            } else if ("(".equals(lexema)) {
-                operadores.push(lexema);
-            } else if (")".equals(lexema)) {
-                while (!operadores.isEmpty() && !operadores.peek().equals("(")) {
-                    salida.add(operadores.pop());
-                }
-                operadores.pop(); // Sacar el '('
-            } else if (esOperador(lexema)) {
-                while (!operadores.isEmpty() && esOperador(operadores.peek())
-                        && precedencia(operadores.peek()) >= precedencia(lexema)) {
-                    salida.add(operadores.pop());
-                }
-                operadores.push(lexema);
-            }
-        }
+    // Acciones semánticas: la NPI, los triplos y el árbol abstracto se emiten a medida que se reducen las
+    // producciones. F -> id | num emite el operando; E' y T' emiten su operador al terminar su operando derecho,
+    // que es justo el orden posfijo (los operadores de una cadena quedan asociados a la izquierda).
+    private void emitirOperando(int codigo, String lexema) {
+        polacaInversa.add(lexema);
+        operandos.push(lexema);
+        arbol.agregarOperando((codigo == Escaner.ID) ? ArbolPlano.IDENTIFICADOR : ArbolPlano.NUMERO, lexema);
+    }
 
-        while (!operadores.isEmpty()) {
-            salida.add(operadores.pop());
+    private void emitirOperador(int tipo) {
+        String operador = ArbolPlano.simbolo(tipo);
+        arbol.agregarOperador(tipo);
+        polacaInversa.add(operador);
+        String operandoDerecho = operandos.pop();
+        String operandoIzquierdo = operandos.pop();
+        int indice = cantidadTriplos++;
+        if (indice == operadoresTriplo.length) {
+            int capacidad = indice * 2;
+            operadoresTriplo = Arrays.copyOf(operadoresTriplo, capacidad);
+            argumentos1 = Arrays.copyOf(argumentos1, capacidad);
+            argumentos2 = Arrays.copyOf(argumentos2, capacidad);
         }
+        operadoresTriplo[indice] = tipo;
+        argumentos1[indice] = operandoIzquierdo;
+        argumentos2[indice] = operandoDerecho;
+        operandos.push(temporal(indice));
+    }
 
-        return salida;
+    // El nombre del resultado del triplo i
+    private String temporal(int indice) {
+        if (indice >= temporales.length) {
+            temporales = Arrays.copyOf(temporales, Math.max(indice + 1, temporales.length * 2));
+        }
+        String temporal = temporales[indice];
+        if (temporal == null) {
+            temporal = "t" + (indice + 1);
+            temporales[indice] = temporal;
+        }
+        return temporal;
     }
 
-    private void generarTriplosDesdePostfijo(List<String> postfix) {
-        Deque<String> pila = new ArrayDeque<>();
-        int contadorTemporales = 1;
+    private void limpiarTriplos() {
+        Arrays.fill(argumentos1, 0, cantidadTriplos, null);
+        Arrays.fill(argumentos2, 0, cantidadTriplos, null);
+        cantidadTriplos = 0;
+    }
 
-        for (String token : postfix) {
-            if (esOperador(token)) {
-                String operandoDerecho = pila.pop();
-                String operandoIzquierdo = pila.pop();
-                String temporal = "t" + contadorTemporales++;
-                triplos.add(new Triplo(token, operandoIzquierdo, operandoDerecho, temporal));
-                pila.push(temporal);
-            } else {
-                pila.push(token);
-            }
+    // El tipo de nodo de ArbolPlano que corresponde a un código de operador
+    private static int tipoOperador(int codigo) {
+        if (codigo == MAS) {
+            return ArbolPlano.SUMA;
+        }
+        if (codigo == MENOS) {
+            return ArbolPlano.RESTA;
         }
+        return (codigo == MUL) ? ArbolPlano.MULTIPLICACION : ArbolPlano.DIVISION;
     }
 
     private boolean esOperador(String lexema) {
         return "+".equals(lexema) || "-".equals(lexema) || "*".equals(lexema) || "/".equals(lexema);
     }
 
-    private int precedencia(String operador) {
-        switch (operador) {
-            case "*":
-            case "/":
-                return 2;
-            case "+":
-            case "-":
-                return 1;
-            default:
-                return 0;
+    private Token actual() {
+        if (buffer != null) {
+            return (posicion < hasta) ? buffer.token(posicion) : null;
         }
+        return tokenActual;
     }
 
-    private Token actual() {
-        return (indice < tokens.size()) ? tokens.get(indice) : null;
+    private Token anterior() {
+        if (buffer != null) {
+            return (posicion > desde) ? buffer.token(posicion - 1) : null;
+        }
+        return tokenAnterior;
     }
 
-    private Token anterior() {
-        return (indice > 0 && (indice - 1) < tokens.size()) ? tokens.get(indice - 1) : null;
+    private String lexemaActual() {
+        if (lexemaActual == null) {
+            lexemaActual = (buffer != null) ? lexemaDelBuffer(posicion) : tokenActual.getLexema();
+        }
+        return lexemaActual;
     }
 
-    private void reportarErrorConToken(String mensajeBase, Token tokenContexto) {
-        int lineaError = (tokenContexto != null) ? tokenContexto.getLinea() : 1;
-        String infoContextoAdicional = (tokenContexto != null) ? ". Se encontró '" + tokenContexto.getLexema() + "'" : ". Expresión finalizada inesperadamente.";
-        String mensajeCompleto = "Error sintáctico en línea " + lineaError + ": " + mensajeBase + infoContextoAdicional;
-        if (!erroresSintacticos.contains(mensajeCompleto)) {
-            erroresSintacticos.add(mensajeCompleto);
+    // Los tipos con un único lexema usan la instancia compartida; los demás (ID, CINT) se buscan por rango de
+    // caracteres en el pool propio. El pool se descarta al crecer demasiado, para no acumular todas las
+    // constantes que pasan por un analizador reutilizado.
+    private String lexemaDelBuffer(int indice) {
+        String canonico = Escaner.lexemaCanonico(buffer.tipo(indice));
+        if (canonico != null) {
+            return canonico;
         }
+        if (lexemas == null || lexemas.tamano() > LIMITE_LEXEMAS) {
+            lexemas = new PoolLexemas();
+            cacheLexemas = lexemas.nuevaCache();
+        }
+        return cacheLexemas.lexema(cacheLexemas.internar(buffer.getFuente(), buffer.inicio(indice), buffer.longitud(indice)));
+    }
+
+    private boolean esOperadorBinario(int codigo) {
+        return codigo == MAS || codigo == MENOS || codigo == MUL || codigo == DIV;
+    }
+
+    private boolean esInicioDeOperando(int codigo) {
+        return codigo == Escaner.ID || codigo == Escaner.CINT || codigo == PAREN;
+    }
+
+    // Consume el token actual y lee el siguiente de la fuente
+    private void avanzar() {
+        leerSiguiente();
+    }
+
+    private void leerSiguiente() {
+        lexemaActual = null;
+        indiceToken++;
+        if (buffer != null) {
+            posicion++;
+            codigoActual = (posicion < hasta) ? buffer.tipo(posicion) : Escaner.FIN;
+            return;
+        }
+        tokenAnterior = tokenActual;
+        tokenActual = fuente.hasNext() ? fuente.next() : null;
+        codigoActual = (tokenActual != null) ? Escaner.codigo(tokenActual.getTipo()) : Escaner.FIN;
+    }
+
+    // Reporta un error sobre el token encontrado, o al final de la entrada si no hay
+    private void reportarErrorConToken(int codigo, Token tokenContexto) {
+        int lineaError = (tokenContexto != null) ? tokenContexto.getLinea() : 1;
+        reportar(codigo, tokenContexto, lineaError, (tokenContexto != null) ? tokenContexto.getLexema() : null);
+    }
+
+    // Reporta un error a continuación del token anterior
+    private void reportarErrorBase(int codigo) {
+        Token anterior = anterior();
+        Token actual = actual();
+        int lineaError = (anterior != null) ? anterior.getLinea() : (actual != null ? actual.getLinea() : 1);
+        reportar(codigo, actual, lineaError, (anterior != null) ? anterior.getLexema() : null);
+    }
+
+    private void reportar(int codigo, Token ubicacion, int linea, String argumento) {
         this.error = true;
+        if (indiceToken == indiceUltimoError) {
+            return; // Un error en cascada del anterior, sobre el mismo token
+        }
+        indiceUltimoError = indiceToken;
+        if (ubicacion != null) {
+            diagnosticos.agregar(codigo, ubicacion.getInicio(), ubicacion.getLexema().length(), linea,
+                    ubicacion.getColumna(), argumento);
+        } else {
+            diagnosticos.agregar(codigo, -1, 0, linea, -1, argumento);
+        }
+    }
+
+    // Recuperación en modo pánico cuando falta un operando: reporta el error y descarta los tokens que no pueden
+    // empezar ni continuar la expresión. Devuelve true si después de ellos empieza un operando; si no, el que
+    // llama pone en su lugar un operando faltante y la expresión sigue con el token de sincronización.
+    private boolean recuperarOperando() {
+        if (codigoActual == Escaner.FIN) {
+            reportarErrorBase(Diagnosticos.OPERANDO_ESPERADO);
+        } else {
+            reportarErrorConToken(Diagnosticos.OPERANDO_O_PARENTESIS, actual());
+        }
+        while (!esInicioDeOperando(codigoActual) && !SINCRONIZACION[codigoActual]) {
+            avanzar();
+        }
+        return esInicioDeOperando(codigoActual);
     }
-    
-    private void reportarErrorBase(String mensajeBase) {
-        int lineaError = (anterior() != null) ? anterior().getLinea() : (actual() != null ? actual().getLinea() : 1);
-        String infoContexto = (anterior() != null) ? " después de '" + anterior().getLexema() + "'" : "";
-        if (actual() == null && indice >= tokens.size()){ 
-             infoContexto += ". Se esperaba continuación pero finalizó la expresión.";
+
+    // Recuperación cuando falta el ')' de F -> (E): descarta los tokens hasta ')', que se consume, o hasta el
+    // fin de la expresión, donde se da el paréntesis por insertado
+    private void recuperarCierre() {
+        reportarErrorConToken(Diagnosticos.PARENTESIS_CIERRE, actual());
+        while (codigoActual != TESIS && !FIN_DE_EXPRESION[codigoActual]) {
+            avanzar();
         }
-        String mensajeCompleto = "Error sintáctico en línea " + lineaError + ": " + mensajeBase + infoContexto;
-        if (!erroresSintacticos.contains(mensajeCompleto)) {
-            erroresSintacticos.add(mensajeCompleto);
+        if (codigoActual == TESIS) {
+            avanzar();
         }
-        this.error = true;
+    }
+
+    private void emitirOperandoFaltante() {
+        operandos.push(OPERANDO_FALTANTE);
+        arbol.agregarOperando(ArbolPlano.ERROR, OPERANDO_FALTANTE);
+    }
+
+    /**
+     * Mismo descenso predictivo que {@link #E()}, con las llamadas pendientes guardadas en una pila explícita.
+     * Cada nodo se crea y se cuelga de su padre al empezar su producción; como las producciones se recorren en
+     * el mismo orden que en el modo recursivo, los hijos quedan en el mismo orden. Las producciones E' y T'
+     * terminan en sí mismas, así que la pila no crece con las cadenas de operadores, solo con los paréntesis.
+     * Sin {@link #construirNodos} no se crea ningún nodo y el resultado es null.
+     */
+    private Node analizarSinRecursion() {
+        Node contenedor = construirNodos ? new Node("") : null;
+        apilarTarea(TAREA_E, contenedor);
+        ejecutarTareas();
+        return construirNodos ? contenedor.getHijos().get(0) : null;
+    }
+
+    private void apilarTarea(int tarea, Node padre) {
+        if (tareasApiladas == tareasPendientes.length) {
+            tareasPendientes = Arrays.copyOf(tareasPendientes, tareasApiladas * 2);
+            padresPendientes = Arrays.copyOf(padresPendientes, tareasApiladas * 2);
+        }
+        tareasPendientes[tareasApiladas] = tarea;
+        padresPendientes[tareasApiladas++] = padre;
+    }
+
+    // Ejecuta las tareas apiladas y las que generan, hasta vaciar la pila; la pila se conserva para el siguiente
+    // análisis
+    private void ejecutarTareas() {
+        int[] tareas = tareasPendientes;
+        Node[] padres = padresPendientes;
+        int tope = tareasApiladas;
+
+        while (tope > 0) {
+            tope--;
+            int tarea = tareas[tope];
+            Node padre = padres[tope];
+            padres[tope] = null;
+            if (tope + 3 > tareas.length) { // Cada tarea agrega a lo sumo tres
+                tareas = tareasPendientes = Arrays.copyOf(tareas, tareas.length * 2);
+                padres = padresPendientes = Arrays.copyOf(padres, padres.length * 2);
+            }
+            if (tarea >= TAREA_OPERADOR) {
+                emitirOperador(tarea - TAREA_OPERADOR);
+                continue;
+            }
+            switch (tarea) {
+                case TAREA_E:
+                case TAREA_T: {
+                    // E -> T E'    T -> F T'
+                    Node nodo = null;
+                    if (construirNodos) {
+                        nodo = new Node((tarea == TAREA_E) ? "E" : "T");
+                        padre.agregarHijo(nodo);
+                    }
+                    tareas[tope] = (tarea == TAREA_E) ? TAREA_EP : TAREA_TP;
+                    padres[tope++] = nodo;
+                    tareas[tope] = (tarea == TAREA_E) ? TAREA_T : TAREA_F;
+                    padres[tope++] = nodo;
+                    break;
+                }
+                case TAREA_EP:
+                case TAREA_TP: {
+                    // E' -> + T E' | - T E' | ε    T' -> * F T' | / F T' | ε
+                    boolean suma = tarea == TAREA_EP;
+                    if (suma ? (codigoActual == MAS || codigoActual == MENOS)
+                             : (codigoActual == MUL || codigoActual == DIV)) {
+                        Node nodo = null;
+                        if (construirNodos) {
+                            nodo = new Node(suma ? "E'" : "T'");
+                            nodo.agregarHijo(new Node(lexemaActual()));
+                        }
+                        int tipo = tipoOperador(codigoActual);
+                        avanzar();
+                        if (!esInicioDeOperando(codigoActual)) {
+                            // El operando que falta lo recupera F; este error ya cubre el suyo
+                            reportarErrorBase(Diagnosticos.OPERANDO_TRAS_OPERADOR);
+                        }
+                        if (construirNodos) {
+                            padre.agregarHijo(nodo);
+                        }
+                        tareas[tope] = tarea;
+                        padres[tope++] = nodo;
+                        tareas[tope] = TAREA_OPERADOR + tipo;
+                        padres[tope++] = null;
+                        tareas[tope] = suma ? TAREA_T : TAREA_F;
+                        padres[tope++] = nodo;
+                    } else if (construirNodos) {
+                        padre.agregarHijo(new Node("ε"));
+                    }
+                    break;
+                }
+                case TAREA_F: {
+                    // F -> (E) | id | num
+                    if (!esInicioDeOperando(codigoActual) && !recuperarOperando()) {
+                        if (construirNodos) {
+                            Node nodoF = new Node("F");
+                            nodoF.agregarHijo(new Node(OPERANDO_FALTANTE));
+                            padre.agregarHijo(nodoF);
+                        }
+                        emitirOperandoFaltante();
+                        break;
+                    }
+                    Node nodoF = construirNodos ? new Node("F") : null;
+                    if (codigoActual == PAREN) {
+                        if (construirNodos) {
+                            nodoF.agregarHijo(new Node("("));
+                        }
+                        avanzar();
+                        tareas[tope] = TAREA_CIERRE;
+                        padres[tope++] = nodoF;
+                        tareas[tope] = TAREA_E;
+                        padres[tope++] = nodoF;
+                    } else if (codigoActual == Escaner.ID || codigoActual == Escaner.CINT) {
+                        if (construirNodos) {
+                            nodoF.agregarHijo(new Node(lexemaActual()));
+                        }
+                        emitirOperando(codigoActual, lexemaActual());
+                        avanzar();
+                    }
+                    if (construirNodos) {
+                        padre.agregarHijo(nodoF);
+                    }
+                    break;
+                }
+                case TAREA_CIERRE: {
+                    if (codigoActual != TESIS) {
+                        recuperarCierre();
+                        break;
+                    }
+                    if (construirNodos) {
+                        padre.agregarHijo(new Node(")"));
+                    }
+                    avanzar();
+                    break;
+                }
+            }
+        }
+        tareasApiladas = 0;
     }
 
     // E -> T E'
     private Node E() {
-        if (this.error) return null;
         Node nodoE = new Node("E");
-        Node hijoT = T();
-        if (this.error) return null;
-        nodoE.agregarHijo(hijoT);
-        Node hijoEp = Ep();
-        if (this.error) return null;
-        if (hijoEp != null) {
-            nodoE.agregarHijo(hijoEp);
-        }
+        nodoE.agregarHijo(T());
+        nodoE.agregarHijo(Ep());
         return nodoE;
     }
 
     // E' -> + T E' | - T E' | ε
     private Node Ep() {
-        if (this.error) return null;
-        Token tokenActual = actual();
-        if (tokenActual != null && (tokenActual.getLexema().equals("+") || tokenActual.getLexema().equals("-"))) {
+        if (codigoActual == MAS || codigoActual == MENOS) {
+            String operador = lexemaActual();
+            int tipo = tipoOperador(codigoActual);
             Node nodoEp = new Node("E'");
-            nodoEp.agregarHijo(new Node(tokenActual.getLexema()));
-            indice++;
-            Token siguienteToken = actual();
-            if (siguienteToken == null || (!siguienteToken.getTipo().equals("ID") && !siguienteToken.getTipo().equals("CINT") && !siguienteToken.getLexema().equals("("))) {
-                reportarErrorBase("Operando esperado después de '" + tokenActual.getLexema() + "'");
-                return null;
-            }
-            Node hijoT = T();
-            if (this.error) return null;
-            nodoEp.agregarHijo(hijoT);
-            Node hijoEp2 = Ep();
-            if (this.error) return null;
-            if (hijoEp2.getValor().equals("ε")) {
-                nodoEp.agregarHijo(hijoEp2);
-            } else {
-                nodoEp.agregarHijo(hijoEp2);
+            nodoEp.agregarHijo(new Node(operador));
+            avanzar();
+            if (!esInicioDeOperando(codigoActual)) {
+                reportarErrorBase(Diagnosticos.OPERANDO_TRAS_OPERADOR);
             }
+            nodoEp.agregarHijo(T());
+            emitirOperador(tipo);
+            nodoEp.agregarHijo(Ep());
             return nodoEp;
         } else {
             return new Node("ε");
@@ -277,42 +742,26 @@ public class AnalizadorSintactico {
 
     // T -> F T'
     private Node T() {
-        if (this.error) return null;
         Node nodoT = new Node("T");
-        Node hijoF = F();
-        if (this.error) return null;
-        nodoT.agregarHijo(hijoF);
-        Node hijoTp = Tp();
-        if (this.error) return null;
-        if (hijoTp != null) {
-            nodoT.agregarHijo(hijoTp);
-        }
+        nodoT.agregarHijo(F());
+        nodoT.agregarHijo(Tp());
         return nodoT;
     }
 
     // T' -> * F T' | / F T' | ε
     private Node Tp() {
-        if (this.error) return null;
-        Token tokenActual = actual();
-        if (tokenActual != null && (tokenActual.getLexema().equals("*") || tokenActual.getLexema().equals("/"))) {
+        if (codigoActual == MUL || codigoActual == DIV) {
+            String operador = lexemaActual();
+            int tipo = tipoOperador(codigoActual);
             Node nodoTp = new Node("T'");
-            nodoTp.agregarHijo(new Node(tokenActual.getLexema()));
-            indice++;
-            Token siguienteToken = actual();
-            if (siguienteToken == null || (!siguienteToken.getTipo().equals("ID") && !siguienteToken.getTipo().equals("CINT") && !siguienteToken.getLexema().equals("("))) {
-                reportarErrorBase("Operando esperado después de '" + tokenActual.getLexema() + "'");
-                return null;
-            }
-            Node hijoF = F();
-            if (this.error) return null;
-            nodoTp.agregarHijo(hijoF);
-            Node hijoTp2 = Tp();
-            if (this.error) return null;
-            if (hijoTp2.getValor().equals("ε")) {
-                nodoTp.agregarHijo(hijoTp2);
-            } else {
-                nodoTp.agregarHijo(hijoTp2);
+            nodoTp.agregarHijo(new Node(operador));
+            avanzar();
+            if (!esInicioDeOperando(codigoActual)) {
+                reportarErrorBase(Diagnosticos.OPERANDO_TRAS_OPERADOR);
             }
+            nodoTp.agregarHijo(F());
+            emitirOperador(tipo);
+            nodoTp.agregarHijo(Tp());
             return nodoTp;
         } else {
             return new Node("ε");
@@ -321,36 +770,29 @@ public class AnalizadorSintactico {
 
     // F -> (E) | id | num
     private Node F() {
-        if (this.error) return null;
-        Token tokenActual = actual();
         Node nodoF = new Node("F");
-        if (tokenActual == null) { 
-            reportarErrorBase("Se esperaba un operando (ID, número o expresión entre paréntesis)");
-            return null;
+        if (!esInicioDeOperando(codigoActual) && !recuperarOperando()) {
+            nodoF.agregarHijo(new Node(OPERANDO_FALTANTE));
+            emitirOperandoFaltante();
+            return nodoF;
         }
 
-        if (tokenActual.getLexema().equals("(")) { 
+        if (codigoActual == PAREN) { 
             nodoF.agregarHijo(new Node("("));
-            indice++;
-            Node hijoE = E();
-            if (this.error) return null;
-            nodoF.agregarHijo(hijoE);
+            avanzar();
+            nodoF.agregarHijo(E());
             
-            Token tokenCierre = actual();
-            if (tokenCierre != null && tokenCierre.getLexema().equals(")")) {
+            if (codigoActual == TESIS) {
                 nodoF.agregarHijo(new Node(")"));
-                indice++;
+                avanzar();
             } else {
-                reportarErrorConToken("Se esperaba un paréntesis de cierre ')'", tokenCierre);
-                return null;
+                recuperarCierre();
             }
-        } else if (tokenActual.getTipo().equals("ID") || tokenActual.getTipo().equals("CINT")) { 
-            nodoF.agregarHijo(new Node(tokenActual.getLexema()));
-            indice++;
-        } else {
-            reportarErrorConToken("Se esperaba un operando (ID, número o '(')", tokenActual);
-            return null;
+        } else { 
+            nodoF.agregarHijo(new Node(lexemaActual()));
+            emitirOperando(codigoActual, lexemaActual());
+            avanzar();
         }
         return nodoF;
     }
-}
\ No newline at end of file
+}
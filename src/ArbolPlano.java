@@ -0,0 +1,121 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Árbol de sintaxis abstracta de una expresión, guardado en arreglos de enteros en lugar de objetos.
+ * <p>
+ * Solo tiene los nodos que importan después del análisis: un operador con sus dos operandos, o una hoja con
+ * un identificador o un número; los no terminales del árbol de derivación (E, T, E', T', F), los paréntesis
+ * y las producciones vacías no aparecen. Cada nodo es una posición en cuatro arreglos paralelos: su tipo, su
+ * operando (la posición del lexema en la lista de operandos, solo en las hojas), su primer hijo y su siguiente
+ * hermano. Los operadores se muestran con constantes compartidas, sin un texto por nodo.
+ * <p>
+ * El árbol se arma en orden posfijo, igual que una máquina de pila: cada operando se apila y cada operador
+ * toma los dos últimos nodos como hijos.
+ */
+public class ArbolPlano {
+    /** Indica que un nodo no tiene primer hijo o siguiente hermano. */
+    public static final int NINGUNO = -1;
+
+    // Tipos de nodo
+    public static final int SUMA = 0;
+    public static final int RESTA = 1;
+    public static final int MULTIPLICACION = 2;
+    public static final int DIVISION = 3;
+    public static final int IDENTIFICADOR = 4;
+    public static final int NUMERO = 5;
+    /** Hoja que ocupa el lugar de un operando faltante en el árbol parcial de una expresión con errores. */
+    public static final int ERROR = 6;
+
+    private static final String[] OPERADORES = {"+", "-", "*", "/"};
+
+    private int[] tipos = new int[16];
+    private int[] operandos = new int[16];
+    private int[] primerHijo = new int[16];
+    private int[] siguienteHermano = new int[16];
+    private int tamano = 0;
+    private final List<String> lexemas = new ArrayList<>();
+
+    // Nodos ya armados que todavía esperan a su operador
+    private int[] pila = new int[16];
+    private int altura = 0;
+
+    /** El texto de un operador, compartido por todos los nodos de ese tipo. */
+    public static String simbolo(int tipo) {
+        return OPERADORES[tipo];
+    }
+
+    /** La cantidad de nodos. */
+    public int tamano() {
+        return tamano;
+    }
+
+    /** La raíz: el último nodo armado que no tiene padre, o {@link #NINGUNO} si el árbol está vacío o incompleto. */
+    public int getRaiz() {
+        return (altura == 1) ? pila[0] : NINGUNO;
+    }
+
+    public int tipo(int nodo) {
+        return tipos[nodo];
+    }
+
+    /** El operador de un nodo interno o el lexema de una hoja. */
+    public String valor(int nodo) {
+        int tipo = tipos[nodo];
+        return (tipo >= IDENTIFICADOR) ? lexemas.get(operandos[nodo]) : OPERADORES[tipo];
+    }
+
+    public int primerHijo(int nodo) {
+        return primerHijo[nodo];
+    }
+
+    public int siguienteHermano(int nodo) {
+        return siguienteHermano[nodo];
+    }
+
+    /** Agrega una hoja y la apila. */
+    void agregarOperando(int tipo, String lexema) {
+        int nodo = nuevoNodo(tipo, lexemas.size());
+        lexemas.add(lexema);
+        apilar(nodo);
+    }
+
+    /** Agrega un operador con los dos últimos nodos apilados como hijos, y lo apila en su lugar. */
+    void agregarOperador(int tipo) {
+        int derecho = pila[--altura];
+        int izquierdo = pila[--altura];
+        int nodo = nuevoNodo(tipo, NINGUNO);
+        primerHijo[nodo] = izquierdo;
+        siguienteHermano[izquierdo] = derecho;
+        apilar(nodo);
+    }
+
+    void limpiar() {
+        tamano = 0;
+        altura = 0;
+        lexemas.clear();
+    }
+
+    private int nuevoNodo(int tipo, int operando) {
+        if (tamano == tipos.length) {
+            int capacidad = tamano * 2;
+            tipos = Arrays.copyOf(tipos, capacidad);
+            operandos = Arrays.copyOf(operandos, capacidad);
+            primerHijo = Arrays.copyOf(primerHijo, capacidad);
+            siguienteHermano = Arrays.copyOf(siguienteHermano, capacidad);
+        }
+        tipos[tamano] = tipo;
+        operandos[tamano] = operando;
+        primerHijo[tamano] = NINGUNO;
+        siguienteHermano[tamano] = NINGUNO;
+        return tamano++;
+    }
+
+    private void apilar(int nodo) {
+        if (altura == pila.length) {
+            pila = Arrays.copyOf(pila, altura * 2);
+        }
+        pila[altura++] = nodo;
+    }
+}
@@ -0,0 +1,309 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Tabla de símbolos guardada en formato binario (.tabx), que se abre mapeando el archivo en memoria: las
+ * búsquedas leen directamente del archivo, sin cargarlo ni interpretarlo antes. Al abrirlo solo se comprueba,
+ * en una pasada, que cada posición y cada número del archivo caigan dentro de su sección, para que un archivo
+ * dañado se rechace con una IOException y no con un error al leerlo después.
+ * <p>
+ * Formato, versión 1. Todos los números son enteros de 4 bytes con el byte más significativo primero.
+ * <ul>
+ * <li>Cabecera: la firma "TABX", la versión, la cantidad de entradas, la cantidad de tipos, la capacidad del
+ *     índice, la posición (en bytes) de cada sección (tipos, entradas, índice, arena) y la longitud de la arena
+ *     en caracteres.</li>
+ * <li>Tipos: el inicio y la longitud en la arena de cada tipo de token distinto.</li>
+ * <li>Entradas, en orden de número: el inicio y la longitud del lexema en la arena, el tipo, la referencia y
+ *     el ámbito.</li>
+ * <li>Índice: casillas de direccionamiento abierto con el hash del lexema (el de {@link String#hashCode()}) y
+ *     el número de entrada, o 0 si está libre. Cada lexema aparece una vez, con su entrada del ámbito global
+ *     o, si no la tiene, con la primera.</li>
+ * <li>Arena: los caracteres (UTF-16) de los lexemas y de los tipos.</li>
+ * </ul>
+ */
+public class ArchivoTablaSimbolos {
+    private static final int FIRMA = 0x54414258; // "TABX"
+    private static final int VERSION = 1;
+    private static final int TAMANO_CABECERA = 40;
+    private static final int TAMANO_TIPO = 8;
+    private static final int TAMANO_ENTRADA = 20;
+    private static final int TAMANO_CASILLA = 8;
+
+    private final ByteBuffer datos;
+    private final CharBuffer arena;
+    private final int cantidadEntradas;
+    private final int cantidadTipos;
+    private final int capacidadIndice;
+    private final int corrimiento;
+    private final int inicioTipos;
+    private final int inicioEntradas;
+    private final int inicioIndice;
+
+    private ArchivoTablaSimbolos(ByteBuffer datos) throws IOException {
+        if (datos.capacity() < TAMANO_CABECERA || datos.getInt(0) != FIRMA) {
+            throw new IOException("El archivo no es una tabla de símbolos binaria.");
+        }
+        if (datos.getInt(4) != VERSION) {
+            throw new IOException("Versión de tabla de símbolos binaria no admitida: " + datos.getInt(4));
+        }
+        this.datos = datos;
+        cantidadEntradas = datos.getInt(8);
+        cantidadTipos = datos.getInt(12);
+        capacidadIndice = datos.getInt(16);
+        inicioTipos = datos.getInt(20);
+        inicioEntradas = datos.getInt(24);
+        inicioIndice = datos.getInt(28);
+        int inicioArena = datos.getInt(32);
+        int longitudArena = datos.getInt(36);
+        if (cantidadEntradas < 0 || cantidadTipos < 0 || capacidadIndice < 2 || longitudArena < 0
+                || Integer.bitCount(capacidadIndice) != 1 || inicioTipos < TAMANO_CABECERA
+                || (long) inicioArena + 2L * longitudArena > datos.capacity()
+                || (long) inicioIndice + (long) capacidadIndice * TAMANO_CASILLA > inicioArena
+                || (long) inicioEntradas + (long) cantidadEntradas * TAMANO_ENTRADA > inicioIndice
+                || (long) inicioTipos + (long) cantidadTipos * TAMANO_TIPO > inicioEntradas) {
+            throw new IOException("La tabla de símbolos binaria está dañada.");
+        }
+        corrimiento = 32 - Integer.numberOfTrailingZeros(capacidadIndice);
+        arena = datos.slice(inicioArena, 2 * longitudArena).asCharBuffer();
+        validar();
+    }
+
+    // Comprueba los registros de los tipos y de las entradas y las casillas del índice
+    private void validar() throws IOException {
+        for (int tipo = 0; tipo < cantidadTipos; tipo++) {
+            int posicion = inicioTipos + tipo * TAMANO_TIPO;
+            if (datos.getInt(posicion + 4) != -1) {
+                validarTexto(posicion);
+            }
+        }
+        for (int indice = 0; indice < cantidadEntradas; indice++) {
+            int posicion = inicioEntradas + indice * TAMANO_ENTRADA;
+            validarTexto(posicion);
+            int tipo = datos.getInt(posicion + 8);
+            if (tipo < 0 || tipo >= cantidadTipos) {
+                throw new IOException("La tabla de símbolos binaria está dañada: la entrada " + (indice + 1)
+                        + " tiene un tipo inexistente.");
+            }
+        }
+        for (int casilla = 0; casilla < capacidadIndice; casilla++) {
+            int numero = datos.getInt(inicioIndice + casilla * TAMANO_CASILLA + 4);
+            if (numero < 0 || numero > cantidadEntradas) {
+                throw new IOException("La tabla de símbolos binaria está dañada: el índice apunta a la entrada "
+                        + numero + " de " + cantidadEntradas + ".");
+            }
+        }
+    }
+
+    // El texto cuyo inicio y longitud están en la posición indicada debe caber en la arena
+    private void validarTexto(int posicion) throws IOException {
+        int inicio = datos.getInt(posicion);
+        int longitud = datos.getInt(posicion + 4);
+        if (inicio < 0 || longitud < 0 || (long) inicio + longitud > arena.capacity()) {
+            throw new IOException("La tabla de símbolos binaria está dañada: un texto queda fuera de la arena.");
+        }
+    }
+
+    /**
+     * Abre una tabla de símbolos binaria. El archivo se mapea en memoria y puede cerrarse de inmediato.
+     * @throws IOException Si no se puede leer o no tiene el formato esperado.
+     */
+    public static ArchivoTablaSimbolos abrir(Path ruta) throws IOException {
+        try (FileChannel canal = FileChannel.open(ruta, StandardOpenOption.READ)) {
+            return new ArchivoTablaSimbolos(canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size()));
+        }
+    }
+
+    /**
+     * Escribe las entradas en formato binario, en una sola pasada.
+     * @param ruta El archivo de destino; si existe se reemplaza.
+     * @param entradas Las entradas en orden de número.
+     */
+    public static void escribir(Path ruta, List<EntradaTablaSimbolos> entradas) throws IOException {
+        int cantidad = entradas.size();
+        int capacidad = Integer.highestOneBit(Math.max(2, cantidad) * 2 - 1) * 2; // Ocupado a lo sumo a la mitad
+        int corrimientoIndice = 32 - Integer.numberOfTrailingZeros(capacidad);
+        ByteBuffer registros = ByteBuffer.allocate(cantidad * TAMANO_ENTRADA);
+        ByteBuffer indice = ByteBuffer.allocate(capacidad * TAMANO_CASILLA);
+        StringBuilder caracteres = new StringBuilder();
+        Map<String, Integer> tipos = new HashMap<>();
+        List<String> nombresTipo = new ArrayList<>();
+        Map<String, Integer> indexados = new HashMap<>(); // La casilla de cada lexema en el índice
+
+        for (int i = 0; i < cantidad; i++) {
+            EntradaTablaSimbolos entrada = entradas.get(i);
+            String lexema = entrada.getLexema();
+            Integer tipo = tipos.get(entrada.getToken());
+            if (tipo == null) {
+                tipo = nombresTipo.size();
+                tipos.put(entrada.getToken(), tipo);
+                nombresTipo.add(entrada.getToken());
+            }
+            registros.putInt(caracteres.length()).putInt(lexema.length()).putInt(tipo)
+                     .putInt(entrada.getReferencia()).putInt(entrada.getAmbito());
+            caracteres.append(lexema);
+
+            Integer indexado = indexados.get(lexema);
+            if (indexado == null) {
+                int hash = lexema.hashCode();
+                int casilla = mezclar(hash, corrimientoIndice);
+                while (indice.getInt(casilla * TAMANO_CASILLA + 4) != 0) {
+                    casilla = (casilla + 1) & (capacidad - 1);
+                }
+                indice.putInt(casilla * TAMANO_CASILLA, hash).putInt(casilla * TAMANO_CASILLA + 4, i + 1);
+                indexados.put(lexema, casilla);
+            } else if (entrada.getAmbito() == 0) {
+                // La declaración global prevalece sobre una anterior de un ámbito ya cerrado
+                indice.putInt(indexado * TAMANO_CASILLA + 4, i + 1);
+            }
+        }
+
+        // Los nombres de los tipos van al final de la arena; un tipo nulo se guarda con longitud -1
+        ByteBuffer seccionTipos = ByteBuffer.allocate(nombresTipo.size() * TAMANO_TIPO);
+        for (String nombre : nombresTipo) {
+            seccionTipos.putInt(caracteres.length()).putInt((nombre != null) ? nombre.length() : -1);
+            if (nombre != null) {
+                caracteres.append(nombre);
+            }
+        }
+        ByteBuffer seccionArena = ByteBuffer.allocate(caracteres.length() * 2);
+        seccionArena.asCharBuffer().append(caracteres);
+
+        int inicioTipos = TAMANO_CABECERA;
+        int inicioEntradas = inicioTipos + seccionTipos.capacity();
+        int inicioIndice = inicioEntradas + registros.capacity();
+        int inicioArena = inicioIndice + indice.capacity();
+        ByteBuffer cabecera = ByteBuffer.allocate(TAMANO_CABECERA);
+        cabecera.putInt(FIRMA).putInt(VERSION).putInt(cantidad).putInt(nombresTipo.size()).putInt(capacidad)
+                .putInt(inicioTipos).putInt(inicioEntradas).putInt(inicioIndice).putInt(inicioArena)
+                .putInt(caracteres.length());
+
+        ByteBuffer[] secciones = {cabecera.flip(), seccionTipos.flip(), registros.flip(), indice, seccionArena};
+        try (FileChannel canal = FileChannel.open(ruta, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long pendientes = inicioArena + seccionArena.capacity();
+            while (pendientes > 0) {
+                pendientes -= canal.write(secciones);
+            }
+        }
+    }
+
+    /** La cantidad de entradas. */
+    public int tamano() {
+        return cantidadEntradas;
+    }
+
+    /**
+     * Busca la entrada de un lexema en el ámbito global o, si no la tiene, la primera que se declaró.
+     * El sondeo recorre a lo sumo todas las casillas, así que termina aunque el índice no tenga ninguna libre.
+     * @return Su posición (base 0), o -1 si no está.
+     */
+    public int buscar(CharSequence lexema) {
+        int hash = hash(lexema);
+        int mascara = capacidadIndice - 1;
+        int casilla = mezclar(hash, corrimiento);
+        for (int sondeos = 0; sondeos < capacidadIndice; sondeos++, casilla = (casilla + 1) & mascara) {
+            int posicion = inicioIndice + casilla * TAMANO_CASILLA;
+            int numero = datos.getInt(posicion + 4);
+            if (numero == 0) {
+                return -1;
+            }
+            if (datos.getInt(posicion) == hash && iguales(numero - 1, lexema)) {
+                return numero - 1;
+            }
+        }
+        return -1;
+    }
+
+    public String lexema(int indice) {
+        return texto(registro(indice), registro(indice) + 4);
+    }
+
+    public String tipo(int indice) {
+        int tipo = datos.getInt(registro(indice) + 8);
+        int posicion = inicioTipos + tipo * TAMANO_TIPO;
+        return texto(posicion, posicion + 4);
+    }
+
+    public int referencia(int indice) {
+        return datos.getInt(registro(indice) + 12);
+    }
+
+    public int ambito(int indice) {
+        return datos.getInt(registro(indice) + 16);
+    }
+
+    /**
+     * Vista de solo lectura de las entradas en orden de número. Cada acceso arma la entrada correspondiente.
+     */
+    public List<EntradaTablaSimbolos> getEntradas() {
+        return new AbstractList<EntradaTablaSimbolos>() {
+            @Override
+            public EntradaTablaSimbolos get(int indice) {
+                EntradaTablaSimbolos entrada = new EntradaTablaSimbolos(indice + 1, lexema(indice), tipo(indice), referencia(indice));
+                entrada.setAmbito(ambito(indice));
+                return entrada;
+            }
+
+            @Override
+            public int size() {
+                return cantidadEntradas;
+            }
+        };
+    }
+
+    private int registro(int indice) {
+        Objects.checkIndex(indice, cantidadEntradas);
+        return inicioEntradas + indice * TAMANO_ENTRADA;
+    }
+
+    // Lee de la arena el texto cuyo inicio y longitud están en las posiciones indicadas
+    private String texto(int posicionInicio, int posicionLongitud) {
+        int longitud = datos.getInt(posicionLongitud);
+        if (longitud < 0) {
+            return null;
+        }
+        char[] caracteres = new char[longitud];
+        arena.get(datos.getInt(posicionInicio), caracteres);
+        return new String(caracteres);
+    }
+
+    private boolean iguales(int indice, CharSequence lexema) {
+        int registro = registro(indice);
+        int longitud = datos.getInt(registro + 4);
+        if (longitud != lexema.length()) {
+            return false;
+        }
+        int inicio = datos.getInt(registro);
+        for (int i = 0; i < longitud; i++) {
+            if (arena.get(inicio + i) != lexema.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(CharSequence lexema) {
+        if (lexema instanceof String) {
+            return lexema.hashCode();
+        }
+        int hash = 0;
+        for (int i = 0; i < lexema.length(); i++) {
+            hash = 31 * hash + lexema.charAt(i);
+        }
+        return hash;
+    }
+
+    private static int mezclar(int hash, int corrimiento) {
+        return (hash * 0x9E3779B9) >>> corrimiento;
+    }
+}
@@ -0,0 +1,113 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Secuencia de tokens guardada por columnas: el código de tipo, el desplazamiento en la fuente, la longitud
+ * y la línea de cada token se almacenan en arreglos de enteros. El texto del lexema no se guarda; se lee
+ * de la fuente solo cuando se pide.
+ */
+public class BufferTokens {
+    private final char[] fuente;
+    private int[] tipos;
+    private int[] inicios;
+    private int[] longitudes;
+    private int[] lineas;
+    private int tamano = 0;
+    private IndiceLineas indiceLineas; // Se construye la primera vez que se pide una columna
+
+    /**
+     * @param fuente Los caracteres del código fuente a los que apuntan los desplazamientos.
+     */
+    public BufferTokens(char[] fuente) {
+        this.fuente = fuente;
+        // Estimación inicial: un token cada ocho caracteres, sin reservar de más en entradas grandes
+        int capacidad = Math.max(16, Math.min(fuente.length / 8, 1 << 20));
+        tipos = new int[capacidad];
+        inicios = new int[capacidad];
+        longitudes = new int[capacidad];
+        lineas = new int[capacidad];
+    }
+
+    public void agregar(int tipo, int inicio, int longitud, int linea) {
+        if (tamano == tipos.length) {
+            int capacidad = tamano * 2;
+            tipos = Arrays.copyOf(tipos, capacidad);
+            inicios = Arrays.copyOf(inicios, capacidad);
+            longitudes = Arrays.copyOf(longitudes, capacidad);
+            lineas = Arrays.copyOf(lineas, capacidad);
+        }
+        tipos[tamano] = tipo;
+        inicios[tamano] = inicio;
+        longitudes[tamano] = longitud;
+        lineas[tamano] = linea;
+        tamano++;
+    }
+
+    public int tamano() {
+        return tamano;
+    }
+
+    /** Código de tipo del token {@code i} (ver {@link Escaner#tipo(int)}). */
+    public int tipo(int i) {
+        return tipos[i];
+    }
+
+    public int inicio(int i) {
+        return inicios[i];
+    }
+
+    public int longitud(int i) {
+        return longitudes[i];
+    }
+
+    public int linea(int i) {
+        return lineas[i];
+    }
+
+    /** Columna (base 1) del token {@code i} dentro de su línea. */
+    public int columna(int i) {
+        if (indiceLineas == null) {
+            indiceLineas = new IndiceLineas(fuente, fuente.length);
+        }
+        return indiceLineas.columna(inicios[i]);
+    }
+
+    public char[] getFuente() {
+        return fuente;
+    }
+
+    /**
+     * Obtiene el texto del token {@code i}. Los tipos con un único lexema devuelven siempre la misma instancia.
+     */
+    public String lexema(int i) {
+        String canonico = Escaner.lexemaCanonico(tipos[i]);
+        return (canonico != null) ? canonico : new String(fuente, inicios[i], longitudes[i]);
+    }
+
+    /** Crea el objeto {@link Token} equivalente al token {@code i}. */
+    public Token token(int i) {
+        return new Token(lexema(i), Escaner.tipo(tipos[i]), lineas[i], -1, inicios[i], columna(i));
+    }
+
+    /**
+     * Vista de solo lectura como lista de tokens, para el código que trabaja con {@code List<Token>}.
+     * Cada acceso crea el objeto {@link Token} correspondiente.
+     */
+    public List<Token> comoLista() {
+        return new AbstractList<Token>() {
+            @Override
+            public Token get(int indice) {
+                if (indice < 0 || indice >= tamano) {
+                    throw new IndexOutOfBoundsException("Índice " + indice + " fuera de rango para " + tamano + " tokens");
+                }
+                return token(indice);
+            }
+
+            @Override
+            public int size() {
+                return tamano;
+            }
+        };
+    }
+}
@@ -8,7 +8,8 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -18,8 +19,16 @@ public class CompiladorGUI extends JFrame {
     private final JTextArea salidaArea;
     private final JButton analizarButton;
     private final JButton seleccionarButton;
+    private final JTextField simboloField;
+    private final JButton referenciasButton;
     private final JTree arbolTree;
     private final DefaultTreeModel arbolModel;
+    // Análisis léxico del último archivo, para volver a escanear solo lo que cambió entre dos análisis
+    private AnalizadorLexicoIncremental analisisLexico;
+    private Path rutaAnalizada;
+    // Referencias cruzadas del último análisis léxico exitoso (solo se usan desde el hilo de eventos)
+    private ReferenciasCruzadas referencias;
+    private IndiceLineas indiceLineas;
 
     public CompiladorGUI() {
         super("Proyecto Analizador - Interfaz");
@@ -54,6 +63,17 @@ public class CompiladorGUI extends JFrame {
         buttonPanel.add(analizarButton);
         topPanel.add(buttonPanel, BorderLayout.EAST);
 
+        simboloField = new JTextField();
+        simboloField.addActionListener(this::referenciasAction);
+        referenciasButton = new JButton("Buscar referencias");
+        referenciasButton.addActionListener(this::referenciasAction);
+        referenciasButton.setEnabled(false);
+
+        JPanel referenciasPanel = new JPanel(new BorderLayout(8, 8));
+        referenciasPanel.add(new JLabel("Símbolo o desplazamiento:"), BorderLayout.WEST);
+        referenciasPanel.add(simboloField, BorderLayout.CENTER);
+        referenciasPanel.add(referenciasButton, BorderLayout.EAST);
+
         JScrollPane scrollPane = new JScrollPane(salidaArea);
         scrollPane.setBorder(BorderFactory.createTitledBorder("Salida"));
 
@@ -66,6 +86,7 @@ public class CompiladorGUI extends JFrame {
         getContentPane().setLayout(new BorderLayout(10, 10));
         getContentPane().add(topPanel, BorderLayout.NORTH);
         getContentPane().add(splitPane, BorderLayout.CENTER);
+        getContentPane().add(referenciasPanel, BorderLayout.SOUTH);
     }
 
     private void seleccionarArchivoAction(ActionEvent event) {
@@ -80,6 +101,7 @@ public class CompiladorGUI extends JFrame {
     private void analizarAction(ActionEvent event) {
         analizarButton.setEnabled(false);
         seleccionarButton.setEnabled(false);
+        referenciasButton.setEnabled(false);
         salidaArea.setText("Procesando...\n");
 
         String rutaArchivo = rutaField.getText().trim();
@@ -95,25 +117,77 @@ public class CompiladorGUI extends JFrame {
             SwingUtilities.invokeLater(() -> {
                 salidaArea.setText(resultado.salida);
                 actualizarArbol(resultado.arbol);
+                referencias = resultado.referencias;
+                indiceLineas = resultado.indiceLineas;
+                referenciasButton.setEnabled(referencias != null);
                 analizarButton.setEnabled(true);
                 seleccionarButton.setEnabled(true);
             });
         }).start();
     }
 
+    /**
+     * Lista en la salida todas las apariciones de un símbolo. Si el texto es un número, se toma como el
+     * desplazamiento de una posición del archivo y se busca el símbolo que la ocupa.
+     */
+    private void referenciasAction(ActionEvent event) {
+        if (referencias == null) {
+            return;
+        }
+        String texto = simboloField.getText().trim();
+        if (texto.isEmpty()) {
+            return;
+        }
+        String simbolo = texto;
+        if (texto.chars().allMatch(Character::isDigit)) {
+            try {
+                simbolo = referencias.simboloEn(Integer.parseInt(texto));
+            } catch (NumberFormatException e) {
+                simbolo = null;
+            }
+            if (simbolo == null) {
+                salidaArea.append("\n[Referencias] No hay ningún símbolo en el desplazamiento " + texto + ".\n");
+                return;
+            }
+        }
+        List<ReferenciasCruzadas.Aparicion> apariciones = referencias.apariciones(simbolo);
+        if (apariciones.isEmpty()) {
+            salidaArea.append("\n[Referencias] El símbolo '" + simbolo + "' no aparece en el archivo.\n");
+            return;
+        }
+        StringBuilder listado = new StringBuilder();
+        listado.append("\n[Referencias] '").append(simbolo).append("': ").append(apariciones.size()).append(" apariciones\n");
+        for (ReferenciasCruzadas.Aparicion aparicion : apariciones) {
+            listado.append("  Línea ").append(aparicion.getLinea())
+                   .append(", columna ").append(indiceLineas.columna(aparicion.getDesplazamiento()))
+                   .append(" (desplazamiento ").append(aparicion.getDesplazamiento()).append(")\n");
+        }
+        salidaArea.append(listado.toString());
+    }
+
     private static class ResultadoAnalisis {
         private final String salida;
-        private final Node arbol;
+        private final ArbolPlano arbol;
+        private final ReferenciasCruzadas referencias;
+        private final IndiceLineas indiceLineas;
+
+        private ResultadoAnalisis(String salida, ArbolPlano arbol) {
+            this(salida, arbol, null, null);
+        }
 
-        private ResultadoAnalisis(String salida, Node arbol) {
+        private ResultadoAnalisis(String salida, ArbolPlano arbol, ReferenciasCruzadas referencias, IndiceLineas indiceLineas) {
             this.salida = salida;
             this.arbol = arbol;
+            this.referencias = referencias;
+            this.indiceLineas = indiceLineas;
         }
     }
 
     private ResultadoAnalisis ejecutarAnalisis(String rutaArchivoFuenteStr) {
         StringBuilder salida = new StringBuilder();
-        Node arbolParaUI = null;
+        ArbolPlano arbolParaUI = null;
+        ReferenciasCruzadas referenciasParaUI = null;
+        IndiceLineas indiceParaUI = null;
 
         try {
             Path rutaArchivoFuente = Paths.get(rutaArchivoFuenteStr);
@@ -122,7 +196,6 @@ public class CompiladorGUI extends JFrame {
                 return new ResultadoAnalisis(salida.toString(), null);
             }
 
-            TablaSimbolos.limpiar();
             Path directorioBase = rutaArchivoFuente.getParent();
             if (directorioBase == null) {
                 directorioBase = Paths.get("").toAbsolutePath();
@@ -130,8 +203,10 @@ public class CompiladorGUI extends JFrame {
 
             Path rutaArchivoTokens = directorioBase.resolve("progfte.tok");
             Path rutaArchivoTablaSimbolos = directorioBase.resolve("progfte.tab");
+            Path rutaArchivoTablaBinaria = directorioBase.resolve("progfte.tabx");
             Path rutaArchivoArbolSintactico = directorioBase.resolve("progfte.arbol");
             Path rutaArchivoASM = directorioBase.resolve("progfte.asm");
+            Path rutaArchivoDerivacion = directorioBase.resolve("progfte.der");
 
             String codigoFuente;
             try {
@@ -145,42 +220,63 @@ public class CompiladorGUI extends JFrame {
             salida.append(codigoFuente).append('\n');
             salida.append("-------------------------------------\n\n");
 
-            List<String> erroresLexicos = new ArrayList<>();
-            List<Token> tokens = AnalizadorLexico.analizarLexicamente(codigoFuente, erroresLexicos);
+            Path rutaAbsoluta = rutaArchivoFuente.toAbsolutePath();
+            if (analisisLexico != null && rutaAbsoluta.equals(rutaAnalizada)) {
+                // Mismo archivo: la tabla de símbolos y los tokens se corrigen solo en la parte editada
+                analisisLexico.actualizar(codigoFuente);
+            } else {
+                analisisLexico = new AnalizadorLexicoIncremental(codigoFuente);
+                rutaAnalizada = rutaAbsoluta;
+            }
+            Diagnosticos erroresLexicos = analisisLexico.getDiagnosticos(Diagnosticos.LIMITE_PREDETERMINADO);
+            BufferTokens tokens = analisisLexico.getBuffer();
 
             if (!erroresLexicos.isEmpty()) {
-                salida.append("--- Errores Léxicos Encontrados ---\n");
-                for (String err : erroresLexicos) {
-                    salida.append(err).append('\n');
-                }
-                salida.append("-------------------------------------\n\n");
+                salida.append(ResultadoTokens.generarSeccionErrores("Errores Léxicos", erroresLexicos));
                 GeneradorArchivos.generarArchivoTokens(rutaArchivoTokens, tokens);
                 salida.append("Se generó el archivo de tokens a pesar de los errores léxicos.\n");
                 return new ResultadoAnalisis(salida.toString(), null);
             }
 
-            salida.append("Análisis léxico exitoso. Se generó progfte.tok y progfte.tab.\n");
+            salida.append("Análisis léxico exitoso. Se generó progfte.tok, progfte.tab y progfte.tabx.\n");
+            // El análisis incremental solo vuelve a escanear lo editado, así que las apariciones se toman del buffer
+            referenciasParaUI = ReferenciasCruzadas.desdeTokens(tokens);
+            indiceParaUI = new IndiceLineas(codigoFuente);
             GeneradorArchivos.generarArchivoTokens(rutaArchivoTokens, tokens);
-            GeneradorArchivos.generarArchivoTablaSimbolos(rutaArchivoTablaSimbolos, TablaSimbolos.getEntradas());
+            List<EntradaTablaSimbolos> entradasTabla = analisisLexico.getTablaSimbolos().getEntradas();
+            GeneradorArchivos.generarArchivoTablaSimbolos(rutaArchivoTablaSimbolos, entradasTabla);
+            GeneradorArchivos.generarArchivoTablaSimbolosBinario(rutaArchivoTablaBinaria, entradasTabla);
+
+            // Un programa completo (pf2024 ...) se analiza con la tabla LL(1); una expresión suelta, como antes
+            if (tokens.tamano() > 0 && tokens.tipo(0) == Escaner.codigo("PROG")) {
+                AnalizadorLL1 analizadorPrograma = new AnalizadorLL1(tokens);
+                boolean programaCorrecto = analizadorPrograma.analizar();
+                salida.append(ResultadoTokens.generarSeccionErrores("Errores Sintácticos", analizadorPrograma.getDiagnosticos()));
+                if (programaCorrecto) {
+                    salida.append("Programa válido. El análisis sintáctico fue exitoso.\n");
+                    GeneradorArchivos.generarArchivoDerivacion(rutaArchivoDerivacion, analizadorPrograma.getTabla(),
+                            analizadorPrograma.getDerivacion());
+                    salida.append("Derivación generada en: ").append(rutaArchivoDerivacion.toAbsolutePath()).append('\n');
+                } else {
+                    salida.append("Programa inválido. Se encontraron errores sintácticos.\n");
+                }
+                salida.append("\nArchivos de salida generados en: ").append(directorioBase.toAbsolutePath()).append('\n');
+                return new ResultadoAnalisis(salida.toString(), null, referenciasParaUI, indiceParaUI);
+            }
 
             AnalizadorSintactico analizadorSintactico = new AnalizadorSintactico(tokens);
-            Node arbolSintactico = analizadorSintactico.analizar();
-            List<String> erroresSintacticos = analizadorSintactico.getErroresSintacticos();
+            ArbolPlano arbolSintactico = analizadorSintactico.analizarPlano();
+            Diagnosticos erroresSintacticos = analizadorSintactico.getDiagnosticos();
             boolean sintaxisCorrecta = arbolSintactico != null && erroresSintacticos.isEmpty();
 
-            if (!erroresSintacticos.isEmpty()) {
-                salida.append("--- Errores Sintácticos Encontrados ---\n");
-                for (String err : erroresSintacticos) {
-                    salida.append(err).append('\n');
-                }
-                salida.append("-------------------------------------\n\n");
-            }
+            salida.append(ResultadoTokens.generarSeccionErrores("Errores Sintácticos", erroresSintacticos));
+            // Con errores se muestra el árbol parcial, con los operandos faltantes marcados
+            arbolParaUI = arbolSintactico;
 
             if (sintaxisCorrecta) {
                 salida.append("Expresión válida. El análisis sintáctico fue exitoso.\n");
                 GeneradorArchivos.generarArbolSintactico(rutaArchivoArbolSintactico, arbolSintactico);
                 salida.append("Árbol de sintaxis generado en: ").append(rutaArchivoArbolSintactico.toAbsolutePath()).append('\n');
-                arbolParaUI = arbolSintactico;
 
                 salida.append("\nNotación Polaca Inversa (NPI):\n");
                 salida.append(analizadorSintactico.getPolacaInversa()).append('\n');
@@ -204,15 +300,16 @@ public class CompiladorGUI extends JFrame {
 
             salida.append("\nArchivos de salida generados en: ").append(directorioBase.toAbsolutePath()).append('\n');
         } catch (Exception ex) {
+            analisisLexico = null; // El siguiente análisis empieza desde cero
             salida.append("[Error inesperado] ").append(ex.getMessage()).append('\n');
         }
 
-        return new ResultadoAnalisis(salida.toString(), arbolParaUI);
+        return new ResultadoAnalisis(salida.toString(), arbolParaUI, referenciasParaUI, indiceParaUI);
     }
 
-    private void actualizarArbol(Node raiz) {
-        DefaultMutableTreeNode raizArbol = (raiz != null)
-                ? construirNodo(raiz)
+    private void actualizarArbol(ArbolPlano arbol) {
+        DefaultMutableTreeNode raizArbol = (arbol != null)
+                ? construirNodo(arbol)
                 : new DefaultMutableTreeNode("Árbol no disponible");
         arbolModel.setRoot(raizArbol);
         arbolModel.reload();
@@ -221,14 +318,23 @@ public class CompiladorGUI extends JFrame {
         }
     }
 
-    private DefaultMutableTreeNode construirNodo(Node nodo) {
-        if (nodo == null) {
-            return new DefaultMutableTreeNode("(nulo)");
-        }
-        DefaultMutableTreeNode nodoActual = new DefaultMutableTreeNode(nodo.getValor());
-        for (Node hijo : nodo.getHijos()) {
-            nodoActual.add(construirNodo(hijo));
+    // Copia el árbol con una pila explícita, de modo que su profundidad no depende de la pila de llamadas
+    private DefaultMutableTreeNode construirNodo(ArbolPlano arbol) {
+        DefaultMutableTreeNode raizArbol = new DefaultMutableTreeNode(arbol.valor(arbol.getRaiz()));
+        Deque<Integer> nodos = new ArrayDeque<>();
+        Deque<DefaultMutableTreeNode> copias = new ArrayDeque<>();
+        nodos.push(arbol.getRaiz());
+        copias.push(raizArbol);
+        while (!nodos.isEmpty()) {
+            int nodo = nodos.pop();
+            DefaultMutableTreeNode copia = copias.pop();
+            for (int hijo = arbol.primerHijo(nodo); hijo != ArbolPlano.NINGUNO; hijo = arbol.siguienteHermano(hijo)) {
+                DefaultMutableTreeNode copiaHijo = new DefaultMutableTreeNode(arbol.valor(hijo));
+                copia.add(copiaHijo);
+                nodos.push(hijo);
+                copias.push(copiaHijo);
+            }
         }
-        return nodoActual;
+        return raizArbol;
     }
 }
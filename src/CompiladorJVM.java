@@ -0,0 +1,270 @@
+import java.io.ByteArrayOutputStream;
+import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compila un {@link ProgramaNPI} a una clase de la JVM, para que HotSpot convierta la expresión en código de
+ * máquina sin el ciclo del intérprete.
+ * <p>
+ * El archivo de clase se escribe byte por byte: una clase final que implementa {@link ExpresionEvaluable}, con un
+ * constructor vacío y un método {@code eval} que apila las constantes, lee cada variable de su casilla del arreglo
+ * y aplica los operadores, en el orden de la NPI. La división y la comprobación de los valores llaman a los mismos
+ * métodos que usa {@link ProgramaNPI}, así que los errores son los mismos, y el método no tiene saltos, así que no
+ * necesita tabla de marcos de pila. La clase se define como clase oculta ({@link MethodHandles.Lookup#defineHiddenClass})
+ * sin la opción STRONG: cuando ya no queda ninguna referencia a la expresión, el recolector puede descargarla.
+ * <p>
+ * Las instancias no guardan estado, así que pueden evaluarse desde varios hilos a la vez. Compilar cuesta mucho
+ * más que evaluar, así que solo conviene para expresiones que se evalúan muchas veces.
+ */
+public class CompiladorJVM {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    // El nombre de las clases generadas; defineHiddenClass le agrega un sufijo único
+    private static final String NOMBRE_CLASE = "ExpresionJVM";
+    private static final int VERSION_CLASE = 61; // Java 17
+    private static final int LIMITE_CODIGO = 65535;
+
+    // Banderas de acceso
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+
+    // Instrucciones de la JVM que se emiten
+    private static final int ICONST_0 = 0x03;
+    private static final int BIPUSH = 0x10;
+    private static final int SIPUSH = 0x11;
+    private static final int LDC = 0x12;
+    private static final int LDC_W = 0x13;
+    private static final int ALOAD_0 = 0x2a;
+    private static final int ALOAD_1 = 0x2b;
+    private static final int IALOAD = 0x2e;
+    private static final int IADD = 0x60;
+    private static final int ISUB = 0x64;
+    private static final int IMUL = 0x68;
+    private static final int IRETURN = 0xac;
+    private static final int RETURN = 0xb1;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int INVOKESTATIC = 0xb8;
+
+    /**
+     * Compila y carga el programa.
+     * @return Una instancia de la clase generada; sus casillas son las del programa.
+     * @throws IllegalArgumentException Si la expresión es tan grande que su método no cabe en una clase.
+     */
+    public static ExpresionEvaluable compilar(ProgramaNPI programa) {
+        byte[] clase = generarClase(programa);
+        try {
+            Class<?> definida = LOOKUP.defineHiddenClass(clase, true).lookupClass();
+            return (ExpresionEvaluable) definida.getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("No se pudo cargar la clase generada para la expresión.", e);
+        }
+    }
+
+    // El archivo de clase completo
+    static byte[] generarClase(ProgramaNPI programa) {
+        Constantes constantes = new Constantes();
+        int estaClase = constantes.clase(NOMBRE_CLASE);
+        int objeto = constantes.clase("java/lang/Object");
+        int interfaz = constantes.clase("ExpresionEvaluable");
+        int constructorObjeto = constantes.metodo(objeto, "<init>", "()V");
+        int programaNPI = constantes.clase("ProgramaNPI");
+        int comprobarValores = constantes.metodo(programaNPI, "comprobarValores", "([II)V");
+        int dividir = constantes.metodo(programaNPI, "dividir", "(II)I");
+        int nombreConstructor = constantes.utf8("<init>");
+        int descriptorConstructor = constantes.utf8("()V");
+        int nombreEval = constantes.utf8("eval");
+        int descriptorEval = constantes.utf8("([I)I");
+        int atributoCodigo = constantes.utf8("Code");
+
+        ByteArrayOutputStream constructor = new ByteArrayOutputStream();
+        constructor.write(ALOAD_0);
+        constructor.write(INVOKESPECIAL);
+        u2(constructor, constructorObjeto);
+        constructor.write(RETURN);
+
+        ByteArrayOutputStream eval = new ByteArrayOutputStream();
+        eval.write(ALOAD_1);
+        cargarEntero(eval, constantes, programa.getVariables().length);
+        eval.write(INVOKESTATIC);
+        u2(eval, comprobarValores);
+        int[] codigo = programa.codigo;
+        int pc = 0;
+        while (pc < codigo.length) {
+            switch (codigo[pc++]) {
+                case ProgramaNPI.CONSTANTE:
+                    cargarEntero(eval, constantes, codigo[pc++]);
+                    break;
+                case ProgramaNPI.VARIABLE:
+                    eval.write(ALOAD_1);
+                    cargarEntero(eval, constantes, codigo[pc++]);
+                    eval.write(IALOAD);
+                    break;
+                case ProgramaNPI.SUMA:
+                    eval.write(IADD);
+                    break;
+                case ProgramaNPI.RESTA:
+                    eval.write(ISUB);
+                    break;
+                case ProgramaNPI.MULTIPLICACION:
+                    eval.write(IMUL);
+                    break;
+                default:
+                    eval.write(INVOKESTATIC);
+                    u2(eval, dividir);
+                    break;
+            }
+        }
+        eval.write(IRETURN);
+        if (eval.size() > LIMITE_CODIGO || constantes.cantidad() > LIMITE_CODIGO) {
+            throw new IllegalArgumentException("La expresión es demasiado grande para compilarla a una clase; "
+                    + "se puede evaluar con ProgramaNPI.");
+        }
+
+        ByteArrayOutputStream clase = new ByteArrayOutputStream(256 + eval.size());
+        u4(clase, 0xCAFEBABE);
+        u2(clase, 0);
+        u2(clase, VERSION_CLASE);
+        u2(clase, constantes.cantidad() + 1);
+        clase.writeBytes(constantes.bytes.toByteArray());
+        u2(clase, ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+        u2(clase, estaClase);
+        u2(clase, objeto);
+        u2(clase, 1);
+        u2(clase, interfaz);
+        u2(clase, 0); // Sin campos
+        u2(clase, 2);
+        // La pila de eval lleva la de la expresión más el arreglo y la casilla que se están leyendo
+        escribirMetodo(clase, nombreConstructor, descriptorConstructor, atributoCodigo, 1, 1, constructor);
+        escribirMetodo(clase, nombreEval, descriptorEval, atributoCodigo, programa.getProfundidad() + 2, 2, eval);
+        u2(clase, 0); // Sin atributos de clase
+        return clase.toByteArray();
+    }
+
+    private static void escribirMetodo(ByteArrayOutputStream clase, int nombre, int descriptor, int atributoCodigo,
+                                       int pilaMaxima, int variablesLocales, ByteArrayOutputStream codigo) {
+        u2(clase, ACC_PUBLIC);
+        u2(clase, nombre);
+        u2(clase, descriptor);
+        u2(clase, 1);
+        u2(clase, atributoCodigo);
+        u4(clase, 12 + codigo.size());
+        u2(clase, pilaMaxima);
+        u2(clase, variablesLocales);
+        u4(clase, codigo.size());
+        clase.writeBytes(codigo.toByteArray());
+        u2(clase, 0); // Sin manejadores de excepciones
+        u2(clase, 0); // Sin atributos
+    }
+
+    // Apila un entero con la instrucción más corta que lo admite
+    private static void cargarEntero(ByteArrayOutputStream codigo, Constantes constantes, int valor) {
+        if (valor >= -1 && valor <= 5) {
+            codigo.write(ICONST_0 + valor);
+        } else if (valor >= Byte.MIN_VALUE && valor <= Byte.MAX_VALUE) {
+            codigo.write(BIPUSH);
+            codigo.write(valor);
+        } else if (valor >= Short.MIN_VALUE && valor <= Short.MAX_VALUE) {
+            codigo.write(SIPUSH);
+            u2(codigo, valor);
+        } else {
+            int indice = constantes.entero(valor);
+            if (indice < 256) {
+                codigo.write(LDC);
+                codigo.write(indice);
+            } else {
+                codigo.write(LDC_W);
+                u2(codigo, indice);
+            }
+        }
+    }
+
+    private static void u2(ByteArrayOutputStream salida, int valor) {
+        salida.write(valor >>> 8);
+        salida.write(valor);
+    }
+
+    private static void u4(ByteArrayOutputStream salida, int valor) {
+        u2(salida, valor >>> 16);
+        u2(salida, valor);
+    }
+
+    // La tabla de constantes; cada constante se agrega una sola vez y su índice se reutiliza
+    private static class Constantes {
+        private static final int UTF8 = 1;
+        private static final int ENTERO = 3;
+        private static final int CLASE = 7;
+        private static final int METODO = 10;
+        private static final int NOMBRE_Y_TIPO = 12;
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final Map<String, Integer> indices = new HashMap<>();
+
+        int cantidad() {
+            return indices.size();
+        }
+
+        // Los textos son nombres fijos de este archivo, todos ASCII, así que su UTF-8 modificado es el UTF-8 normal
+        int utf8(String texto) {
+            Integer indice = indices.get("U" + texto);
+            if (indice != null) {
+                return indice;
+            }
+            byte[] contenido = texto.getBytes(StandardCharsets.UTF_8);
+            bytes.write(UTF8);
+            u2(bytes, contenido.length);
+            bytes.writeBytes(contenido);
+            return registrar("U" + texto);
+        }
+
+        int entero(int valor) {
+            Integer indice = indices.get("I" + valor);
+            if (indice != null) {
+                return indice;
+            }
+            bytes.write(ENTERO);
+            u4(bytes, valor);
+            return registrar("I" + valor);
+        }
+
+        int clase(String nombreInterno) {
+            Integer indice = indices.get("C" + nombreInterno);
+            if (indice != null) {
+                return indice;
+            }
+            int nombre = utf8(nombreInterno);
+            bytes.write(CLASE);
+            u2(bytes, nombre);
+            return registrar("C" + nombreInterno);
+        }
+
+        int metodo(int clase, String nombre, String descriptor) {
+            String clave = "M" + clase + " " + nombre + descriptor;
+            Integer indice = indices.get(clave);
+            if (indice != null) {
+                return indice;
+            }
+            Integer nombreYTipo = indices.get("N" + nombre + descriptor);
+            if (nombreYTipo == null) {
+                int textoNombre = utf8(nombre);
+                int textoDescriptor = utf8(descriptor);
+                bytes.write(NOMBRE_Y_TIPO);
+                u2(bytes, textoNombre);
+                u2(bytes, textoDescriptor);
+                nombreYTipo = registrar("N" + nombre + descriptor);
+            }
+            bytes.write(METODO);
+            u2(bytes, clase);
+            u2(bytes, nombreYTipo);
+            return registrar(clave);
+        }
+
+        private int registrar(String clave) {
+            int indice = indices.size() + 1;
+            indices.put(clave, indice);
+            return indice;
+        }
+    }
+}
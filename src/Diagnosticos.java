@@ -0,0 +1,271 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Errores encontrados por el analizador léxico y el sintáctico, guardados por columnas: el código, la ubicación
+ * y un argumento opcional de cada error. El texto del mensaje no se arma al reportar el error, sino cuando se pide.
+ * <p>
+ * Los códigos léxicos son los códigos de error de {@link Escaner} (negativos); los sintácticos son las constantes
+ * positivas de esta clase. Se puede fijar un límite de errores: al alcanzarlo los siguientes se descartan y los
+ * analizadores dejan de trabajar.
+ */
+public class Diagnosticos {
+    /** Límite de errores que usan el programa principal y la interfaz gráfica. */
+    public static final int LIMITE_PREDETERMINADO = 100;
+
+    // Códigos de los errores sintácticos
+    public static final int SIN_TOKENS = 1;
+    public static final int TOKEN_EXTRA = 2;
+    public static final int OPERANDO_TRAS_OPERADOR = 3;
+    public static final int OPERANDO_ESPERADO = 4;
+    public static final int PARENTESIS_CIERRE = 5;
+    public static final int OPERANDO_O_PARENTESIS = 6;
+    public static final int SE_ESPERABA = 7; // Del analizador LL(1); lo esperado va aparte del token encontrado
+
+    private static final String[] MENSAJES_SINTACTICOS = {
+        null,
+        "No hay tokens para analizar. La expresión está vacía.",
+        "Caracteres extra o token inesperado después de una expresión válida",
+        "Operando esperado después de '%s'",
+        "Se esperaba un operando (ID, número o expresión entre paréntesis)",
+        "Se esperaba un paréntesis de cierre ')'",
+        "Se esperaba un operando (ID, número o '(')",
+        "Se esperaba %s",
+    };
+
+    // Los que se reportan sobre el token encontrado; los demás, a continuación del token anterior
+    private static final boolean[] CON_TOKEN = {false, false, true, false, false, true, true, true};
+
+    private final int limite;
+    private int[] codigos = new int[16];
+    private int[] inicios = new int[16];
+    private int[] longitudes = new int[16];
+    private int[] lineas = new int[16];
+    private int[] columnas = new int[16];
+    private String[] argumentos = new String[16];
+    private String[] esperados = new String[16];
+    private int tamano = 0;
+    private boolean limiteAlcanzado = false;
+    private final Set<Clave> vistos = new HashSet<>();
+
+    /** Crea un registro sin límite de errores. */
+    public Diagnosticos() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param limite La cantidad máxima de errores que se guardan.
+     */
+    public Diagnosticos(int limite) {
+        if (limite < 1) {
+            throw new IllegalArgumentException("El límite de errores debe ser positivo: " + limite);
+        }
+        this.limite = limite;
+    }
+
+    /**
+     * Registra un error.
+     * @param codigo El código del error.
+     * @param inicio El desplazamiento (base 0) del texto señalado, o -1 si no se conoce.
+     * @param longitud La longitud del texto señalado; 0 si el error está al final de la entrada.
+     * @param linea La línea que se muestra en el mensaje.
+     * @param columna La columna (base 1) del texto señalado, o -1 si no se conoce.
+     * @param argumento El lexema que se muestra en el mensaje, o null.
+     * @return false si el error no se guardó, por repetido o por haber alcanzado el límite.
+     */
+    public boolean agregar(int codigo, int inicio, int longitud, int linea, int columna, String argumento) {
+        return agregar(codigo, inicio, longitud, linea, columna, argumento, null);
+    }
+
+    /**
+     * Igual que {@link #agregar(int, int, int, int, int, String)}, con la descripción de lo que se esperaba
+     * (para {@link #SE_ESPERABA}); el argumento es entonces el lexema encontrado.
+     */
+    public boolean agregar(int codigo, int inicio, int longitud, int linea, int columna, String argumento, String esperado) {
+        if (tamano == limite) {
+            limiteAlcanzado = true;
+            return false;
+        }
+        // Los errores léxicos nunca se repiten, porque su mensaje incluye la posición
+        if (codigo > 0 && !vistos.add(new Clave(codigo, linea, longitud == 0, argumento, esperado))) {
+            return false;
+        }
+        if (tamano == codigos.length) {
+            int capacidad = tamano * 2;
+            codigos = Arrays.copyOf(codigos, capacidad);
+            inicios = Arrays.copyOf(inicios, capacidad);
+            longitudes = Arrays.copyOf(longitudes, capacidad);
+            lineas = Arrays.copyOf(lineas, capacidad);
+            columnas = Arrays.copyOf(columnas, capacidad);
+            argumentos = Arrays.copyOf(argumentos, capacidad);
+            esperados = Arrays.copyOf(esperados, capacidad);
+        }
+        codigos[tamano] = codigo;
+        inicios[tamano] = inicio;
+        longitudes[tamano] = longitud;
+        lineas[tamano] = linea;
+        columnas[tamano] = columna;
+        argumentos[tamano] = argumento;
+        esperados[tamano] = esperado;
+        tamano++;
+        if (tamano == limite) {
+            limiteAlcanzado = true;
+        }
+        return true;
+    }
+
+    /** Copia los errores {@code [desde, hasta)} de otro registro, respetando el límite de este. */
+    public void agregarDe(Diagnosticos otro, int desde, int hasta) {
+        for (int i = desde; i < hasta; i++) {
+            agregar(otro.codigos[i], otro.inicios[i], otro.longitudes[i], otro.lineas[i], otro.columnas[i], otro.argumentos[i],
+                    otro.esperados[i]);
+        }
+    }
+
+    public int tamano() {
+        return tamano;
+    }
+
+    public boolean isEmpty() {
+        return tamano == 0;
+    }
+
+    /** Indica si ya se guardó la cantidad máxima de errores; a partir de ahí el análisis debe detenerse. */
+    public boolean isLimiteAlcanzado() {
+        return limiteAlcanzado;
+    }
+
+    public int getLimite() {
+        return limite;
+    }
+
+    public void limpiar() {
+        Arrays.fill(argumentos, 0, tamano, null);
+        Arrays.fill(esperados, 0, tamano, null);
+        tamano = 0;
+        limiteAlcanzado = false;
+        vistos.clear();
+    }
+
+    public int codigo(int i) {
+        return codigos[i];
+    }
+
+    public int inicio(int i) {
+        return inicios[i];
+    }
+
+    public int longitud(int i) {
+        return longitudes[i];
+    }
+
+    public int linea(int i) {
+        return lineas[i];
+    }
+
+    public int columna(int i) {
+        return columnas[i];
+    }
+
+    /** Indica si el error {@code i} es léxico. */
+    public boolean esLexico(int i) {
+        return codigos[i] < 0;
+    }
+
+    /** Arma el texto del error {@code i}. */
+    public String mensaje(int i) {
+        int codigo = codigos[i];
+        String argumento = argumentos[i];
+        if (codigo < 0) {
+            return mensajeLexico(codigo, argumento, lineas[i], columnas[i]);
+        }
+        StringBuilder mensaje = new StringBuilder("Error sintáctico en línea ").append(lineas[i]).append(": ")
+                .append(String.format(MENSAJES_SINTACTICOS[codigo], (esperados[i] != null) ? esperados[i] : argumento));
+        if (CON_TOKEN[codigo]) {
+            if (argumento != null) {
+                mensaje.append(". Se encontró '").append(argumento).append('\'');
+            } else {
+                mensaje.append((codigo == SE_ESPERABA) ? ". Programa finalizado inesperadamente." : ". Expresión finalizada inesperadamente.");
+            }
+        } else {
+            if (argumento != null) {
+                mensaje.append(" después de '").append(argumento).append('\'');
+            }
+            if (longitudes[i] == 0) {
+                mensaje.append(". Se esperaba continuación pero finalizó la expresión.");
+            }
+        }
+        return mensaje.toString();
+    }
+
+    /**
+     * Vista de solo lectura con el texto de cada error. Cada acceso arma el mensaje correspondiente.
+     */
+    public List<String> getMensajes() {
+        return new AbstractList<String>() {
+            @Override
+            public String get(int indice) {
+                Objects.checkIndex(indice, tamano);
+                return mensaje(indice);
+            }
+
+            @Override
+            public int size() {
+                return tamano;
+            }
+        };
+    }
+
+    private static String mensajeLexico(int codigo, String lexema, int linea, int posicion) {
+        String prefijo = "Error léxico en la línea " + linea + ", posición " + posicion + ": ";
+        switch (codigo) {
+            case Escaner.ERROR_SIMBOLOS:
+                return prefijo + "Identificador inválido '" + lexema + "' contiene símbolos no permitidos.";
+            case Escaner.ERROR_ACENTOS:
+                return prefijo + "Identificador o tipo de dato inválido '" + lexema
+                        + "' contiene caracteres acentuados.";
+            case Escaner.ERROR_IDENTIFICADOR:
+                return prefijo + "Identificador inválido '" + lexema + "'.";
+            case Escaner.ERROR_COMENTARIO:
+                return prefijo + "Comentario sin cerrar.";
+            default:
+                return prefijo + "Carácter no reconocido '" + lexema + "'";
+        }
+    }
+
+    // Lo que determina el texto de un error sintáctico; dos errores con la misma clave se muestran igual
+    private static final class Clave {
+        private final int codigo;
+        private final int linea;
+        private final boolean alFinal;
+        private final String argumento;
+        private final String esperado;
+
+        private Clave(int codigo, int linea, boolean alFinal, String argumento, String esperado) {
+            this.codigo = codigo;
+            this.linea = linea;
+            this.alFinal = alFinal;
+            this.argumento = argumento;
+            this.esperado = esperado;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Clave)) {
+                return false;
+            }
+            Clave otra = (Clave) o;
+            return codigo == otra.codigo && linea == otra.linea && alFinal == otra.alFinal
+                    && Objects.equals(argumento, otra.argumento) && Objects.equals(esperado, otra.esperado);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(codigo, linea, alFinal, argumento, esperado);
+        }
+    }
+}
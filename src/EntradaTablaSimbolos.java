@@ -4,6 +4,9 @@ public class EntradaTablaSimbolos {
     private String lexema;
     private String token; // Tipo de token (ej. "ID", "PROG", "TYPE")
     private int referencia; // Podría ser el número de línea de la primera aparición/declaración
+    private int idLexema = -1; // Identificador del lexema en el pool de su tabla, si se conoce
+    private int ambito; // Profundidad del ámbito donde se declaró; 0 es el global
+    private EntradaTablaSimbolos sombreada; // La declaración del mismo lexema en un ámbito exterior, o null
 
     public EntradaTablaSimbolos(int numero, String lexema, String token, int referencia) {
         this.numero = numero;
@@ -16,6 +19,10 @@ public class EntradaTablaSimbolos {
         return numero;
     }
 
+    void setNumero(int numero) {
+        this.numero = numero;
+    }
+
     public String getLexema() {
         return lexema;
     }
@@ -32,6 +39,34 @@ public class EntradaTablaSimbolos {
         return referencia;
     }
 
+    void setReferencia(int referencia) {
+        this.referencia = referencia;
+    }
+
+    int getIdLexema() {
+        return idLexema;
+    }
+
+    void setIdLexema(int idLexema) {
+        this.idLexema = idLexema;
+    }
+
+    public int getAmbito() {
+        return ambito;
+    }
+
+    void setAmbito(int ambito) {
+        this.ambito = ambito;
+    }
+
+    EntradaTablaSimbolos getSombreada() {
+        return sombreada;
+    }
+
+    void setSombreada(EntradaTablaSimbolos sombreada) {
+        this.sombreada = sombreada;
+    }
+
     @Override
     public String toString() {
         // Formato para el archivo .tab, ajusta el espaciado según necesites
@@ -0,0 +1,852 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Escáner léxico dirigido por tabla (autómata finito determinista).
+ * La tabla de transiciones se construye una sola vez a partir de las definiciones de {@link Gramatica}:
+ * las palabras reservadas, los tipos de datos y las constantes booleanas forman un trie dentro del autómata,
+ * de modo que se reconocen por la coincidencia más larga (por ejemplo, "inicio2" es un identificador). Una palabra
+ * reservada completa termina en cualquier carácter que no sea letra ni dígito, así que "impdig(x)" es IMPDIG
+ * seguido de "(", igual que con el analizador anterior.
+ * Los comentarios se descartan dentro del propio autómata y no se reserva memoria por carácter.
+ */
+public class Escaner {
+    /** Código devuelto por {@link #siguiente()} al llegar al final de la entrada. */
+    public static final int FIN = 0;
+
+    // Códigos de los tipos de token fijos; el resto se asigna a partir de Gramatica.
+    public static final int ID = 1;
+    public static final int CINT = 2;
+    public static final int LITERAL_CAD = 3;
+    public static final int BOOL = 4;
+
+    // Códigos de error (negativos) devueltos por siguiente().
+    public static final int ERROR_CARACTER = -1;      // Carácter no reconocido
+    public static final int ERROR_SIMBOLOS = -2;      // Identificador con símbolos no permitidos
+    public static final int ERROR_ACENTOS = -3;       // Identificador con caracteres acentuados
+    public static final int ERROR_IDENTIFICADOR = -4; // Identificador que no coincide con Gramatica.idRegex
+    public static final int ERROR_COMENTARIO = -5;    // Comentario sin cerrar
+
+    /** Caracteres que terminan un identificador sin formar parte de él. */
+    private static final String DELIMITADORES_ID = ",;):*-";
+
+    // Columnas de la tabla: una por carácter ASCII y cuatro para las clases de caracteres no ASCII.
+    private static final int NO_ASCII_LETRA = 128;
+    private static final int NO_ASCII_DIGITO = 129;
+    private static final int NO_ASCII_ESPACIO = 130;
+    private static final int NO_ASCII_OTRO = 131;
+    private static final int COLUMNAS = 132;
+
+    // Estados fijos del autómata; los de operadores y del trie se agregan al construir la tabla.
+    private static final int MUERTO = 0;
+    private static final int INICIO = 1;
+    private static final int ESPACIO = 2;
+    private static final int IDENT = 3;
+    private static final int IDENT_ACENTO = 4;
+    private static final int IDENT_NO_VALIDO = 5;
+    private static final int IDENT_SIMBOLO = 6;
+    private static final int NUMERO = 7;
+    private static final int LITERAL = 8;
+    private static final int LITERAL_FIN = 9;
+    private static final int COMENTARIO = 10;
+    private static final int COMENTARIO_AST = 11;
+    private static final int COMENTARIO_FIN = 12;
+    private static final int ESTADOS_FIJOS = 13;
+
+    /** Acción de aceptación que descarta lo reconocido (espacios y comentarios). */
+    private static final int SALTAR = Integer.MAX_VALUE;
+
+    private static final List<String> TIPOS = new ArrayList<>();
+    private static final Map<String, Integer> CODIGOS = new HashMap<>();
+    private static final boolean[] REGISTRABLE;
+    private static final String[] LEXEMA_TIPO;
+    private static final int[] TRANSICIONES;
+    private static final int[] ACEPTACION;
+    private static final String[] LEXEMA_ESTADO;
+
+    // Estados que se repiten a sí mismos en rachas largas; el escáner los recorre sin consultar la tabla
+    private static final boolean[] RACHA = new boolean[ESTADOS_FIJOS];
+    // Caracteres seguidos en el mismo estado antes de recorrer la racha; así los lexemas cortos no pagan nada
+    private static final int UMBRAL_RACHA = 8;
+
+    // Constantes para examinar ocho bytes a la vez dentro de un long (una copia del valor en cada byte)
+    private static final long UNOS = 0x0101010101010101L;
+    private static final long ALTOS = 0x8080808080808080L;
+    private static final long BAJOS = 0x7F7F7F7F7F7F7F7FL;
+
+    static {
+        TIPOS.add(null); // FIN
+        TIPOS.add("ID");
+        TIPOS.add("CINT");
+        TIPOS.add("LITERAL_CAD");
+        TIPOS.add("BOOL");
+        Map<String, Integer> codigos = CODIGOS;
+        for (int i = 1; i < TIPOS.size(); i++) {
+            codigos.put(TIPOS.get(i), i);
+        }
+
+        // Todas las palabras del trie (orden determinista para que los códigos sean estables).
+        Map<String, String> palabras = new TreeMap<>();
+        palabras.putAll(Gramatica.palabrasReservadas);
+        palabras.putAll(Gramatica.tiposDeDatos);
+        palabras.putAll(Gramatica.constantesBooleanas);
+        Map<String, String> operadores = new TreeMap<>(Gramatica.signosOperadores);
+        for (String tipo : palabras.values()) {
+            codigos.computeIfAbsent(tipo, t -> { TIPOS.add(t); return TIPOS.size() - 1; });
+        }
+        for (String tipo : operadores.values()) {
+            codigos.computeIfAbsent(tipo, t -> { TIPOS.add(t); return TIPOS.size() - 1; });
+        }
+
+        REGISTRABLE = new boolean[TIPOS.size()];
+        REGISTRABLE[ID] = true;
+        for (String tipo : Gramatica.tiposDeDatos.values()) {
+            REGISTRABLE[codigos.get(tipo)] = true;
+        }
+
+        // Tipos con un único lexema posible (operadores y la mayoría de las palabras reservadas).
+        LEXEMA_TIPO = new String[TIPOS.size()];
+        boolean[] variosLexemas = new boolean[TIPOS.size()];
+        variosLexemas[ID] = variosLexemas[CINT] = variosLexemas[LITERAL_CAD] = true;
+        Map<String, String> lexemasFijos = new TreeMap<>(palabras);
+        lexemasFijos.putAll(operadores);
+        for (Map.Entry<String, String> entry : lexemasFijos.entrySet()) {
+            int codigo = codigos.get(entry.getValue());
+            variosLexemas[codigo] |= LEXEMA_TIPO[codigo] != null;
+            LEXEMA_TIPO[codigo] = variosLexemas[codigo] ? null : entry.getKey();
+        }
+
+        int maxEstados = ESTADOS_FIJOS + operadores.size();
+        for (String palabra : palabras.keySet()) {
+            maxEstados += palabra.length();
+        }
+        int[] transiciones = new int[maxEstados * COLUMNAS];
+        int[] aceptacion = new int[maxEstados];
+        String[] lexemaEstado = new String[maxEstados];
+
+        // Espacios (incluido el salto de línea): se descartan.
+        for (int c = 0; c < COLUMNAS; c++) {
+            if (esEspacio(c)) {
+                transiciones[INICIO * COLUMNAS + c] = ESPACIO;
+                transiciones[ESPACIO * COLUMNAS + c] = ESPACIO;
+            }
+        }
+        aceptacion[ESPACIO] = SALTAR;
+
+        // Identificadores y sus variantes inválidas.
+        for (int estado = IDENT; estado <= IDENT_SIMBOLO; estado++) {
+            configurarPalabra(transiciones, estado, estado);
+        }
+        aceptacion[IDENT] = ID;
+        aceptacion[IDENT_ACENTO] = ERROR_ACENTOS;
+        aceptacion[IDENT_NO_VALIDO] = ERROR_IDENTIFICADOR;
+        aceptacion[IDENT_SIMBOLO] = ERROR_SIMBOLOS;
+        for (int c = 'a'; c <= 'z'; c++) {
+            transiciones[INICIO * COLUMNAS + c] = IDENT;
+            transiciones[INICIO * COLUMNAS + Character.toUpperCase(c)] = IDENT;
+        }
+        transiciones[INICIO * COLUMNAS + NO_ASCII_LETRA] = IDENT_ACENTO;
+
+        // Constantes enteras (\d+ solo acepta dígitos ASCII).
+        for (int c = '0'; c <= '9'; c++) {
+            transiciones[INICIO * COLUMNAS + c] = NUMERO;
+            transiciones[NUMERO * COLUMNAS + c] = NUMERO;
+        }
+        aceptacion[NUMERO] = CINT;
+
+        // Literales de cadena: no cruzan líneas.
+        transiciones[INICIO * COLUMNAS + '"'] = LITERAL;
+        for (int c = 0; c < COLUMNAS; c++) {
+            if (c != '"' && c != '\n' && c != '\r') {
+                transiciones[LITERAL * COLUMNAS + c] = LITERAL;
+            }
+        }
+        transiciones[LITERAL * COLUMNAS + '"'] = LITERAL_FIN;
+        aceptacion[LITERAL_FIN] = LITERAL_CAD;
+
+        // Comentarios /* ... */, que sí pueden abarcar varias líneas.
+        for (int c = 0; c < COLUMNAS; c++) {
+            transiciones[COMENTARIO * COLUMNAS + c] = COMENTARIO;
+            transiciones[COMENTARIO_AST * COLUMNAS + c] = COMENTARIO;
+        }
+        transiciones[COMENTARIO * COLUMNAS + '*'] = COMENTARIO_AST;
+        transiciones[COMENTARIO_AST * COLUMNAS + '*'] = COMENTARIO_AST;
+        transiciones[COMENTARIO_AST * COLUMNAS + '/'] = COMENTARIO_FIN;
+        aceptacion[COMENTARIO_FIN] = SALTAR;
+
+        int siguienteEstado = ESTADOS_FIJOS;
+
+        // Operadores de un carácter; la barra además puede abrir un comentario.
+        for (Map.Entry<String, String> entry : operadores.entrySet()) {
+            String signo = entry.getKey();
+            if (signo.length() != 1 || signo.charAt(0) >= NO_ASCII_LETRA) {
+                throw new IllegalStateException("Operador no soportado por el escáner: " + signo);
+            }
+            int estado = siguienteEstado++;
+            transiciones[INICIO * COLUMNAS + signo.charAt(0)] = estado;
+            aceptacion[estado] = codigos.get(entry.getValue());
+            lexemaEstado[estado] = signo;
+            if (signo.equals("/")) {
+                transiciones[estado * COLUMNAS + '*'] = COMENTARIO;
+            }
+        }
+
+        // Trie de palabras reservadas, tipos de datos y constantes booleanas.
+        for (Map.Entry<String, String> entry : palabras.entrySet()) {
+            String palabra = entry.getKey();
+            if (!palabra.matches(Gramatica.idRegex)) {
+                throw new IllegalStateException("Palabra no soportada por el escáner: " + palabra);
+            }
+            int estado = INICIO;
+            for (int i = 0; i < palabra.length(); i++) {
+                int indice = estado * COLUMNAS + palabra.charAt(i);
+                if (transiciones[indice] == IDENT || transiciones[indice] == MUERTO) {
+                    int nuevo = siguienteEstado++;
+                    configurarPalabra(transiciones, nuevo, IDENT);
+                    aceptacion[nuevo] = ID;
+                    transiciones[indice] = nuevo;
+                }
+                estado = transiciones[indice];
+            }
+            aceptacion[estado] = codigos.get(entry.getValue());
+            lexemaEstado[estado] = palabra;
+            if (Gramatica.palabrasReservadas.containsKey(palabra)) {
+                terminarPalabraReservada(transiciones, estado);
+            }
+        }
+
+        TRANSICIONES = transiciones;
+        ACEPTACION = aceptacion;
+        LEXEMA_ESTADO = lexemaEstado;
+
+        RACHA[ESPACIO] = RACHA[IDENT] = RACHA[NUMERO] = RACHA[LITERAL] = RACHA[COMENTARIO] = true;
+    }
+
+    /**
+     * Configura las transiciones de un estado dentro de una palabra.
+     * @param estado El estado a configurar.
+     * @param conLetraODigito El estado al que se pasa con una letra o dígito ASCII.
+     */
+    private static void configurarPalabra(int[] transiciones, int estado, int conLetraODigito) {
+        int base = estado * COLUMNAS;
+        for (int c = 0; c < COLUMNAS; c++) {
+            int destino;
+            if (esEspacio(c) || DELIMITADORES_ID.indexOf(c) >= 0) {
+                destino = MUERTO;
+            } else if (estado == IDENT_SIMBOLO) {
+                destino = IDENT_SIMBOLO;
+            } else if (c < NO_ASCII_LETRA && Character.isLetterOrDigit(c)) {
+                destino = conLetraODigito;
+            } else if (c == NO_ASCII_LETRA) {
+                destino = IDENT_ACENTO;
+            } else if (c == NO_ASCII_DIGITO) {
+                destino = (estado == IDENT_ACENTO) ? IDENT_ACENTO : IDENT_NO_VALIDO;
+            } else {
+                destino = IDENT_SIMBOLO;
+            }
+            transiciones[base + c] = destino;
+        }
+    }
+
+    /**
+     * Hace que una palabra reservada completa termine en un símbolo (por ejemplo el paréntesis de "impdig(x)") en
+     * lugar de formar un identificador inválido. Las letras y los dígitos siguen la coincidencia más larga.
+     */
+    private static void terminarPalabraReservada(int[] transiciones, int estado) {
+        int base = estado * COLUMNAS;
+        for (int c = 0; c < COLUMNAS; c++) {
+            if (transiciones[base + c] == IDENT_SIMBOLO) {
+                transiciones[base + c] = MUERTO;
+            }
+        }
+    }
+
+    private static boolean esEspacio(int columna) {
+        return columna == NO_ASCII_ESPACIO || (columna < NO_ASCII_LETRA && Character.isWhitespace(columna));
+    }
+
+    private static int columnaNoAscii(char c) {
+        if (Character.isLetter(c)) {
+            return NO_ASCII_LETRA;
+        } else if (Character.isDigit(c)) {
+            return NO_ASCII_DIGITO;
+        } else if (Character.isWhitespace(c)) {
+            return NO_ASCII_ESPACIO;
+        }
+        return NO_ASCII_OTRO;
+    }
+
+    /**
+     * Obtiene el nombre del tipo de token asociado a un código.
+     * @param codigo El código devuelto por {@link #siguiente()}.
+     * @return El tipo de token (ej. "ID", "CINT", "MAS").
+     */
+    public static String tipo(int codigo) {
+        return TIPOS.get(codigo);
+    }
+
+    /**
+     * Obtiene el código asociado a un tipo de token.
+     * @param tipo El tipo de token (ej. "ID", "MAS").
+     * @return El código, o -1 si el tipo no existe.
+     */
+    public static int codigo(String tipo) {
+        Integer codigo = CODIGOS.get(tipo);
+        return (codigo != null) ? codigo : -1;
+    }
+
+    /** La cantidad de tipos de token; los códigos van de 0 ({@link #FIN}) a este valor menos uno. */
+    public static int cantidadTipos() {
+        return TIPOS.size();
+    }
+
+    /**
+     * Obtiene el único lexema posible de un tipo de token (por ejemplo "+" para MAS).
+     * @return El lexema, o null si el tipo admite varios lexemas (ID, CINT, TYPE, ...).
+     */
+    public static String lexemaCanonico(int codigo) {
+        return LEXEMA_TIPO[codigo];
+    }
+
+    /**
+     * Indica si los tokens de este tipo se agregan a la tabla de símbolos (identificadores y tipos de datos).
+     */
+    public static boolean esRegistrable(int codigo) {
+        return REGISTRABLE[codigo];
+    }
+
+    /** Tamaño inicial de la ventana cuando se lee desde un {@link Reader}. */
+    public static final int TAMANO_VENTANA = 8192;
+
+    private char[] buf;
+    private int lim;
+    private Reader fuente;
+    private int base;            // Desplazamiento absoluto de buf[0] dentro de la entrada
+    private int pos;
+    private int inicio;
+    private int inicioAbsoluto;
+    private int estadoAceptado;
+    private int linea = 1;
+    private int lineaToken = 1;
+    private int inicioLinea = 0;       // Desplazamiento absoluto donde empieza la línea actual
+    private int inicioLineaToken = 0;  // Desplazamiento absoluto donde empieza la línea del último lexema
+    private boolean comentarioSinCerrar = false;
+    private int alcance;         // Primera posición absoluta que el autómata no llegó a examinar
+    private PoolLexemas.Cache cacheLexemas;
+    private int idLexema = -1;   // Identificador del último lexema en el pool, calculado al pedirlo
+    private boolean saltarRachas = true;
+
+    // Modo de bytes ASCII sobre un archivo mapeado en memoria (ver mapear)
+    private ByteBuffer bytes;
+    private FileChannel canal;
+    private Charset juegoCaracteres;
+    private byte[] auxiliar;
+
+    /**
+     * Crea un escáner sobre una entrada que ya está completa en memoria.
+     * @param fuente Los caracteres del código fuente.
+     */
+    public Escaner(char[] fuente) {
+        this(fuente, 0, fuente.length, 1);
+    }
+
+    /**
+     * Crea un escáner sobre una parte de la entrada. Los desplazamientos siguen siendo relativos a todo el arreglo.
+     * @param fuente Los caracteres del código fuente.
+     * @param desde El primer carácter a analizar; no debe caer dentro de un comentario ni de un lexema.
+     * @param hasta La posición donde termina el análisis (exclusiva).
+     * @param lineaInicial El número de línea del carácter en {@code desde}.
+     */
+    public Escaner(char[] fuente, int desde, int hasta, int lineaInicial) {
+        this.buf = fuente;
+        this.pos = desde;
+        this.lim = hasta;
+        this.linea = lineaInicial;
+        this.lineaToken = lineaInicial;
+        // Las columnas se cuentan desde el inicio físico de la línea, aunque quede antes de desde
+        int p = desde;
+        while (p > 0 && fuente[p - 1] != '\n') {
+            p--;
+        }
+        this.inicioLinea = p;
+        this.inicioLineaToken = p;
+    }
+
+    /**
+     * Crea un escáner que lee la entrada por partes, con una ventana acotada.
+     * La ventana solo crece si un lexema (o la línea de un literal sin cerrar) no cabe en ella;
+     * los espacios y comentarios nunca se retienen.
+     * @param fuente El lector del código fuente.
+     * @param tamanoVentana La capacidad inicial de la ventana en caracteres.
+     */
+    public Escaner(Reader fuente, int tamanoVentana) {
+        this.buf = new char[Math.max(tamanoVentana, 16)];
+        this.fuente = fuente;
+    }
+
+    private Escaner(ByteBuffer bytes, FileChannel canal, Charset juegoCaracteres) {
+        this.bytes = bytes.order(ByteOrder.LITTLE_ENDIAN);
+        this.canal = canal;
+        this.juegoCaracteres = juegoCaracteres;
+        this.lim = bytes.limit();
+        this.auxiliar = new byte[64];
+    }
+
+    /**
+     * Crea un escáner que mapea el archivo en memoria y recorre directamente sus bytes mientras sean ASCII,
+     * sin decodificarlos a caracteres. Al encontrar el primer byte no ASCII continúa, desde el lexema en curso,
+     * con la decodificación normal, de modo que los errores por caracteres acentuados se siguen reportando.
+     * @param ruta El archivo del código fuente.
+     * @param juegoCaracteres La codificación del archivo.
+     * @throws IOException Si no se puede abrir o mapear el archivo.
+     */
+    public static Escaner mapear(Path ruta, Charset juegoCaracteres) throws IOException {
+        FileChannel canal = FileChannel.open(ruta, StandardOpenOption.READ);
+        try {
+            long tamano = canal.size();
+            boolean compatibleConAscii = juegoCaracteres.equals(StandardCharsets.UTF_8)
+                    || juegoCaracteres.equals(StandardCharsets.US_ASCII)
+                    || juegoCaracteres.equals(StandardCharsets.ISO_8859_1);
+            if (!compatibleConAscii || tamano > Integer.MAX_VALUE) {
+                return new Escaner(Channels.newReader(canal, juegoCaracteres.newDecoder(), TAMANO_VENTANA), TAMANO_VENTANA);
+            }
+            return new Escaner(canal.map(FileChannel.MapMode.READ_ONLY, 0, tamano), canal, juegoCaracteres);
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Avanza hasta el siguiente lexema.
+     * @return El código del tipo de token (positivo), {@link #FIN} o un código de error (negativo).
+     */
+    public int siguiente() {
+        int codigo;
+        alcance = 0;
+        idLexema = -1;
+        do {
+            codigo = (bytes != null) ? escanearAscii() : escanear();
+        } while (codigo == SALTAR);
+        return codigo;
+    }
+
+    // Una pasada del autómata sobre la ventana de caracteres
+    private int escanear() {
+        if (pos >= lim) {
+            rellenar(pos);
+            if (pos >= lim) {
+                return finDeEntrada();
+            }
+        }
+        inicio = pos;
+        inicioAbsoluto = base + pos;
+        lineaToken = linea;
+        inicioLineaToken = inicioLinea;
+        int estado = INICIO;
+        int aceptado = MUERTO;
+        int finAceptado = pos;
+        int p = pos;
+        int repetidos = 0;
+        for (;;) {
+            if (p >= lim) {
+                // Los espacios y comentarios se pueden descartar; un lexema se conserva completo
+                boolean descartable = estado == ESPACIO
+                        || estado == COMENTARIO || estado == COMENTARIO_AST || estado == COMENTARIO_FIN;
+                int corrimiento = rellenar(descartable ? p : inicio);
+                p -= corrimiento;
+                finAceptado -= corrimiento;
+                if (p >= lim) {
+                    break;
+                }
+            }
+            char c = buf[p];
+            int destino = TRANSICIONES[estado * COLUMNAS + (c < NO_ASCII_LETRA ? c : columnaNoAscii(c))];
+            if (destino == MUERTO) {
+                break;
+            }
+            repetidos = (destino == estado) ? repetidos + 1 : 0;
+            estado = destino;
+            p++;
+            if (c == '\n') {
+                linea++;
+                inicioLinea = base + p;
+            }
+            if (ACEPTACION[estado] != MUERTO) {
+                aceptado = ACEPTACION[estado];
+                estadoAceptado = estado;
+                finAceptado = p;
+            }
+            if (repetidos >= UMBRAL_RACHA && estado < ESTADOS_FIJOS && RACHA[estado] && saltarRachas) {
+                p = saltarRacha(estado, p);
+                repetidos = 0;
+                if (ACEPTACION[estado] != MUERTO) {
+                    finAceptado = p;
+                }
+            }
+        }
+        return concluir(estado, p, aceptado, finAceptado);
+    }
+
+    // Una pasada del autómata directamente sobre los bytes del archivo mapeado
+    private int escanearAscii() {
+        if (pos >= lim) {
+            return finDeEntrada();
+        }
+        inicio = pos;
+        inicioAbsoluto = pos;
+        lineaToken = linea;
+        inicioLineaToken = inicioLinea;
+        int estado = INICIO;
+        int aceptado = MUERTO;
+        int finAceptado = pos;
+        int p = pos;
+        int repetidos = 0;
+        while (p < lim) {
+            int c = bytes.get(p);
+            if (c < 0) {
+                // Byte no ASCII: se repite este lexema con la decodificación normal
+                linea = lineaToken;
+                inicioLinea = inicioLineaToken;
+                cambiarADecodificacion();
+                return SALTAR;
+            }
+            int destino = TRANSICIONES[estado * COLUMNAS + c];
+            if (destino == MUERTO) {
+                break;
+            }
+            repetidos = (destino == estado) ? repetidos + 1 : 0;
+            estado = destino;
+            p++;
+            if (c == '\n') {
+                linea++;
+                inicioLinea = base + p;
+            }
+            if (ACEPTACION[estado] != MUERTO) {
+                aceptado = ACEPTACION[estado];
+                estadoAceptado = estado;
+                finAceptado = p;
+            }
+            if (repetidos >= UMBRAL_RACHA && estado < ESTADOS_FIJOS && RACHA[estado] && saltarRachas) {
+                p = saltarRachaAscii(estado, p);
+                repetidos = 0;
+                if (ACEPTACION[estado] != MUERTO) {
+                    finAceptado = p;
+                }
+            }
+        }
+        return concluir(estado, p, aceptado, finAceptado);
+    }
+
+    /**
+     * Avanza sobre los caracteres de la ventana que dejan al autómata en el mismo estado de racha.
+     * Los saltos de línea nunca forman parte de una racha, para no perder la cuenta de líneas.
+     * @return La posición del primer carácter que no pertenece a la racha (o el final de la ventana).
+     */
+    private int saltarRacha(int estado, int p) {
+        char[] b = buf;
+        int fin = lim;
+        switch (estado) {
+            case IDENT:
+                while (p < fin && esLetraODigitoAscii(b[p])) {
+                    p++;
+                }
+                break;
+            case NUMERO:
+                while (p < fin && b[p] >= '0' && b[p] <= '9') {
+                    p++;
+                }
+                break;
+            case LITERAL:
+                while (p < fin && b[p] != '"' && b[p] != '\n' && b[p] != '\r') {
+                    p++;
+                }
+                break;
+            case ESPACIO:
+                while (p < fin && (b[p] == ' ' || b[p] == '\t')) {
+                    p++;
+                }
+                break;
+            default: // COMENTARIO
+                while (p < fin && b[p] != '*' && b[p] != '\n') {
+                    p++;
+                }
+                break;
+        }
+        return p;
+    }
+
+    private static boolean esLetraODigitoAscii(char c) {
+        char minuscula = (char) (c | 0x20);
+        return (minuscula >= 'a' && minuscula <= 'z') || (c >= '0' && c <= '9');
+    }
+
+    /**
+     * Igual que {@link #saltarRacha(int, int)}, sobre los bytes del archivo mapeado y examinando ocho bytes
+     * por iteración. Un byte no ASCII siempre termina la racha, para que el autómata cambie de modo.
+     * Los últimos bytes (menos de ocho) los recorre el autómata.
+     */
+    private int saltarRachaAscii(int estado, int p) {
+        while (p + 8 <= lim) {
+            long x = bytes.getLong(p);
+            long fuera = bytesFueraDeRacha(estado, x & BAJOS) | (x & ALTOS);
+            if (fuera != 0) {
+                return p + (Long.numberOfTrailingZeros(fuera) >>> 3);
+            }
+            p += 8;
+        }
+        return p;
+    }
+
+    /**
+     * Marca (con el bit alto) cada byte que saca al autómata del estado de racha.
+     * @param x Ocho bytes de siete bits; cada prueba se hace byte por byte, sin acarreo entre ellos.
+     */
+    private static long bytesFueraDeRacha(int estado, long x) {
+        switch (estado) {
+            case IDENT:
+                return ~(enRango(x | (UNOS * 0x20), 'a', 'z') | enRango(x, '0', '9')) & ALTOS;
+            case NUMERO:
+                return ~enRango(x, '0', '9') & ALTOS;
+            case LITERAL:
+                return igual(x, '"') | igual(x, '\n') | igual(x, '\r');
+            case ESPACIO:
+                return ~(igual(x, ' ') | igual(x, '\t')) & ALTOS;
+            default: // COMENTARIO
+                return igual(x, '*') | igual(x, '\n');
+        }
+    }
+
+    // Bit alto de cada byte igual a c
+    private static long igual(long x, char c) {
+        long diferencia = x ^ (UNOS * c);
+        return ~(diferencia + BAJOS) & ALTOS;
+    }
+
+    // Bit alto de cada byte entre desde y hasta, inclusive
+    private static long enRango(long x, char desde, char hasta) {
+        long mayorOIgual = x + UNOS * (0x80 - desde);
+        long mayor = x + UNOS * (0x7F - hasta);
+        return mayorOIgual & ~mayor & ALTOS;
+    }
+
+    // Decide qué se reconoció al detenerse el autómata y deja pos al final del lexema
+    private int concluir(int estado, int p, int aceptado, int finAceptado) {
+        // El autómata examinó hasta el carácter en p (o el final de la entrada) antes de detenerse
+        alcance = Math.max(alcance, base + p + 1);
+        if (p >= lim && (estado == COMENTARIO || estado == COMENTARIO_AST)) {
+            pos = lim;
+            estadoAceptado = MUERTO;
+            comentarioSinCerrar = true;
+            return ERROR_COMENTARIO;
+        }
+        if (aceptado == SALTAR) {
+            pos = finAceptado;
+            return SALTAR;
+        }
+        if (aceptado == MUERTO) {
+            pos = inicio + 1;
+            estadoAceptado = MUERTO;
+            return ERROR_CARACTER;
+        }
+        pos = finAceptado;
+        return aceptado;
+    }
+
+    private int finDeEntrada() {
+        inicio = pos;
+        inicioAbsoluto = base + pos;
+        lineaToken = linea;
+        inicioLineaToken = inicioLinea;
+        alcance = Math.max(alcance, inicioAbsoluto + 1);
+        cerrarCanal();
+        return FIN;
+    }
+
+    /**
+     * Abandona el modo de bytes: lo que resta del archivo, desde el lexema en curso, se lee con el decodificador.
+     * Como todo lo anterior era ASCII, los desplazamientos en bytes y en caracteres coinciden hasta este punto.
+     */
+    private void cambiarADecodificacion() {
+        try {
+            canal.position(inicio);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error al leer el código fuente", e);
+        }
+        fuente = Channels.newReader(canal, juegoCaracteres.newDecoder(), TAMANO_VENTANA);
+        canal = null;
+        bytes = null;
+        auxiliar = null;
+        buf = new char[TAMANO_VENTANA];
+        base = inicio;
+        pos = 0;
+        lim = 0;
+    }
+
+    /**
+     * Libera el archivo o el lector de la entrada. Solo hace falta si el análisis se abandona antes del final,
+     * porque al llegar al final se liberan solos.
+     */
+    public void cerrar() {
+        cerrarCanal();
+        if (fuente != null) {
+            try {
+                fuente.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error al cerrar el código fuente", e);
+            }
+            fuente = null;
+        }
+    }
+
+    private void cerrarCanal() {
+        if (canal != null) {
+            try {
+                canal.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error al cerrar el código fuente", e);
+            }
+            canal = null;
+        }
+    }
+
+    /**
+     * Lee más caracteres de la fuente, descartando lo que hay antes de {@code preservar}.
+     * @return Cuántas posiciones se recorrió el contenido de la ventana hacia el inicio.
+     */
+    private int rellenar(int preservar) {
+        if (fuente == null) {
+            return 0;
+        }
+        int corrimiento = preservar;
+        if (corrimiento > 0) {
+            System.arraycopy(buf, corrimiento, buf, 0, lim - corrimiento);
+            lim -= corrimiento;
+            base += corrimiento;
+            pos -= corrimiento;
+            inicio -= corrimiento;
+        }
+        if (lim == buf.length) {
+            buf = Arrays.copyOf(buf, buf.length * 2);
+        }
+        try {
+            int leidos;
+            do {
+                leidos = fuente.read(buf, lim, buf.length - lim);
+            } while (leidos == 0);
+            if (leidos < 0) {
+                fuente.close();
+                fuente = null;
+            } else {
+                lim += leidos;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error al leer el código fuente", e);
+        }
+        return corrimiento;
+    }
+
+    /**
+     * Obtiene el texto del último lexema reconocido. Las palabras reservadas y los operadores
+     * devuelven siempre la misma instancia.
+     */
+    public String lexema() {
+        String canonico = LEXEMA_ESTADO[estadoAceptado];
+        if (canonico != null) {
+            return canonico;
+        }
+        if (getIdLexema() >= 0) {
+            return cacheLexemas.lexema(idLexema);
+        }
+        int longitud = pos - inicio;
+        if (bytes != null) {
+            if (auxiliar.length < longitud) {
+                auxiliar = new byte[Math.max(longitud, auxiliar.length * 2)];
+            }
+            bytes.get(inicio, auxiliar, 0, longitud);
+            return new String(auxiliar, 0, longitud, StandardCharsets.ISO_8859_1);
+        }
+        return new String(buf, inicio, longitud);
+    }
+
+    /**
+     * Activa o desactiva el recorrido rápido de rachas (espacios, identificadores, números, literales y
+     * comentarios). Desactivado, cada carácter pasa por la tabla del autómata; el resultado es el mismo.
+     */
+    void setSaltarRachas(boolean saltarRachas) {
+        this.saltarRachas = saltarRachas;
+    }
+
+    /**
+     * Hace que los identificadores y tipos de datos se internen en un pool de lexemas: {@link #lexema()}
+     * devuelve siempre la misma instancia para el mismo texto y {@link #getIdLexema()} su identificador.
+     * @param cache La caché del pool para este escáner.
+     */
+    public void setCacheLexemas(PoolLexemas.Cache cache) {
+        this.cacheLexemas = cache;
+    }
+
+    /**
+     * Identificador del último lexema en el pool de lexemas.
+     * @return El identificador, o -1 si el lexema no se registra en la tabla de símbolos o no hay pool.
+     */
+    public int getIdLexema() {
+        int codigo = ACEPTACION[estadoAceptado];
+        if (idLexema < 0 && cacheLexemas != null && codigo > 0 && codigo != SALTAR && REGISTRABLE[codigo]) {
+            int longitud = pos - inicio;
+            idLexema = (bytes != null)
+                    ? cacheLexemas.internar(bytes, inicio, longitud)
+                    : cacheLexemas.internar(buf, inicio, longitud);
+        }
+        return idLexema;
+    }
+
+    /** Indica si la entrada terminó dentro de un comentario (el último código fue {@link #ERROR_COMENTARIO}). */
+    public boolean terminoEnComentario() {
+        return comentarioSinCerrar;
+    }
+
+    /** Desplazamiento (base 0) del último lexema dentro de toda la entrada. */
+    public int getInicio() {
+        return inicioAbsoluto;
+    }
+
+    /** Longitud en caracteres del último lexema. */
+    public int getLongitud() {
+        return pos - inicio;
+    }
+
+    /** Línea (base 1) en la que comienza el último lexema. */
+    public int getLinea() {
+        return lineaToken;
+    }
+
+    /**
+     * Posición absoluta (exclusiva) hasta donde se examinó la entrada para reconocer el último lexema, incluidos
+     * los espacios y comentarios descartados antes de él. El final de la entrada cuenta como una posición más.
+     * Si el texto a partir de esa posición cambia, el lexema se reconoce igual.
+     */
+    public int getAlcance() {
+        return alcance;
+    }
+
+    /** Columna (base 1) donde empieza el último lexema dentro de su línea. */
+    public int getColumna() {
+        return inicioAbsoluto - inicioLineaToken + 1;
+    }
+}
@@ -0,0 +1,274 @@
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Evalúa un {@link ProgramaNPI} sobre columnas: cada variable toma sus valores de una columna de enteros y el
+ * resultado es otra columna, con una fila por cada fila de la entrada.
+ * <p>
+ * En lugar de recorrer el programa una vez por fila, se recorre una vez por bloque de filas: cada elemento de la
+ * pila es un bloque de {@value #FILAS_POR_BLOQUE} enteros, que cabe en la caché, y cada operación es un ciclo
+ * simple sobre dos bloques que el compilador JIT puede vectorizar. Cuando hay muchas filas, los bloques se reparten
+ * en un {@link ForkJoinPool} como las unidades de {@link AnalizadorLotes}. Una división entre cero no detiene la
+ * evaluación: esa fila se marca como error y las demás siguen.
+ */
+public class EvaluadorColumnas {
+    // Múltiplo de 64, para que cada bloque use palabras propias del arreglo de errores
+    static final int FILAS_POR_BLOQUE = 1024;
+    // Bloques que una tarea procesa sin volver a dividirse
+    private static final int BLOQUES_POR_TAREA = 16;
+
+    /** El mensaje de las filas con una división entre cero, el mismo de {@link AnalizadorSintactico#ejecutarNPI(Map)}. */
+    public static final String DIVISION_ENTRE_CERO = "División entre cero en la evaluación de la expresión.";
+
+    /** La columna de resultados y las filas que no se pudieron evaluar. */
+    public static class Resultado {
+        private final int[] valores;
+        private final long[] errores;
+        private final int cantidadErrores;
+
+        private Resultado(int[] valores, long[] errores) {
+            this.valores = valores;
+            this.errores = errores;
+            int cantidad = 0;
+            for (long palabra : errores) {
+                cantidad += Long.bitCount(palabra);
+            }
+            this.cantidadErrores = cantidad;
+        }
+
+        /** La columna de resultados; en las filas con error vale 0. No es una copia. */
+        public int[] getValores() {
+            return valores;
+        }
+
+        public int cantidadFilas() {
+            return valores.length;
+        }
+
+        public boolean esError(int fila) {
+            return (errores[fila >>> 6] & (1L << fila)) != 0;
+        }
+
+        /** Por qué no se pudo evaluar una fila, o null si se evaluó. */
+        public String getError(int fila) {
+            return esError(fila) ? DIVISION_ENTRE_CERO : null;
+        }
+
+        public int cantidadErrores() {
+            return cantidadErrores;
+        }
+
+        /** Las filas con error, como un conjunto nuevo. */
+        public BitSet getErrores() {
+            return BitSet.valueOf(errores);
+        }
+    }
+
+    /**
+     * Evalúa el programa con una columna por variable, en el orden de sus casillas (ver {@link ProgramaNPI#getVariables()}).
+     * @see #evaluar(ProgramaNPI, IntBuffer[], ForkJoinPool)
+     */
+    public static Resultado evaluar(ProgramaNPI programa, int[]... columnas) {
+        IntBuffer[] buffers = new IntBuffer[columnas.length];
+        for (int i = 0; i < columnas.length; i++) {
+            buffers[i] = IntBuffer.wrap(columnas[i]);
+        }
+        return evaluar(programa, buffers, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Evalúa el programa con las columnas de cada variable por nombre.
+     * @throws IllegalArgumentException Si falta la columna de alguna variable, o si la expresión no tiene variables
+     *         y por lo tanto ninguna columna de la que tomar la cantidad de filas.
+     * @see #evaluar(ProgramaNPI, IntBuffer[], ForkJoinPool)
+     */
+    public static Resultado evaluar(ProgramaNPI programa, Map<String, int[]> columnas) {
+        String[] variables = programa.getVariables();
+        IntBuffer[] buffers = new IntBuffer[variables.length];
+        for (int i = 0; i < variables.length; i++) {
+            int[] columna = columnas.get(variables[i]);
+            if (columna == null) {
+                throw new IllegalArgumentException("No se proporcionó un valor para la variable '" + variables[i] + "'.");
+            }
+            buffers[i] = IntBuffer.wrap(columna);
+        }
+        return evaluar(programa, buffers, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Evalúa el programa sobre columnas que pueden estar fuera del heap, en el pool común de fork/join.
+     * @see #evaluar(ProgramaNPI, IntBuffer[], ForkJoinPool)
+     */
+    public static Resultado evaluar(ProgramaNPI programa, IntBuffer[] columnas) {
+        return evaluar(programa, columnas, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Evalúa el programa fila por fila sobre las columnas. La cantidad de filas es la de la primera columna; una
+     * expresión sin variables no tiene de dónde tomarla, así que se evalúa con
+     * {@link #evaluar(ProgramaNPI, int, IntBuffer[], ForkJoinPool)}.
+     * @param columnas Una columna por variable, en el orden de sus casillas; cada una aporta sus elementos desde su
+     *        posición hasta su límite, que deben ser la misma cantidad en todas. No se modifican, ni su posición.
+     * @param pool El pool donde se reparten los bloques, si son suficientes para repartirlos.
+     * @return Un resultado por fila; las filas con una división entre cero se marcan como error.
+     * @throws IllegalArgumentException Si no hay ninguna columna, si faltan columnas o si no todas tienen la misma
+     *         cantidad de filas.
+     */
+    public static Resultado evaluar(ProgramaNPI programa, IntBuffer[] columnas, ForkJoinPool pool) {
+        if (columnas.length == 0) {
+            throw new IllegalArgumentException("Sin columnas no se sabe cuántas filas evaluar; "
+                    + "para una expresión sin variables hay que indicar la cantidad de filas.");
+        }
+        return evaluar(programa, columnas[0].remaining(), columnas, pool);
+    }
+
+    /**
+     * Evalúa el programa sobre una cantidad de filas dada. Es la forma de evaluar una expresión sin variables, que
+     * da el mismo valor (o el mismo error) en todas las filas.
+     * @param filas La cantidad de filas; las columnas de las variables deben tener exactamente esa cantidad.
+     * @throws IllegalArgumentException Si la cantidad es negativa, si faltan columnas o si alguna no tiene esa
+     *         cantidad de filas.
+     * @see #evaluar(ProgramaNPI, IntBuffer[], ForkJoinPool)
+     */
+    public static Resultado evaluar(ProgramaNPI programa, int filas, IntBuffer[] columnas, ForkJoinPool pool) {
+        if (filas < 0) {
+            throw new IllegalArgumentException("La cantidad de filas no puede ser negativa: " + filas);
+        }
+        int cantidadVariables = programa.getVariables().length;
+        if (columnas.length < cantidadVariables) {
+            throw new IllegalArgumentException("Se esperaban " + cantidadVariables + " columnas y se recibieron " + columnas.length + ".");
+        }
+        for (int i = 0; i < cantidadVariables; i++) {
+            if (columnas[i].remaining() != filas) {
+                throw new IllegalArgumentException("La columna " + i + " tiene " + columnas[i].remaining()
+                        + " filas y se esperaban " + filas + ".");
+            }
+        }
+        int[] valores = new int[filas];
+        long[] errores = new long[(filas + 63) >>> 6];
+        int bloques = (filas + FILAS_POR_BLOQUE - 1) / FILAS_POR_BLOQUE;
+        Tarea tarea = new Tarea(programa, columnas, valores, errores, 0, bloques);
+        if (bloques <= BLOQUES_POR_TAREA) {
+            tarea.compute(); // Pocas filas: repartirlas costaría más que evaluarlas aquí
+        } else {
+            pool.invoke(tarea);
+        }
+        return new Resultado(valores, errores);
+    }
+
+    // Evalúa las filas [inicio, inicio + n) con la pila de bloques dada
+    private static void evaluarBloque(int[] codigo, IntBuffer[] columnas, int[][] pila, int inicio, int n,
+                                      int[] valores, long[] errores) {
+        int tope = 0;
+        int pc = 0;
+        boolean hayErrores = false;
+        while (pc < codigo.length) {
+            switch (codigo[pc++]) {
+                case ProgramaNPI.CONSTANTE:
+                    Arrays.fill(pila[tope++], 0, n, codigo[pc++]);
+                    break;
+                case ProgramaNPI.VARIABLE: {
+                    IntBuffer columna = columnas[codigo[pc++]];
+                    columna.get(columna.position() + inicio, pila[tope++], 0, n);
+                    break;
+                }
+                case ProgramaNPI.SUMA: {
+                    tope--;
+                    int[] a = pila[tope - 1];
+                    int[] b = pila[tope];
+                    for (int i = 0; i < n; i++) {
+                        a[i] += b[i];
+                    }
+                    break;
+                }
+                case ProgramaNPI.RESTA: {
+                    tope--;
+                    int[] a = pila[tope - 1];
+                    int[] b = pila[tope];
+                    for (int i = 0; i < n; i++) {
+                        a[i] -= b[i];
+                    }
+                    break;
+                }
+                case ProgramaNPI.MULTIPLICACION: {
+                    tope--;
+                    int[] a = pila[tope - 1];
+                    int[] b = pila[tope];
+                    for (int i = 0; i < n; i++) {
+                        a[i] *= b[i];
+                    }
+                    break;
+                }
+                default: {
+                    tope--;
+                    int[] a = pila[tope - 1];
+                    int[] b = pila[tope];
+                    for (int i = 0; i < n; i++) {
+                        int divisor = b[i];
+                        if (divisor == 0) {
+                            int fila = inicio + i;
+                            errores[fila >>> 6] |= 1L << fila;
+                            a[i] = 0;
+                            hayErrores = true;
+                        } else {
+                            a[i] /= divisor;
+                        }
+                    }
+                    break;
+                }
+            }
+        }
+        if (hayErrores) {
+            // Las operaciones posteriores a la división siguieron con el 0 provisional; el resultado de la fila es 0.
+            // El bloque empieza en un múltiplo de 64, así que sus palabras de errores son solo suyas.
+            int[] resultado = pila[0];
+            for (int palabra = inicio >>> 6; palabra < (inicio + n + 63) >>> 6; palabra++) {
+                for (long bits = errores[palabra]; bits != 0; bits &= bits - 1) {
+                    resultado[(palabra << 6) + Long.numberOfTrailingZeros(bits) - inicio] = 0;
+                }
+            }
+        }
+        System.arraycopy(pila[0], 0, valores, inicio, n);
+    }
+
+    // Evalúa los bloques [desde, hasta), dividiéndolos en dos mientras sean muchos
+    private static class Tarea extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final ProgramaNPI programa;
+        private final IntBuffer[] columnas;
+        private final int[] valores;
+        private final long[] errores;
+        private final int desde;
+        private final int hasta;
+
+        private Tarea(ProgramaNPI programa, IntBuffer[] columnas, int[] valores, long[] errores, int desde, int hasta) {
+            this.programa = programa;
+            this.columnas = columnas;
+            this.valores = valores;
+            this.errores = errores;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        protected void compute() {
+            if (hasta - desde <= BLOQUES_POR_TAREA) {
+                int[][] pila = new int[programa.getProfundidad()][FILAS_POR_BLOQUE];
+                for (int b = desde; b < hasta; b++) {
+                    int inicio = b * FILAS_POR_BLOQUE;
+                    int n = Math.min(FILAS_POR_BLOQUE, valores.length - inicio);
+                    evaluarBloque(programa.codigo, columnas, pila, inicio, n, valores, errores);
+                }
+                return;
+            }
+            int mitad = (desde + hasta) >>> 1;
+            invokeAll(new Tarea(programa, columnas, valores, errores, desde, mitad),
+                      new Tarea(programa, columnas, valores, errores, mitad, hasta));
+        }
+    }
+}
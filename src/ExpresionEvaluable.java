@@ -0,0 +1,18 @@
+/**
+ * Una expresión lista para evaluarse con el valor de cada variable en su casilla. La implementan
+ * {@link ProgramaNPI}, que interpreta la NPI compilada, y las clases que genera {@link CompiladorJVM}.
+ * <p>
+ * La interfaz no promete que una instancia pueda evaluarse desde varios hilos a la vez; cada implementación dice
+ * si puede. Un {@link ProgramaNPI} guarda su pila, así que cada hilo necesita su propia {@link ProgramaNPI#copia()}.
+ * Las clases de {@link CompiladorJVM} no guardan estado y una misma instancia sirve para todos los hilos. Quien
+ * recibe una ExpresionEvaluable sin saber de dónde viene debe suponer lo primero.
+ */
+public interface ExpresionEvaluable {
+    /**
+     * Evalúa la expresión.
+     * @param valores El valor de cada variable, en su casilla (ver {@link ProgramaNPI#getVariables()}).
+     * @throws ArithmeticException Si hay una división entre cero.
+     * @throws IllegalArgumentException Si faltan valores.
+     */
+    int eval(int[] valores);
+}
@@ -1,14 +1,27 @@
+import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
 import java.nio.file.Path;
 
 public class GeneradorArchivos {
 
     public static void generarArchivoTokens(Path filePath, List<Token> tokens) {
+        generarArchivoTokens(filePath, tokens.iterator());
+    }
+
+    /**
+     * Escribe el archivo de tokens a medida que se leen del flujo, sin necesidad de tenerlos todos en memoria.
+     */
+    public static void generarArchivoTokens(Path filePath, Iterator<Token> tokens) {
         try (FileWriter writer = new FileWriter(filePath.toFile())) { 
-            for (Token token : tokens) {
+            while (tokens.hasNext()) {
+                Token token = tokens.next();
                 writer.write("<" + token.getTipo() + ", " + token.getLexema() + ", Linea: " + token.getLinea() + ">\n");
             }
         } catch (IOException e) {
@@ -16,6 +29,26 @@ public class GeneradorArchivos {
         }
     }
 
+    /**
+     * Escribe el archivo de tokens leyendo el buffer por columnas; los lexemas se copian directamente de la fuente.
+     */
+    public static void generarArchivoTokens(Path filePath, BufferTokens tokens) {
+        char[] fuente = tokens.getFuente();
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath.toFile()))) {
+            for (int i = 0; i < tokens.tamano(); i++) {
+                writer.write('<');
+                writer.write(Escaner.tipo(tokens.tipo(i)));
+                writer.write(", ");
+                writer.write(fuente, tokens.inicio(i), tokens.longitud(i));
+                writer.write(", Linea: ");
+                writer.write(Integer.toString(tokens.linea(i)));
+                writer.write(">\n");
+            }
+        } catch (IOException e) {
+            System.out.println("Error al escribir el archivo de tokens en " + filePath + ": " + e.getMessage());
+        }
+    }
+
     public static void generarArchivoTablaSimbolos(Path filePath, List<EntradaTablaSimbolos> entradasTabla) {
         try (FileWriter writer = new FileWriter(filePath.toFile())) {
             for (EntradaTablaSimbolos entrada : entradasTabla) {
@@ -26,24 +59,118 @@ public class GeneradorArchivos {
         }
     }
 
+    /**
+     * Escribe la tabla de símbolos en formato binario (.tabx), que se puede abrir sin volver a analizar el código
+     * fuente (ver {@link ArchivoTablaSimbolos}).
+     */
+    public static void generarArchivoTablaSimbolosBinario(Path filePath, List<EntradaTablaSimbolos> entradasTabla) {
+        try {
+            ArchivoTablaSimbolos.escribir(filePath, entradasTabla);
+        } catch (IOException e) {
+            System.out.println("Error al escribir el archivo binario de tabla de símbolos en " + filePath + ": " + e.getMessage());
+        }
+    }
+
     public static void generarArbolSintactico(Path filePath, Node raiz) {
         try (FileWriter writer = new FileWriter(filePath.toFile())) {
             writer.write("Árbol de Sintaxis para Expresiones Aritméticas:\n\n");
-            escribirNodo(writer, raiz, "", true);
+            escribirNodos(writer, raiz);
+        } catch (IOException e) {
+            System.out.println("Error al escribir el archivo del árbol sintáctico en " + filePath + ": " + e.getMessage());
+        }
+    }
+
+    // Un nodo pendiente de escribir, con la sangría que le corresponde
+    private static class NodoPendiente {
+        private final Node nodo;
+        private final String prefijo;
+        private final boolean esUltimo;
+
+        private NodoPendiente(Node nodo, String prefijo, boolean esUltimo) {
+            this.nodo = nodo;
+            this.prefijo = prefijo;
+            this.esUltimo = esUltimo;
+        }
+    }
+
+    // Escribe el árbol en preorden con una pila explícita, así un árbol muy profundo no desborda la pila de llamadas
+    private static void escribirNodos(FileWriter writer, Node raiz) throws IOException {
+        Deque<NodoPendiente> pendientes = new ArrayDeque<>();
+        pendientes.push(new NodoPendiente(raiz, "", true));
+        while (!pendientes.isEmpty()) {
+            NodoPendiente pendiente = pendientes.pop();
+            Node nodo = pendiente.nodo;
+            if (nodo == null) continue;
+
+            writer.write(pendiente.prefijo + (pendiente.esUltimo ? "└── " : "├── ") + nodo.getValor() + "\n");
+
+            List<Node> hijos = nodo.getHijos();
+            String prefijoHijos = pendiente.prefijo + (pendiente.esUltimo ? "    " : "│   ");
+            for (int i = hijos.size() - 1; i >= 0; i--) {
+                pendientes.push(new NodoPendiente(hijos.get(i), prefijoHijos, i == hijos.size() - 1));
+            }
+        }
+    }
+
+    /**
+     * Escribe el árbol abstracto con el mismo formato que el árbol de derivación: cada operador con sus dos
+     * operandos, sin no terminales, paréntesis ni producciones vacías.
+     */
+    public static void generarArbolSintactico(Path filePath, ArbolPlano arbol) {
+        try (FileWriter writer = new FileWriter(filePath.toFile())) {
+            writer.write("Árbol de Sintaxis para Expresiones Aritméticas:\n\n");
+            // Preorden con una pila explícita; el último hijo es el que no tiene siguiente hermano
+            Deque<Integer> nodos = new ArrayDeque<>();
+            Deque<String> prefijos = new ArrayDeque<>();
+            nodos.push(arbol.getRaiz());
+            prefijos.push("");
+            List<Integer> hijos = new ArrayList<>(2);
+            while (!nodos.isEmpty()) {
+                int nodo = nodos.pop();
+                String prefijo = prefijos.pop();
+                boolean esUltimo = arbol.siguienteHermano(nodo) == ArbolPlano.NINGUNO;
+                writer.write(prefijo + (esUltimo ? "└── " : "├── ") + arbol.valor(nodo) + "\n");
+
+                hijos.clear();
+                for (int hijo = arbol.primerHijo(nodo); hijo != ArbolPlano.NINGUNO; hijo = arbol.siguienteHermano(hijo)) {
+                    hijos.add(hijo);
+                }
+                String prefijoHijos = prefijo + (esUltimo ? "    " : "│   ");
+                for (int i = hijos.size() - 1; i >= 0; i--) {
+                    nodos.push(hijos.get(i));
+                    prefijos.push(prefijoHijos);
+                }
+            }
         } catch (IOException e) {
             System.out.println("Error al escribir el archivo del árbol sintáctico en " + filePath + ": " + e.getMessage());
         }
     }
 
-    private static void escribirNodo(FileWriter writer, Node nodo, String prefijo, boolean esUltimo) throws IOException {
-        if (nodo == null) return;
+    /**
+     * Escribe la derivación por la izquierda de un programa: una producción de la tabla por línea, en el orden
+     * en que las aplicó el analizador (ver {@link AnalizadorLL1#getDerivacion()}).
+     */
+    public static void generarArchivoDerivacion(Path filePath, TablaLL1 tabla, int[] derivacion) {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath.toFile()))) {
+            writer.write("Árbol de derivación (o traza de análisis):\n");
+            for (int produccion : derivacion) {
+                writer.write(tabla.texto(produccion));
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            System.out.println("Error al escribir el archivo de derivación en " + filePath + ": " + e.getMessage());
+        }
+    }
 
-        writer.write(prefijo + (esUltimo ? "└── " : "├── ") + nodo.getValor() + "\n");
-        
-        List<Node> hijos = nodo.getHijos();
-        for (int i = 0; i < hijos.size(); i++) {
-            boolean esUltimoHijo = (i == hijos.size() - 1);
-            escribirNodo(writer, hijos.get(i), prefijo + (esUltimo ? "    " : "│   "), esUltimoHijo);
+    /** Escribe el resultado de cada expresión de un lote, una por línea y en el orden de la entrada. */
+    public static void generarArchivoLotes(Path filePath, List<AnalizadorLotes.Resultado> resultados) {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath.toFile()))) {
+            for (AnalizadorLotes.Resultado resultado : resultados) {
+                writer.write(resultado.toString());
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            System.out.println("Error al escribir el archivo de resultados en " + filePath + ": " + e.getMessage());
         }
     }
 
@@ -145,15 +272,53 @@ public class GeneradorArchivos {
         }
     }
 
-    private static void generarPolacaInversa(Node nodo, List<String> polacaInversa) {
-        if (nodo == null) return;
+    /**
+     * Igual que {@link #generarCodigoDesdeArbol(Path, Node)}, a partir del árbol abstracto; su postorden es
+     * directamente la notación polaca inversa de la expresión.
+     */
+    public static void generarCodigoDesdeArbol(Path filePath, ArbolPlano arbol) {
+        System.out.println("Iniciando la generación de ensamblador desde el árbol sintáctico...");
+        if (arbol == null || arbol.getRaiz() == ArbolPlano.NINGUNO) {
+            System.err.println("El nodo raíz del árbol sintáctico es nulo. No se puede generar ensamblador.");
+            return;
+        }
+        System.out.println("Nodo raíz del árbol: " + arbol.valor(arbol.getRaiz()));
 
-        // Recorrer hijos (postorden)
-        for (Node hijo : nodo.getHijos()) {
-            generarPolacaInversa(hijo, polacaInversa);
+        // El postorden es el inverso de recorrer cada nodo antes que sus hijos, tomados de derecha a izquierda
+        List<String> polacaInversa = new ArrayList<>(arbol.tamano());
+        Deque<Integer> pendientes = new ArrayDeque<>();
+        pendientes.push(arbol.getRaiz());
+        while (!pendientes.isEmpty()) {
+            int nodo = pendientes.pop();
+            polacaInversa.add(arbol.valor(nodo));
+            for (int hijo = arbol.primerHijo(nodo); hijo != ArbolPlano.NINGUNO; hijo = arbol.siguienteHermano(hijo)) {
+                pendientes.push(hijo);
+            }
         }
+        Collections.reverse(polacaInversa);
+        System.out.println("Instrucciones en notación polaca inversa generadas: " + polacaInversa);
 
-        // Agregar el valor del nodo a la lista
-        polacaInversa.add(nodo.getValor());
+        generarCodigoEnsamblador(filePath, polacaInversa);
+        System.out.println("Archivo ensamblador generado en: " + filePath.toAbsolutePath());
+    }
+
+    private static void generarPolacaInversa(Node raiz, List<String> polacaInversa) {
+        // El postorden es el inverso de recorrer cada nodo antes que sus hijos, tomados de derecha a izquierda;
+        // con una pila explícita la profundidad del árbol no depende de la pila de llamadas
+        int inicio = polacaInversa.size();
+        Deque<Node> pendientes = new ArrayDeque<>();
+        if (raiz != null) {
+            pendientes.push(raiz);
+        }
+        while (!pendientes.isEmpty()) {
+            Node nodo = pendientes.pop();
+            polacaInversa.add(nodo.getValor());
+            for (Node hijo : nodo.getHijos()) {
+                if (hijo != null) {
+                    pendientes.push(hijo);
+                }
+            }
+        }
+        Collections.reverse(polacaInversa.subList(inicio, polacaInversa.size()));
     }
 }
\ No newline at end of file
@@ -25,6 +25,12 @@ public class Gramatica {
      */
     public static final Map<String, String> signosOperadores = new HashMap<>();
 
+    /**
+     * Mapa que almacena las constantes booleanas del lenguaje y su correspondiente token.
+     * Contiene las mismas palabras que reconoce {@link #boolRegex}.
+     */
+    public static final Map<String, String> constantesBooleanas = new HashMap<>();
+
     /**
      * Expresión regular para identificar identificadores válidos.
      * Un identificador debe comenzar con una letra (mayúscula o minúscula) seguida de cero o más letras o dígitos.
@@ -50,9 +56,42 @@ public class Gramatica {
      */
     public static final String boolRegex = "(verdadero|falso)";
 
+    /**
+     * Sintaxis de los programas pf2024, en el formato de {@link TablaLL1#generar(String)}: cada producción en una
+     * línea ("cabeza -> cuerpo"), con '|' para las alternativas y ε para el cuerpo vacío. Los símbolos que son
+     * tipos de token del escáner (ID, PC, MAS, ...) son terminales; los demás, no terminales. La asignación se
+     * escribe ":=", que el escáner entrega como ASIG seguido de IGUAL.
+     */
+    public static final String sintaxis = """
+            programa      -> PROG ID PC declaraciones INICIO sentencias END
+            declaraciones -> DECL TYPE ID listaIds PC declaraciones
+                           | ε
+            listaIds      -> COMA ID listaIds
+                           | ε
+            sentencias    -> sentencia sentencias
+                           | ε
+            sentencia     -> ID ASIG IGUAL expresion PC
+                           | IMPDIG PAREN expresion TESIS PC
+                           | IMPCAD PAREN expresion TESIS PC
+                           | LEERDIG PAREN ID TESIS PC
+            expresion     -> termino expresion'
+            expresion'    -> MAS termino expresion'
+                           | MENOS termino expresion'
+                           | ε
+            termino       -> factor termino'
+            termino'      -> MUL factor termino'
+                           | DIV factor termino'
+                           | ε
+            factor        -> PAREN expresion TESIS
+                           | ID
+                           | CINT
+                           | BOOL
+                           | LITERAL_CAD
+            """;
+
     /**
      * Bloque estático que se ejecuta una sola vez cuando la clase `Gramatica` es cargada en memoria.
-     * Se utiliza para inicializar los mapas de palabras reservadas, tipos de datos y signos de operadores.
+     * Se utiliza para inicializar los mapas de palabras reservadas, tipos de datos, constantes booleanas y signos de operadores.
      */
     static {
         // Inicialización del mapa de palabras reservadas.
@@ -69,6 +108,10 @@ public class Gramatica {
         tiposDeDatos.put("cad", "TYPE");
         tiposDeDatos.put("booleano", "TYPE");
 
+        // Inicialización del mapa de constantes booleanas.
+        constantesBooleanas.put("verdadero", "BOOL");
+        constantesBooleanas.put("falso", "BOOL");
+
         // Inicialización del mapa de signos de operadores.
         signosOperadores.put(";", "PC");
         signosOperadores.put(":", "ASIG");
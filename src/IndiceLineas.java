@@ -0,0 +1,77 @@
+import java.util.Arrays;
+
+/**
+ * Tabla con el desplazamiento donde empieza cada línea de un texto. Convierte un desplazamiento en
+ * línea y columna con una búsqueda binaria, sin volver a recorrer el texto.
+ */
+public class IndiceLineas {
+    private final int[] iniciosLinea;
+    private final int cantidadLineas;
+
+    /**
+     * Construye la tabla recorriendo el texto una sola vez.
+     * @param texto El texto completo.
+     */
+    public IndiceLineas(CharSequence texto) {
+        int[] inicios = new int[16];
+        int cantidad = 1; // La línea 1 empieza en 0
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) == '\n') {
+                if (cantidad == inicios.length) {
+                    inicios = Arrays.copyOf(inicios, cantidad * 2);
+                }
+                inicios[cantidad++] = i + 1;
+            }
+        }
+        this.iniciosLinea = inicios;
+        this.cantidadLineas = cantidad;
+    }
+
+    /**
+     * Construye la tabla sobre los primeros {@code longitud} caracteres de un arreglo.
+     */
+    public IndiceLineas(char[] texto, int longitud) {
+        this(java.nio.CharBuffer.wrap(texto, 0, longitud));
+    }
+
+    public int getCantidadLineas() {
+        return cantidadLineas;
+    }
+
+    /**
+     * Obtiene la línea (base 1) que contiene un desplazamiento.
+     * @param desplazamiento La posición (base 0) dentro del texto.
+     */
+    public int linea(int desplazamiento) {
+        int bajo = 0;
+        int alto = cantidadLineas - 1;
+        while (bajo < alto) {
+            int medio = (bajo + alto + 1) >>> 1;
+            if (iniciosLinea[medio] <= desplazamiento) {
+                bajo = medio;
+            } else {
+                alto = medio - 1;
+            }
+        }
+        return bajo + 1;
+    }
+
+    /**
+     * Obtiene la columna (base 1) de un desplazamiento dentro de su línea.
+     * @param desplazamiento La posición (base 0) dentro del texto.
+     */
+    public int columna(int desplazamiento) {
+        return desplazamiento - iniciosLinea[linea(desplazamiento) - 1] + 1;
+    }
+
+    /**
+     * Obtiene el desplazamiento donde empieza una línea.
+     * @param linea El número de línea (base 1).
+     */
+    public int inicioLinea(int linea) {
+        if (linea < 1 || linea > cantidadLineas) {
+            throw new IndexOutOfBoundsException("Línea " + linea + " fuera de rango para " + cantidadLineas + " líneas");
+        }
+        return iniciosLinea[linea - 1];
+    }
+}
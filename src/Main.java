@@ -22,7 +22,15 @@ public class Main {
 
         Path rutaArchivoTokens = directorioBase.resolve("progfte.tok");
         Path rutaArchivoTablaSimbolos = directorioBase.resolve("progfte.tab");
+        Path rutaArchivoTablaBinaria = directorioBase.resolve("progfte.tabx");
         Path rutaArchivoArbolSintactico = directorioBase.resolve("progfte.arbol");
+        Path rutaArchivoDerivacion = directorioBase.resolve("progfte.der");
+
+        // Con --lotes, cada línea (o cada expresión terminada en ';') es una expresión independiente
+        if (args != null && Arrays.asList(args).contains("--lotes")) {
+            ejecutarLotes(rutaArchivoFuente, directorioBase.resolve("progfte.lot"));
+            return;
+        }
 
         String codigoFuente;
         try {
@@ -36,35 +44,44 @@ public class Main {
         System.out.println(codigoFuente);
         System.out.println("-------------------------------------\n");
 
-        List<String> erroresLexicos = new ArrayList<>();
-        List<Token> tokens = AnalizadorLexico.analizarLexicamente(codigoFuente, erroresLexicos);
+        Diagnosticos erroresLexicos = new Diagnosticos(Diagnosticos.LIMITE_PREDETERMINADO);
+        RegistroSimbolos tablaSimbolos = new TablaSimbolosCompacta();
+        List<Token> tokens = AnalizadorLexico.analizarLexicamente(codigoFuente, tablaSimbolos, erroresLexicos);
 
         if (!erroresLexicos.isEmpty()) {
-            System.out.println("--- Errores Léxicos Encontrados ---");
-            for (String err : erroresLexicos) {
-                System.out.println(err);
-            }
-            System.out.println("-------------------------------------\n");
+            System.out.print(ResultadoTokens.generarSeccionErrores("Errores Léxicos", erroresLexicos));
             GeneradorArchivos.generarArchivoTokens(rutaArchivoTokens, tokens);
             return; 
         }
 
-        System.out.println("Análisis léxico exitoso. Se generó progfte.tok y progfte.tab.");
+        System.out.println("Análisis léxico exitoso. Se generó progfte.tok, progfte.tab y progfte.tabx.");
         GeneradorArchivos.generarArchivoTokens(rutaArchivoTokens, tokens);
-        GeneradorArchivos.generarArchivoTablaSimbolos(rutaArchivoTablaSimbolos, TablaSimbolos.getEntradas());
+        GeneradorArchivos.generarArchivoTablaSimbolos(rutaArchivoTablaSimbolos, tablaSimbolos.getEntradas());
+        GeneradorArchivos.generarArchivoTablaSimbolosBinario(rutaArchivoTablaBinaria, tablaSimbolos.getEntradas());
+
+        // Un programa completo (pf2024 ...) se analiza con la tabla LL(1); una expresión suelta, como antes
+        if (esPrograma(tokens)) {
+            AnalizadorLL1 analizadorPrograma = new AnalizadorLL1(tokens);
+            boolean programaCorrecto = analizadorPrograma.analizar();
+            System.out.print(ResultadoTokens.generarSeccionErrores("Errores Sintácticos", analizadorPrograma.getDiagnosticos()));
+            if (programaCorrecto) {
+                System.out.println("Programa válido. El análisis sintáctico fue exitoso.");
+                GeneradorArchivos.generarArchivoDerivacion(rutaArchivoDerivacion, analizadorPrograma.getTabla(),
+                        analizadorPrograma.getDerivacion());
+                System.out.println("Derivación generada en: " + rutaArchivoDerivacion.toAbsolutePath());
+            } else {
+                System.out.println("Programa inválido. Se encontraron errores sintácticos.");
+            }
+            System.out.println("\nArchivos de salida generados en: " + directorioBase.toAbsolutePath());
+            return;
+        }
 
         AnalizadorSintactico analizadorSintactico = new AnalizadorSintactico(tokens);
-        Node arbolSintactico = analizadorSintactico.analizar();
-        List<String> erroresSintacticos = analizadorSintactico.getErroresSintacticos();
+        ArbolPlano arbolSintactico = analizadorSintactico.analizarPlano();
+        Diagnosticos erroresSintacticos = analizadorSintactico.getDiagnosticos();
         boolean sintaxisCorrecta = arbolSintactico != null && erroresSintacticos.isEmpty();
 
-        if (!erroresSintacticos.isEmpty()) {
-            System.out.println("--- Errores Sintácticos Encontrados ---");
-            for (String err : erroresSintacticos) {
-                System.out.println(err);
-            }
-            System.out.println("-------------------------------------\n");
-        }
+        System.out.print(ResultadoTokens.generarSeccionErrores("Errores Sintácticos", erroresSintacticos));
         
         if (sintaxisCorrecta) { 
             System.out.println("Expresión válida. El análisis sintáctico fue exitoso.");
@@ -107,4 +124,32 @@ public class Main {
         
         System.out.println("\nArchivos de salida generados en: " + directorioBase.toAbsolutePath());
     }
+
+    /** Un programa completo empieza con pf2024 y se analiza con {@link AnalizadorLL1}; lo demás es una expresión suelta. */
+    static boolean esPrograma(List<Token> tokens) {
+        return !tokens.isEmpty() && tokens.get(0).getTipo().equals("PROG");
+    }
+
+    private static void ejecutarLotes(Path rutaArchivoFuente, Path rutaArchivoResultados) {
+        String codigoFuente;
+        try {
+            codigoFuente = new String(Files.readAllBytes(rutaArchivoFuente));
+        } catch (IOException e) {
+            System.err.println("Error crítico al leer el archivo fuente '" + rutaArchivoFuente + "': " + e.getMessage());
+            return;
+        }
+
+        Diagnosticos erroresLexicos = new Diagnosticos(Diagnosticos.LIMITE_PREDETERMINADO);
+        BufferTokens tokens = AnalizadorLexico.analizarEnBuffer(codigoFuente, new TablaSimbolosCompacta(), erroresLexicos);
+        if (!erroresLexicos.isEmpty()) {
+            System.out.print(ResultadoTokens.generarSeccionErrores("Errores Léxicos", erroresLexicos));
+            return;
+        }
+
+        List<AnalizadorLotes.Resultado> resultados = AnalizadorLotes.analizar(tokens, new HashMap<>());
+        long conErrores = resultados.stream().filter(resultado -> resultado.getValor() == null).count();
+        GeneradorArchivos.generarArchivoLotes(rutaArchivoResultados, resultados);
+        System.out.println("Se procesaron " + resultados.size() + " expresiones (" + conErrores + " con errores).");
+        System.out.println("Resultados generados en: " + rutaArchivoResultados.toAbsolutePath());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,167 @@
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tabla de lexemas internados: cada lexema distinto se guarda una sola vez y recibe un identificador
+ * entero denso (0, 1, 2, ...) en orden de llegada. Se puede usar desde varios hilos.
+ * <p>
+ * Para buscar sin crear objetos, cada escáner consulta una {@link Cache} propia, que busca directamente
+ * por el rango de caracteres y solo recurre a la tabla compartida la primera vez que ve un lexema.
+ */
+public class PoolLexemas {
+    private final List<String> lexemas = new ArrayList<>();
+    private final Map<String, Integer> ids = new HashMap<>();
+
+    /**
+     * Interna un lexema.
+     * @param lexema El texto del lexema.
+     * @return El identificador del lexema; si ya estaba, el que se le asignó la primera vez.
+     */
+    public synchronized int internar(String lexema) {
+        Integer id = ids.get(lexema);
+        if (id == null) {
+            id = lexemas.size();
+            lexemas.add(lexema);
+            ids.put(lexema, id);
+        }
+        return id;
+    }
+
+    /** Obtiene la instancia única del lexema con el identificador indicado. */
+    public synchronized String lexema(int id) {
+        return lexemas.get(id);
+    }
+
+    /** Cantidad de lexemas distintos internados. */
+    public synchronized int tamano() {
+        return lexemas.size();
+    }
+
+    /** Crea una caché para un solo hilo sobre esta tabla. */
+    public Cache nuevaCache() {
+        return new Cache(this);
+    }
+
+    /**
+     * Vista de la tabla para un solo hilo. Busca por rango de caracteres (o de bytes ASCII) en una tabla
+     * de direccionamiento abierto, así que encontrar un lexema ya visto no crea ningún objeto.
+     */
+    public static class Cache {
+        private final PoolLexemas pool;
+        private int[] casillas = new int[64]; // Identificador + 1 del lexema en cada casilla; 0 si está libre
+        private String[] porId = new String[64];
+        private int ocupadas = 0;
+
+        private Cache(PoolLexemas pool) {
+            this.pool = pool;
+        }
+
+        /**
+         * Interna el lexema formado por un rango de caracteres.
+         * @return El identificador del lexema en la tabla compartida.
+         */
+        public int internar(char[] texto, int inicio, int longitud) {
+            int hash = 0;
+            for (int i = inicio; i < inicio + longitud; i++) {
+                hash = 31 * hash + texto[i];
+            }
+            int mascara = casillas.length - 1;
+            for (int casilla = mezclar(hash) & mascara; ; casilla = (casilla + 1) & mascara) {
+                int id = casillas[casilla] - 1;
+                if (id < 0) {
+                    return agregar(casilla, new String(texto, inicio, longitud));
+                }
+                String lexema = porId[id];
+                if (lexema.hashCode() == hash && lexema.length() == longitud && coincide(lexema, texto, inicio)) {
+                    return id;
+                }
+            }
+        }
+
+        /**
+         * Interna el lexema formado por un rango de bytes ASCII.
+         * @return El identificador del lexema en la tabla compartida.
+         */
+        public int internar(ByteBuffer bytes, int inicio, int longitud) {
+            int hash = 0;
+            for (int i = inicio; i < inicio + longitud; i++) {
+                hash = 31 * hash + bytes.get(i);
+            }
+            int mascara = casillas.length - 1;
+            for (int casilla = mezclar(hash) & mascara; ; casilla = (casilla + 1) & mascara) {
+                int id = casillas[casilla] - 1;
+                if (id < 0) {
+                    char[] texto = new char[longitud];
+                    for (int i = 0; i < longitud; i++) {
+                        texto[i] = (char) bytes.get(inicio + i);
+                    }
+                    return agregar(casilla, new String(texto));
+                }
+                String lexema = porId[id];
+                if (lexema.hashCode() == hash && lexema.length() == longitud && coincide(lexema, bytes, inicio)) {
+                    return id;
+                }
+            }
+        }
+
+        /** Obtiene la instancia única de un lexema que ya pasó por esta caché. */
+        public String lexema(int id) {
+            return porId[id];
+        }
+
+        private int agregar(int casilla, String lexema) {
+            int id = pool.internar(lexema);
+            if (id >= porId.length) {
+                porId = Arrays.copyOf(porId, Math.max(id + 1, porId.length * 2));
+            }
+            porId[id] = pool.lexema(id);
+            casillas[casilla] = id + 1;
+            if (++ocupadas * 2 > casillas.length) {
+                redimensionar();
+            }
+            return id;
+        }
+
+        private void redimensionar() {
+            int[] anteriores = casillas;
+            casillas = new int[anteriores.length * 2];
+            int mascara = casillas.length - 1;
+            for (int valor : anteriores) {
+                if (valor != 0) {
+                    int casilla = mezclar(porId[valor - 1].hashCode()) & mascara;
+                    while (casillas[casilla] != 0) {
+                        casilla = (casilla + 1) & mascara;
+                    }
+                    casillas[casilla] = valor;
+                }
+            }
+        }
+
+        // Reparte mejor los bits altos del hash, que en lexemas cortos cambian poco
+        private static int mezclar(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+
+        private static boolean coincide(String lexema, char[] texto, int inicio) {
+            for (int i = 0; i < lexema.length(); i++) {
+                if (lexema.charAt(i) != texto[inicio + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean coincide(String lexema, ByteBuffer bytes, int inicio) {
+            for (int i = 0; i < lexema.length(); i++) {
+                if (lexema.charAt(i) != bytes.get(inicio + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * La NPI de una expresión compilada a un programa de enteros, para evaluarla muchas veces con distintos valores.
+ * <p>
+ * {@link AnalizadorSintactico#ejecutarNPI(Map)} vuelve a interpretar los textos de la NPI en cada llamada. Aquí
+ * ese trabajo se hace una sola vez: cada elemento se convierte en un código de operación, las constantes quedan
+ * dentro del programa y cada variable recibe una casilla fija, en el orden en que aparece. La evaluación recorre
+ * el arreglo con una pila de enteros del tamaño exacto que necesita la expresión, calculado al compilar, así que
+ * no crea objetos. Una instancia guarda su pila, así que no debe evaluarse desde varios hilos a la vez; cada hilo
+ * puede usar su propia {@link #copia()}. Para evaluar muchas filas de valores a la vez, ver {@link EvaluadorColumnas}.
+ */
+public class ProgramaNPI implements ExpresionEvaluable {
+    // Códigos de operación; CONSTANTE y VARIABLE van seguidos del valor o de la casilla
+    static final int CONSTANTE = 0;
+    static final int VARIABLE = 1;
+    static final int SUMA = 2;
+    static final int RESTA = 3;
+    static final int MULTIPLICACION = 4;
+    static final int DIVISION = 5;
+
+    final int[] codigo;             // Para EvaluadorColumnas y CompiladorJVM, que lo recorren a su manera
+    private final String[] variables;
+    private final int[] pila;
+
+    private ProgramaNPI(int[] codigo, String[] variables, int profundidad) {
+        this.codigo = codigo;
+        this.variables = variables;
+        this.pila = new int[profundidad];
+    }
+
+    /**
+     * Compila una NPI como la de {@link AnalizadorSintactico#getPolacaInversa()}.
+     * @throws IllegalStateException Si la NPI está vacía o no deja exactamente un resultado, con los mismos
+     *         mensajes que {@link AnalizadorSintactico#ejecutarNPI(Map)}.
+     * @throws NumberFormatException Si una constante no cabe en un int.
+     */
+    public static ProgramaNPI compilar(List<String> polacaInversa) {
+        if (polacaInversa.isEmpty()) {
+            throw new IllegalStateException("La notación polaca inversa aún no ha sido generada.");
+        }
+        int[] codigo = new int[polacaInversa.size() * 2];
+        int largo = 0;
+        Map<String, Integer> casillas = new LinkedHashMap<>();
+        int altura = 0;
+        int profundidad = 0;
+        for (String elemento : polacaInversa) {
+            if (elemento == null || elemento.isBlank()) {
+                continue;
+            }
+            int operacion = operacion(elemento);
+            if (operacion >= SUMA) {
+                if (altura < 2) {
+                    throw new IllegalStateException("Expresión postfix inválida: no hay suficientes operandos para el operador '"
+                            + elemento + "'.");
+                }
+                altura--;
+                codigo[largo++] = operacion;
+                continue;
+            }
+            codigo[largo++] = operacion;
+            if (operacion == CONSTANTE) {
+                codigo[largo++] = Integer.parseInt(elemento);
+            } else {
+                Integer casilla = casillas.putIfAbsent(elemento, casillas.size());
+                codigo[largo++] = (casilla != null) ? casilla : casillas.size() - 1;
+            }
+            profundidad = Math.max(profundidad, ++altura);
+        }
+        if (altura != 1) {
+            throw new IllegalStateException("La evaluación de la NPI no produjo un único resultado.");
+        }
+        return new ProgramaNPI(Arrays.copyOf(codigo, largo), casillas.keySet().toArray(new String[0]), profundidad);
+    }
+
+    private static int operacion(String elemento) {
+        switch (elemento) {
+            case "+":
+                return SUMA;
+            case "-":
+                return RESTA;
+            case "*":
+                return MULTIPLICACION;
+            case "/":
+                return DIVISION;
+            default:
+                return esNumero(elemento) ? CONSTANTE : VARIABLE;
+        }
+    }
+
+    // Lo mismo que elemento.matches("[0-9]+"), sin compilar la expresión regular
+    private static boolean esNumero(String elemento) {
+        for (int i = 0; i < elemento.length(); i++) {
+            char c = elemento.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return !elemento.isEmpty();
+    }
+
+    /**
+     * Evalúa el programa.
+     * @param valores El valor de cada variable, en su casilla (ver {@link #getVariables()}).
+     * @throws ArithmeticException Si hay una división entre cero, con el mismo mensaje que
+     *         {@link AnalizadorSintactico#ejecutarNPI(Map)}.
+     */
+    @Override
+    public int eval(int[] valores) {
+        comprobarValores(valores, variables.length);
+        int[] codigo = this.codigo;
+        int[] pila = this.pila;
+        int tope = 0;
+        int pc = 0;
+        while (pc < codigo.length) {
+            switch (codigo[pc++]) {
+                case CONSTANTE:
+                    pila[tope++] = codigo[pc++];
+                    break;
+                case VARIABLE:
+                    pila[tope++] = valores[codigo[pc++]];
+                    break;
+                case SUMA:
+                    tope--;
+                    pila[tope - 1] += pila[tope];
+                    break;
+                case RESTA:
+                    tope--;
+                    pila[tope - 1] -= pila[tope];
+                    break;
+                case MULTIPLICACION:
+                    tope--;
+                    pila[tope - 1] *= pila[tope];
+                    break;
+                default:
+                    tope--;
+                    pila[tope - 1] = dividir(pila[tope - 1], pila[tope]);
+                    break;
+            }
+        }
+        return pila[0];
+    }
+
+    // También los llaman las clases que genera CompiladorJVM, para que los errores sean los mismos
+    static void comprobarValores(int[] valores, int cantidad) {
+        if (valores.length < cantidad) {
+            throw new IllegalArgumentException("Se esperaban " + cantidad + " valores y se recibieron " + valores.length + ".");
+        }
+    }
+
+    static int dividir(int dividendo, int divisor) {
+        if (divisor == 0) {
+            throw new ArithmeticException("División entre cero en la evaluación de la expresión.");
+        }
+        return dividendo / divisor;
+    }
+
+    /**
+     * Arma el arreglo de valores a partir de un mapa, para cuando los valores llegan por nombre.
+     * @throws IllegalArgumentException Si falta el valor de alguna variable.
+     */
+    public int[] valores(Map<String, Integer> porNombre) {
+        int[] valores = new int[variables.length];
+        for (int i = 0; i < variables.length; i++) {
+            Integer valor = (porNombre != null) ? porNombre.get(variables[i]) : null;
+            if (valor == null) {
+                throw new IllegalArgumentException("No se proporcionó un valor para la variable '" + variables[i] + "'.");
+            }
+            valores[i] = valor;
+        }
+        return valores;
+    }
+
+    /** Los nombres de las variables; la variable {@code i} toma su valor de la casilla {@code i}. */
+    public String[] getVariables() {
+        return variables.clone();
+    }
+
+    /** La casilla de una variable, o -1 si no aparece en la expresión. */
+    public int casilla(String variable) {
+        for (int i = 0; i < variables.length; i++) {
+            if (variables[i].equals(variable)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** La cantidad de enteros que necesita la pila para evaluar la expresión. */
+    public int getProfundidad() {
+        return pila.length;
+    }
+
+    /** Otra instancia con el mismo programa y su propia pila, para evaluar desde otro hilo. */
+    public ProgramaNPI copia() {
+        return new ProgramaNPI(codigo, variables, pila.length);
+    }
+
+    /** El programa como texto, una instrucción por línea. */
+    @Override
+    public String toString() {
+        StringBuilder texto = new StringBuilder();
+        for (int pc = 0; pc < codigo.length; pc++) {
+            switch (codigo[pc]) {
+                case CONSTANTE:
+                    texto.append("CONSTANTE ").append(codigo[++pc]);
+                    break;
+                case VARIABLE:
+                    texto.append("VARIABLE ").append(variables[codigo[++pc]]);
+                    break;
+                default:
+                    texto.append(ArbolPlano.simbolo(codigo[pc] - SUMA));
+                    break;
+            }
+            texto.append('\n');
+        }
+        return texto.toString();
+    }
+}
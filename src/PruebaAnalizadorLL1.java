@@ -0,0 +1,151 @@
+import java.util.List;
+
+/**
+ * Analiza programas pf2024 completos por el mismo camino que {@link Main}: el analizador léxico, la prueba de
+ * {@link Main#esPrograma(List)} y {@link AnalizadorLL1}. Compara la derivación y los errores con los esperados,
+ * para un programa válido escrito como se acostumbra (sin espacio antes de los paréntesis) y para uno con varios
+ * errores, de los que la recuperación debe reportar cada uno una sola vez.
+ * <p>
+ * Uso: {@code java PruebaAnalizadorLL1}. Termina con código 1 si algún programa no da lo esperado.
+ */
+public class PruebaAnalizadorLL1 {
+    private static final String VALIDO = """
+            pf2024 p;
+            decl int x, y;
+            inicio
+              leerdig(x);
+              y := x * (2 + 3);
+              impdig(y);
+              impcad("listo");
+            end""";
+
+    private static final String DERIVACION_VALIDO = """
+            programa -> PROG ID PC declaraciones INICIO sentencias END
+            declaraciones -> DECL TYPE ID listaIds PC declaraciones
+            listaIds -> COMA ID listaIds
+            listaIds -> ε
+            declaraciones -> ε
+            sentencias -> sentencia sentencias
+            sentencia -> LEERDIG PAREN ID TESIS PC
+            sentencias -> sentencia sentencias
+            sentencia -> ID ASIG IGUAL expresion PC
+            expresion -> termino expresion'
+            termino -> factor termino'
+            factor -> ID
+            termino' -> MUL factor termino'
+            factor -> PAREN expresion TESIS
+            expresion -> termino expresion'
+            termino -> factor termino'
+            factor -> CINT
+            termino' -> ε
+            expresion' -> MAS termino expresion'
+            termino -> factor termino'
+            factor -> CINT
+            termino' -> ε
+            expresion' -> ε
+            termino' -> ε
+            expresion' -> ε
+            sentencias -> sentencia sentencias
+            sentencia -> IMPDIG PAREN expresion TESIS PC
+            expresion -> termino expresion'
+            termino -> factor termino'
+            factor -> ID
+            termino' -> ε
+            expresion' -> ε
+            sentencias -> sentencia sentencias
+            sentencia -> IMPCAD PAREN expresion TESIS PC
+            expresion -> termino expresion'
+            termino -> factor termino'
+            factor -> LITERAL_CAD
+            termino' -> ε
+            expresion' -> ε
+            sentencias -> ε
+            """;
+
+    // Falta el ';' del encabezado, un operando, un ')' y leerdig recibe una constante
+    private static final String CON_ERRORES = """
+            pf2024 p
+            decl int x;
+            inicio
+              x := 2 +;
+              impdig(x;
+              leerdig(3);
+            end""";
+
+    // Derivación parcial: faltan las partes descartadas al recuperarse
+    private static final String DERIVACION_CON_ERRORES = """
+            programa -> PROG ID PC declaraciones INICIO sentencias END
+            declaraciones -> DECL TYPE ID listaIds PC declaraciones
+            listaIds -> ε
+            declaraciones -> ε
+            sentencias -> sentencia sentencias
+            sentencia -> ID ASIG IGUAL expresion PC
+            expresion -> termino expresion'
+            termino -> factor termino'
+            factor -> CINT
+            termino' -> ε
+            expresion' -> MAS termino expresion'
+            expresion' -> ε
+            sentencias -> sentencia sentencias
+            sentencia -> IMPDIG PAREN expresion TESIS PC
+            expresion -> termino expresion'
+            termino -> factor termino'
+            factor -> ID
+            termino' -> ε
+            expresion' -> ε
+            sentencias -> sentencia sentencias
+            sentencia -> LEERDIG PAREN ID TESIS PC
+            sentencias -> ε
+            """;
+
+    private static final String ERRORES_CON_ERRORES = """
+            Error sintáctico en línea 2: Se esperaba ';'. Se encontró 'decl'
+            Error sintáctico en línea 4: Se esperaba ID, CINT, LITERAL_CAD, BOOL, '('. Se encontró ';'
+            Error sintáctico en línea 5: Se esperaba ')'. Se encontró ';'
+            Error sintáctico en línea 6: Se esperaba ID. Se encontró '3'
+            """;
+
+    public static void main(String[] args) {
+        int fallos = 0;
+        fallos += probar("válido", VALIDO, true, DERIVACION_VALIDO, "");
+        fallos += probar("con errores", CON_ERRORES, false, DERIVACION_CON_ERRORES, ERRORES_CON_ERRORES);
+        System.out.printf("Programas: 2, fallos: %d%n", fallos);
+        if (fallos > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static int probar(String nombre, String programa, boolean valido, String derivacion, String errores) {
+        Diagnosticos erroresLexicos = new Diagnosticos(Diagnosticos.LIMITE_PREDETERMINADO);
+        List<Token> tokens = AnalizadorLexico.analizarLexicamente(programa, new TablaSimbolosCompacta(), erroresLexicos);
+        if (!erroresLexicos.isEmpty() || !Main.esPrograma(tokens)) {
+            System.out.printf("Programa %s: no llegó al analizador LL(1)%n%s%n", nombre, erroresLexicos.getMensajes());
+            return 1;
+        }
+        AnalizadorLL1 analizador = new AnalizadorLL1(tokens);
+        boolean correcto = analizador.analizar();
+        StringBuilder obtenida = new StringBuilder();
+        for (int produccion : analizador.getDerivacion()) {
+            obtenida.append(analizador.getTabla().texto(produccion)).append('\n');
+        }
+        StringBuilder erroresObtenidos = new StringBuilder();
+        for (String mensaje : analizador.getErroresSintacticos()) {
+            erroresObtenidos.append(mensaje).append('\n');
+        }
+
+        int fallos = 0;
+        if (correcto != valido) {
+            System.out.printf("Programa %s: analizar() devolvió %b%n", nombre, correcto);
+            fallos++;
+        }
+        if (!obtenida.toString().equals(derivacion)) {
+            System.out.printf("Programa %s: derivación distinta%n%s", nombre, obtenida);
+            fallos++;
+        }
+        if (!erroresObtenidos.toString().equals(errores)) {
+            System.out.printf("Programa %s: errores distintos%n%s", nombre, erroresObtenidos);
+            fallos++;
+        }
+        return fallos;
+    }
+}
@@ -0,0 +1,63 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Comprueba el analizador léxico contra los tokens y los errores que daba el analizador anterior, basado en
+ * expresiones regulares, para entradas donde los dos deben coincidir: sobre todo palabras reservadas pegadas a
+ * un símbolo, como en {@code impdig(x);}, que es la forma habitual de escribir pf2024.
+ * <p>
+ * Uso: {@code java PruebaAnalizadorLexico}. Termina con código 1 si algún caso no coincide.
+ */
+public class PruebaAnalizadorLexico {
+    // Entrada, tokens esperados ("lexema TIPO" separados por " | ") y errores esperados
+    private static final String[][] CASOS = {
+        {"impdig(x);", "impdig IMPDIG | ( PAREN | x ID | ) TESIS | ; PC", ""},
+        {"impdig(2);", "impdig IMPDIG | ( PAREN | 2 CINT | ) TESIS | ; PC", ""},
+        {"leerdig(y);", "leerdig LEERDIG | ( PAREN | y ID | ) TESIS | ; PC", ""},
+        {"impcad(\"a\");", "impcad IMPCAD | ( PAREN | \"a\" LITERAL_CAD | ) TESIS | ; PC", ""},
+        {"inicio(x", "inicio INICIO | ( PAREN | x ID", ""},
+        {"end+", "end END | + MAS", ""},
+        {"end/x", "end END | / DIV | x ID", ""},
+        {"inicio\"a\"", "inicio INICIO | \"a\" LITERAL_CAD", ""},
+        {"pf2024 p; inicio impdig(x); end",
+            "pf2024 PROG | p ID | ; PC | inicio INICIO | impdig IMPDIG | ( PAREN | x ID | ) TESIS | ; PC | end END", ""},
+        {"decl x, y: int;", "decl DECL | x ID | , COMA | y ID | : ASIG | int TYPE | ; PC", ""},
+        // Solo las palabras reservadas completas terminan en un símbolo; los prefijos y los tipos no
+        {"impdi(x)", ") TESIS",
+            "Error léxico en la línea 1, posición 1: Identificador inválido 'impdi(x' contiene símbolos no permitidos."},
+        {"int(x)", ") TESIS",
+            "Error léxico en la línea 1, posición 1: Identificador inválido 'int(x' contiene símbolos no permitidos."},
+        {"impdig(x)é", "impdig IMPDIG | ( PAREN | x ID | ) TESIS",
+            "Error léxico en la línea 1, posición 10: Identificador o tipo de dato inválido 'é' contiene caracteres acentuados."},
+    };
+
+    public static void main(String[] args) {
+        int fallos = 0;
+        for (String[] caso : CASOS) {
+            List<String> errores = new ArrayList<>();
+            List<Token> tokens = AnalizadorLexico.analizarLexicamente(caso[0], new TablaSimbolos(), errores);
+            String obtenidos = describir(tokens);
+            String erroresObtenidos = String.join("\n", errores);
+            if (!obtenidos.equals(caso[1]) || !erroresObtenidos.equals(caso[2])) {
+                fallos++;
+                System.out.printf("%s%n  esperado: %s %s%n  obtenido: %s %s%n", caso[0], caso[1], caso[2],
+                        obtenidos, erroresObtenidos);
+            }
+        }
+        System.out.printf("Casos: %d, fallos: %d%n", CASOS.length, fallos);
+        if (fallos > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static String describir(List<Token> tokens) {
+        StringBuilder texto = new StringBuilder();
+        for (Token token : tokens) {
+            if (texto.length() > 0) {
+                texto.append(" | ");
+            }
+            texto.append(token.getLexema()).append(' ').append(token.getTipo());
+        }
+        return texto.toString();
+    }
+}
@@ -0,0 +1,150 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Compara las clases que genera {@link CompiladorJVM} con {@link AnalizadorSintactico#ejecutarNPI(Map)} sobre
+ * expresiones generadas al azar: para cada una evalúa las dos con varios juegos de valores y comprueba que den el
+ * mismo resultado o el mismo error, incluidas las divisiones entre cero. Después evalúa una misma instancia
+ * compilada desde varios hilos a la vez, que debe dar lo mismo que desde uno.
+ * <p>
+ * Uso: {@code java PruebaCompiladorJVM [expresiones] [semilla]}. Termina con código 1 si encuentra diferencias.
+ */
+public class PruebaCompiladorJVM {
+    private static final String[] VARIABLES = {"a", "b", "c", "x1", "y"};
+    private static final int VALORES_POR_EXPRESION = 20;
+    private static final int HILOS = 4;
+    private static final int DIFERENCIAS_MOSTRADAS = 10;
+
+    public static void main(String[] args) throws Exception {
+        int expresiones = (args.length > 0) ? Integer.parseInt(args[0]) : 5000;
+        long semilla = (args.length > 1) ? Long.parseLong(args[1]) : 2024;
+        Random aleatorio = new Random(semilla);
+
+        AnalizadorSintactico analizador = new AnalizadorSintactico();
+        int casos = 0;
+        int divisiones = 0;
+        int diferencias = 0;
+        for (int i = 0; i < expresiones; i++) {
+            String expresion = generar(aleatorio, (i % 50 == 0) ? 12 : 6);
+            analizador.reiniciar(AnalizadorLexico.analizarEnBuffer(expresion, new TablaSimbolosCompacta(), new Diagnosticos()));
+            analizador.analizarPlano();
+            if (!analizador.getDiagnosticos().isEmpty()) {
+                continue;
+            }
+            ProgramaNPI programa = analizador.compilarNPI();
+            ExpresionEvaluable compilada = CompiladorJVM.compilar(programa);
+            for (int j = 0; j < VALORES_POR_EXPRESION; j++) {
+                Map<String, Integer> valores = valoresAlAzar(aleatorio);
+                int[] casillas = programa.valores(valores);
+                String esperado = resultado(() -> analizador.ejecutarNPI(valores));
+                String obtenido = resultado(() -> compilada.eval(casillas));
+                casos++;
+                if (esperado.startsWith("error")) {
+                    divisiones++;
+                }
+                if (!esperado.equals(obtenido)) {
+                    diferencias++;
+                    if (diferencias <= DIFERENCIAS_MOSTRADAS) {
+                        System.out.printf("%s con %s%n  ejecutarNPI: %s%n  JVM:         %s%n", expresion, valores, esperado, obtenido);
+                    }
+                }
+            }
+        }
+        System.out.printf("Expresiones: %d, casos: %d, divisiones entre cero: %d, diferencias: %d%n",
+                expresiones, casos, divisiones, diferencias);
+
+        int diferenciasHilos = probarHilos(aleatorio);
+        System.out.printf("Varios hilos sobre una misma instancia: %d diferencias%n", diferenciasHilos);
+        if (diferencias + diferenciasHilos > 0) {
+            System.exit(1);
+        }
+    }
+
+    // Evalúa una misma instancia compilada desde varios hilos y compara con los resultados de un solo hilo
+    private static int probarHilos(Random aleatorio) throws Exception {
+        AnalizadorSintactico analizador = new AnalizadorSintactico();
+        analizador.reiniciar(AnalizadorLexico.analizarEnBuffer("a * ( b + 12 ) - c / ( x1 - y ) + a * y",
+                new TablaSimbolosCompacta(), new Diagnosticos()));
+        analizador.analizarPlano();
+        ProgramaNPI programa = analizador.compilarNPI();
+        ExpresionEvaluable compilada = analizador.compilarJVM();
+
+        int filas = 200_000;
+        int[][] valores = new int[filas][];
+        String[] esperados = new String[filas];
+        for (int i = 0; i < filas; i++) {
+            int[] casillas = programa.valores(valoresAlAzar(aleatorio));
+            valores[i] = casillas;
+            esperados[i] = resultado(() -> programa.eval(casillas));
+        }
+
+        ExecutorService hilos = Executors.newFixedThreadPool(HILOS);
+        try {
+            List<Future<Integer>> pendientes = new ArrayList<>();
+            for (int h = 0; h < HILOS; h++) {
+                pendientes.add(hilos.submit(() -> {
+                    int diferencias = 0;
+                    for (int i = 0; i < filas; i++) {
+                        int[] casillas = valores[i];
+                        if (!esperados[i].equals(resultado(() -> compilada.eval(casillas)))) {
+                            diferencias++;
+                        }
+                    }
+                    return diferencias;
+                }));
+            }
+            int diferencias = 0;
+            for (Future<Integer> pendiente : pendientes) {
+                diferencias += pendiente.get();
+            }
+            return diferencias;
+        } finally {
+            hilos.shutdown();
+        }
+    }
+
+    // El valor o el error de una evaluación, como texto para comparar
+    private static String resultado(Callable<Integer> evaluacion) {
+        try {
+            return String.valueOf(evaluacion.call());
+        } catch (Exception e) {
+            return "error " + e.getClass().getSimpleName() + ": " + e.getMessage();
+        }
+    }
+
+    // Valores pequeños, para que haya divisiones entre cero, mezclados con algunos grandes, para que haya desbordes
+    private static Map<String, Integer> valoresAlAzar(Random aleatorio) {
+        Map<String, Integer> valores = new HashMap<>();
+        for (String variable : VARIABLES) {
+            int valor = aleatorio.nextInt(7) - 3;
+            if (aleatorio.nextBoolean()) {
+                valor += aleatorio.nextInt();
+            }
+            valores.put(variable, valor);
+        }
+        return valores;
+    }
+
+    // Constantes de todos los tamaños, para cubrir cada forma de apilar un entero en la clase generada
+    private static String generar(Random aleatorio, int profundidad) {
+        switch (aleatorio.nextInt((profundidad <= 0) ? 2 : 6)) {
+            case 0:
+                return VARIABLES[aleatorio.nextInt(VARIABLES.length)];
+            case 1:
+                int[] limites = {1, 6, 200, 40000, Integer.MAX_VALUE};
+                return String.valueOf(aleatorio.nextInt(limites[aleatorio.nextInt(limites.length)]));
+            case 2:
+                return "( " + generar(aleatorio, profundidad - 1) + " )";
+            default:
+                return generar(aleatorio, profundidad - 1) + " " + "+-*/".charAt(aleatorio.nextInt(4)) + " "
+                        + generar(aleatorio, profundidad - 1);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compara {@link EvaluadorColumnas} con {@link AnalizadorSintactico#ejecutarNPI(Map)} fila por fila sobre
+ * expresiones generadas al azar: cada fila debe dar el mismo valor, y las que dan una división entre cero deben
+ * estar marcadas como error, con valor 0 y con el mismo mensaje. Se prueban columnas en arreglos y fuera del heap
+ * (con posición distinta de cero), pocas filas y las suficientes para repartir los bloques en el pool, y
+ * expresiones sin variables, con una cantidad de filas explícita.
+ * <p>
+ * Uso: {@code java PruebaEvaluadorColumnas [expresiones] [semilla]}. Termina con código 1 si encuentra diferencias.
+ */
+public class PruebaEvaluadorColumnas {
+    private static final String[] VARIABLES = {"a", "b", "c", "x1", "y"};
+    private static final int DIFERENCIAS_MOSTRADAS = 10;
+
+    public static void main(String[] args) {
+        int expresiones = (args.length > 0) ? Integer.parseInt(args[0]) : 500;
+        long semilla = (args.length > 1) ? Long.parseLong(args[1]) : 2024;
+        Random aleatorio = new Random(semilla);
+
+        AnalizadorSintactico analizador = new AnalizadorSintactico();
+        long filasProbadas = 0;
+        long errores = 0;
+        int diferencias = 0;
+        for (int i = 0; i < expresiones; i++) {
+            // La primera es la que dejaba valores distintos de 0 en las filas con error
+            String expresion = (i == 0) ? "( a / b ) + 5" : generar(aleatorio, 5);
+            analizador.reiniciar(AnalizadorLexico.analizarEnBuffer(expresion, new TablaSimbolosCompacta(), new Diagnosticos()));
+            analizador.analizarPlano();
+            if (!analizador.getDiagnosticos().isEmpty()) {
+                continue;
+            }
+            ProgramaNPI programa = analizador.compilarNPI();
+            String[] variables = programa.getVariables();
+            int filas = (i % 10 == 0) ? 40_000 + aleatorio.nextInt(3000) : aleatorio.nextInt(5000);
+            int[][] columnas = new int[variables.length][filas];
+            for (int[] columna : columnas) {
+                for (int fila = 0; fila < filas; fila++) {
+                    columna[fila] = valorAlAzar(aleatorio);
+                }
+            }
+
+            EvaluadorColumnas.Resultado resultado = (i % 2 == 0)
+                    ? EvaluadorColumnas.evaluar(programa, filas, envolver(columnas), ForkJoinPool.commonPool())
+                    : EvaluadorColumnas.evaluar(programa, filas, fueraDelHeap(columnas, 7), ForkJoinPool.commonPool());
+            if (resultado.cantidadFilas() != filas) {
+                diferencias++;
+                System.out.printf("%s: %d filas, se esperaban %d%n", expresion, resultado.cantidadFilas(), filas);
+                continue;
+            }
+
+            int erroresEsperados = 0;
+            Map<String, Integer> valores = new HashMap<>();
+            for (int fila = 0; fila < filas; fila++) {
+                for (int v = 0; v < variables.length; v++) {
+                    valores.put(variables[v], columnas[v][fila]);
+                }
+                String esperado = texto(() -> analizador.ejecutarNPI(valores));
+                String obtenido = resultado.esError(fila)
+                        ? "error " + resultado.getError(fila) + " (" + resultado.getValores()[fila] + ")"
+                        : String.valueOf(resultado.getValores()[fila]);
+                if (esperado.startsWith("error")) {
+                    erroresEsperados++;
+                    esperado = esperado + " (0)";
+                }
+                if (!esperado.equals(obtenido)) {
+                    diferencias++;
+                    if (diferencias <= DIFERENCIAS_MOSTRADAS) {
+                        System.out.printf("%s, fila %d con %s%n  ejecutarNPI: %s%n  columnas:    %s%n",
+                                expresion, fila, valores, esperado, obtenido);
+                    }
+                }
+            }
+            if (resultado.cantidadErrores() != erroresEsperados
+                    || resultado.getErrores().cardinality() != erroresEsperados) {
+                diferencias++;
+                System.out.printf("%s: %d errores, se esperaban %d%n", expresion, resultado.cantidadErrores(), erroresEsperados);
+            }
+            filasProbadas += filas;
+            errores += erroresEsperados;
+        }
+        System.out.printf("Expresiones: %d, filas: %d, divisiones entre cero: %d, diferencias: %d%n",
+                expresiones, filasProbadas, errores, diferencias);
+        if (diferencias > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static IntBuffer[] envolver(int[][] columnas) {
+        IntBuffer[] buffers = new IntBuffer[columnas.length];
+        for (int i = 0; i < columnas.length; i++) {
+            buffers[i] = IntBuffer.wrap(columnas[i]);
+        }
+        return buffers;
+    }
+
+    // Copia cada columna a memoria directa, después de algunos elementos que no forman parte de ella
+    private static IntBuffer[] fueraDelHeap(int[][] columnas, int desplazamiento) {
+        IntBuffer[] buffers = new IntBuffer[columnas.length];
+        for (int i = 0; i < columnas.length; i++) {
+            IntBuffer buffer = ByteBuffer.allocateDirect((desplazamiento + columnas[i].length) * Integer.BYTES)
+                    .order(ByteOrder.nativeOrder()).asIntBuffer();
+            buffer.position(desplazamiento);
+            buffer.put(columnas[i]);
+            buffer.position(desplazamiento);
+            buffers[i] = buffer;
+        }
+        return buffers;
+    }
+
+    // El valor o el error de una evaluación, como texto para comparar
+    private static String texto(Callable<Integer> evaluacion) {
+        try {
+            return String.valueOf(evaluacion.call());
+        } catch (Exception e) {
+            return "error " + e.getMessage();
+        }
+    }
+
+    // Valores pequeños, para que haya divisiones entre cero, mezclados con algunos grandes, para que haya desbordes
+    private static int valorAlAzar(Random aleatorio) {
+        int valor = aleatorio.nextInt(7) - 3;
+        return aleatorio.nextInt(4) == 0 ? valor + aleatorio.nextInt() : valor;
+    }
+
+    private static String generar(Random aleatorio, int profundidad) {
+        switch (aleatorio.nextInt((profundidad <= 0) ? 2 : 6)) {
+            case 0:
+                return VARIABLES[aleatorio.nextInt(VARIABLES.length)];
+            case 1:
+                return String.valueOf(aleatorio.nextInt(aleatorio.nextBoolean() ? 4 : 1000));
+            case 2:
+                return "( " + generar(aleatorio, profundidad - 1) + " )";
+            default:
+                return generar(aleatorio, profundidad - 1) + " " + "+-*/".charAt(aleatorio.nextInt(4)) + " "
+                        + generar(aleatorio, profundidad - 1);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compara {@link AnalizadorLexicoIncremental} con un análisis completo desde cero: se generan textos al azar, se les
+ * aplican ediciones al azar (con {@code editar} y con {@code actualizar}) y después de cada una los tokens (con su
+ * línea, inicio y columna), los errores y la tabla de símbolos deben ser los mismos que da
+ * {@link AnalizadorLexico#analizarLexicamente} sobre el texto resultante. Las piezas incluyen aperturas y cierres
+ * de comentarios y comillas sueltas, para que una edición pequeña cambie cómo se analiza todo lo que sigue.
+ * <p>
+ * Uso: {@code java PruebaLexicoIncremental [textos] [semilla]}. Termina con código 1 si encuentra diferencias.
+ */
+public class PruebaLexicoIncremental {
+    private static final String[] PIEZAS = {
+        "x", "y", "abc", "12", " ", "\n", "\t", "\r\n", "+", "-", "*", "/", "(", ")", "\"", "/*", "*/", "inicio",
+        "impdig(", "end", "verdadero", "int", "á", "$", "_", "#", ";", ":=", "ab1",
+    };
+    private static final int EDICIONES_POR_TEXTO = 8;
+    private static final int DIFERENCIAS_MOSTRADAS = 5;
+
+    public static void main(String[] args) {
+        int textos = (args.length > 0) ? Integer.parseInt(args[0]) : 10000;
+        long semilla = (args.length > 1) ? Long.parseLong(args[1]) : 2024;
+        Random aleatorio = new Random(semilla);
+        int ediciones = 0;
+        int diferencias = 0;
+        for (int i = 0; i < textos; i++) {
+            // Algunos textos largos, para que la edición quede lejos de los extremos
+            String texto = piezas(aleatorio, (i % 20 == 0) ? 400 : aleatorio.nextInt(30));
+            AnalizadorLexicoIncremental incremental = new AnalizadorLexicoIncremental(texto);
+            String anterior = texto;
+            for (int paso = 0; paso < EDICIONES_POR_TEXTO; paso++) {
+                int desplazamiento = aleatorio.nextInt(texto.length() + 1);
+                int eliminados = aleatorio.nextInt(Math.min(6, texto.length() - desplazamiento) + 1);
+                String insertado = piezas(aleatorio, aleatorio.nextInt(3));
+                texto = texto.substring(0, desplazamiento) + insertado + texto.substring(desplazamiento + eliminados);
+                boolean completo = aleatorio.nextInt(4) == 0;
+                int limite = 1 + aleatorio.nextInt(4);
+                ediciones++;
+
+                String diferencia;
+                try {
+                    if (completo) {
+                        incremental.actualizar(texto);
+                    } else {
+                        incremental.editar(desplazamiento, eliminados, insertado);
+                    }
+                    diferencia = comparar(incremental, texto, limite);
+                } catch (RuntimeException e) {
+                    diferencia = "el estado incremental quedó inconsistente: " + e;
+                }
+                if (diferencia != null) {
+                    diferencias++;
+                    if (diferencias <= DIFERENCIAS_MOSTRADAS) {
+                        System.out.printf("Texto %d, edición %d (%d, %d, \"%s\")%n  antes:   \"%s\"%n  después: \"%s\"%n  %s%n",
+                                i, paso, desplazamiento, eliminados, escapar(insertado), escapar(anterior),
+                                escapar(texto), diferencia);
+                    }
+                    break; // Las ediciones siguientes partirían de un estado ya distinto
+                }
+                anterior = texto;
+            }
+        }
+        System.out.printf("Textos: %d, ediciones: %d, diferencias: %d%n", textos, ediciones, diferencias);
+        if (diferencias > 0) {
+            System.exit(1);
+        }
+    }
+
+    // Qué difiere del análisis completo, o null si nada
+    private static String comparar(AnalizadorLexicoIncremental incremental, String texto, int limite) {
+        if (!incremental.getCodigoFuente().equals(texto)) {
+            return "el texto no coincide";
+        }
+        TablaSimbolos tabla = new TablaSimbolos();
+        Diagnosticos diagnosticos = new Diagnosticos();
+        List<Token> tokens = AnalizadorLexico.analizarLexicamente(texto, tabla, diagnosticos);
+        if (!describir(incremental.getTokens()).equals(describir(tokens))) {
+            return "los tokens no coinciden";
+        }
+        if (!incremental.getErroresLexicos().equals(diagnosticos.getMensajes())) {
+            return "los errores no coinciden: " + incremental.getErroresLexicos() + " y " + diagnosticos.getMensajes();
+        }
+        if (!describir(incremental.getTablaSimbolos().getEntradas()).equals(describir(tabla.getEntradas()))) {
+            return "la tabla de símbolos no coincide";
+        }
+        Diagnosticos conLimite = new Diagnosticos(limite);
+        AnalizadorLexico.analizarLexicamente(texto, new TablaSimbolos(), conLimite);
+        if (!incremental.getDiagnosticos(limite).getMensajes().equals(conLimite.getMensajes())) {
+            return "los errores con límite " + limite + " no coinciden";
+        }
+        return null;
+    }
+
+    private static String describir(List<?> elementos) {
+        StringBuilder texto = new StringBuilder();
+        for (Object elemento : elementos) {
+            if (elemento instanceof Token) {
+                Token token = (Token) elemento;
+                texto.append(token.getLexema()).append(' ').append(token.getTipo()).append(' ').append(token.getLinea())
+                     .append(':').append(token.getColumna()).append('@').append(token.getInicio());
+            } else {
+                EntradaTablaSimbolos entrada = (EntradaTablaSimbolos) elemento;
+                texto.append(entrada.getNumero()).append(' ').append(entrada.getLexema()).append(' ')
+                     .append(entrada.getToken()).append(' ').append(entrada.getReferencia());
+            }
+            texto.append('\n');
+        }
+        return texto.toString();
+    }
+
+    private static String piezas(Random aleatorio, int cantidad) {
+        StringBuilder texto = new StringBuilder();
+        for (int i = 0; i < cantidad; i++) {
+            texto.append(PIEZAS[aleatorio.nextInt(PIEZAS.length)]);
+        }
+        return texto.toString();
+    }
+
+    private static String escapar(String texto) {
+        return texto.replace("\r", "\\r").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,104 @@
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compara {@link AnalizadorLexico#analizarEnParalelo} con el análisis secuencial sobre entradas generadas al azar,
+ * lo bastante largas para dividirse en varios trozos: los tokens (con su línea, inicio y columna), los errores y la
+ * tabla de símbolos deben quedar exactamente iguales. Las entradas mezclan comentarios de varias líneas, literales
+ * sin cerrar, caracteres no válidos y líneas muy largas, para que los cortes entre trozos caigan dentro de ellos.
+ * Cada entrada se analiza con cada tipo de tabla y también con un límite de errores.
+ * <p>
+ * Uso: {@code java PruebaLexicoParalelo [entradas] [semilla]}. Termina con código 1 si encuentra diferencias.
+ */
+public class PruebaLexicoParalelo {
+    private static final String[] PIEZAS = {
+        "alfa", "beta12", " + ", " - ", "(", ")", "12", " ", "\n", "\r\n", "/* c */", "/*\n\n largo \n", "*/",
+        "\"lit\"", "\"abierta\n", "#", "á", "x$", ";", "*", "/", "inicio", "impdig(x)", "int", "verdadero",
+    };
+    private static final int HILOS = 4;
+
+    public static void main(String[] args) {
+        int entradas = (args.length > 0) ? Integer.parseInt(args[0]) : 200;
+        long semilla = (args.length > 1) ? Long.parseLong(args[1]) : 2024;
+        Random aleatorio = new Random(semilla);
+        ForkJoinPool pool = new ForkJoinPool(HILOS);
+        int diferencias = 0;
+        try {
+            for (int i = 0; i < entradas; i++) {
+                String fuente = generar(aleatorio);
+                int limite = aleatorio.nextBoolean() ? Integer.MAX_VALUE : 1 + aleatorio.nextInt(400);
+                String esperado = secuencial(fuente, limite);
+                RegistroSimbolos[] tablas = {new TablaSimbolos(), new TablaSimbolosCompacta(), new TablaSimbolosConcurrente()};
+                for (RegistroSimbolos tabla : tablas) {
+                    Diagnosticos diagnosticos = new Diagnosticos(limite);
+                    List<Token> tokens = AnalizadorLexico.analizarEnParalelo(fuente, tabla, diagnosticos, pool);
+                    String obtenido = describir(tokens, diagnosticos, tabla);
+                    if (!obtenido.equals(esperado)) {
+                        diferencias++;
+                        System.out.printf("Entrada %d (%d caracteres, límite %d) con %s: %s%n", i, fuente.length(),
+                                limite, tabla.getClass().getSimpleName(), primeraDiferencia(esperado, obtenido));
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        System.out.printf("Entradas: %d, diferencias: %d%n", entradas, diferencias);
+        if (diferencias > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static String secuencial(String fuente, int limite) {
+        TablaSimbolos tabla = new TablaSimbolos();
+        Diagnosticos diagnosticos = new Diagnosticos(limite);
+        List<Token> tokens = AnalizadorLexico.analizarLexicamente(fuente, tabla, diagnosticos);
+        return describir(tokens, diagnosticos, tabla);
+    }
+
+    private static String describir(List<Token> tokens, Diagnosticos diagnosticos, RegistroSimbolos tabla) {
+        StringBuilder texto = new StringBuilder();
+        for (Token token : tokens) {
+            texto.append(token.getLexema()).append(' ').append(token.getTipo()).append(' ').append(token.getLinea())
+                 .append(':').append(token.getColumna()).append('@').append(token.getInicio()).append('\n');
+        }
+        for (String mensaje : diagnosticos.getMensajes()) {
+            texto.append(mensaje).append('\n');
+        }
+        for (EntradaTablaSimbolos entrada : tabla.getEntradas()) {
+            texto.append(entrada.getNumero()).append(' ').append(entrada.getLexema()).append(' ')
+                 .append(entrada.getToken()).append(' ').append(entrada.getReferencia()).append('\n');
+        }
+        return texto.toString();
+    }
+
+    // La primera línea distinta de las dos descripciones
+    private static String primeraDiferencia(String esperado, String obtenido) {
+        String[] a = esperado.split("\n", -1);
+        String[] b = obtenido.split("\n", -1);
+        for (int i = 0; i < Math.min(a.length, b.length); i++) {
+            if (!a[i].equals(b[i])) {
+                return "se esperaba \"" + a[i] + "\" y se obtuvo \"" + b[i] + "\"";
+            }
+        }
+        return "se esperaban " + a.length + " líneas y se obtuvieron " + b.length;
+    }
+
+    // Entre 50 000 y 350 000 caracteres; de vez en cuando una línea enorme, que no deja cortar en ningún salto
+    private static String generar(Random aleatorio) {
+        StringBuilder texto = new StringBuilder();
+        int largo = 50_000 + aleatorio.nextInt(300_000);
+        while (texto.length() < largo) {
+            String pieza = PIEZAS[aleatorio.nextInt(PIEZAS.length)];
+            if (pieza.startsWith("/*\n") && aleatorio.nextInt(20) != 0) {
+                pieza = "/* x */"; // Casi todos se cierran, para que no se trague el resto de la entrada
+            }
+            texto.append(pieza);
+            if (aleatorio.nextInt(30_000) == 0) {
+                texto.append("c".repeat(100_000));
+            }
+        }
+        return texto.toString();
+    }
+}
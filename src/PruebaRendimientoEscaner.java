@@ -0,0 +1,110 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Mide el escáner sobre líneas largas generadas (identificadores, números, literales, espacios y comentarios
+ * extensos), con y sin el recorrido rápido de rachas, tanto sobre texto en memoria como sobre el archivo mapeado.
+ * <p>
+ * Uso: {@code java PruebaRendimientoEscaner [líneas] [largo de línea]}
+ */
+public class PruebaRendimientoEscaner {
+    private static final int REPETICIONES = 7;
+
+    public static void main(String[] args) throws IOException {
+        int lineas = (args.length > 0) ? Integer.parseInt(args[0]) : 20000;
+        int largo = (args.length > 1) ? Integer.parseInt(args[1]) : 2000;
+
+        String codigoFuente = generar(lineas, largo);
+        char[] fuente = codigoFuente.toCharArray();
+        Path archivo = Files.createTempFile("escaner", ".txt");
+        try {
+            Files.writeString(archivo, codigoFuente, StandardCharsets.UTF_8);
+            double megas = codigoFuente.length() / (1024.0 * 1024.0);
+            System.out.printf("Entrada: %d líneas de ~%d caracteres (%.1f MB)%n", lineas, largo, megas);
+
+            for (String modo : new String[] {"texto", "mapeado"}) {
+                long sinRachas = medir(modo, fuente, archivo, false);
+                long conRachas = medir(modo, fuente, archivo, true);
+                System.out.printf("%-8s autómata: %6d ms (%6.1f MB/s)   rachas: %6d ms (%6.1f MB/s)   x%.2f%n",
+                        modo, sinRachas / 1_000_000, megas * 1e9 / sinRachas,
+                        conRachas / 1_000_000, megas * 1e9 / conRachas, (double) sinRachas / conRachas);
+            }
+        } finally {
+            Files.deleteIfExists(archivo);
+        }
+    }
+
+    // Mejor tiempo (en nanosegundos) de varias pasadas completas del escáner
+    private static long medir(String modo, char[] fuente, Path archivo, boolean saltarRachas) throws IOException {
+        long mejor = Long.MAX_VALUE;
+        long control = 0;
+        for (int i = 0; i < REPETICIONES; i++) {
+            long inicio = System.nanoTime();
+            Escaner escaner = modo.equals("texto")
+                    ? new Escaner(fuente)
+                    : Escaner.mapear(archivo, StandardCharsets.UTF_8);
+            escaner.setSaltarRachas(saltarRachas);
+            int codigo;
+            while ((codigo = escaner.siguiente()) != Escaner.FIN) {
+                control += codigo + escaner.getLongitud();
+            }
+            mejor = Math.min(mejor, System.nanoTime() - inicio);
+        }
+        if (control == 42) {
+            System.out.println(); // Evita que se descarte el trabajo
+        }
+        return mejor;
+    }
+
+    private static String generar(int lineas, int largo) {
+        Random aleatorio = new Random(2024);
+        StringBuilder texto = new StringBuilder(lineas * (largo + 1));
+        for (int i = 0; i < lineas; i++) {
+            int finLinea = texto.length() + largo;
+            while (texto.length() < finLinea) {
+                switch (aleatorio.nextInt(6)) {
+                    case 0:
+                        texto.append("variable").append(palabra(aleatorio, 8 + aleatorio.nextInt(56)));
+                        break;
+                    case 1:
+                        texto.append(1 + aleatorio.nextInt(9)).append(digitos(aleatorio, 4 + aleatorio.nextInt(28)));
+                        break;
+                    case 2:
+                        texto.append('"').append(palabra(aleatorio, 16 + aleatorio.nextInt(64)).replace('q', ' ')).append('"');
+                        break;
+                    case 3:
+                        texto.append("/* ").append(palabra(aleatorio, 16 + aleatorio.nextInt(64)).replace('k', ' ')).append(" */");
+                        break;
+                    case 4:
+                        texto.append(" := ");
+                        break;
+                    default:
+                        texto.append(" ".repeat(4 + aleatorio.nextInt(28))).append(';');
+                        break;
+                }
+                texto.append(' ');
+            }
+            texto.append('\n');
+        }
+        return texto.toString();
+    }
+
+    private static String palabra(Random aleatorio, int largo) {
+        char[] letras = new char[largo];
+        for (int i = 0; i < largo; i++) {
+            letras[i] = (char) ('a' + aleatorio.nextInt(26));
+        }
+        return new String(letras);
+    }
+
+    private static String digitos(Random aleatorio, int largo) {
+        char[] digitos = new char[largo];
+        for (int i = 0; i < largo; i++) {
+            digitos[i] = (char) ('0' + aleatorio.nextInt(10));
+        }
+        return new String(digitos);
+    }
+}
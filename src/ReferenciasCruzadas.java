@@ -0,0 +1,363 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Índice de referencias cruzadas: todas las apariciones de cada símbolo, en el orden del código fuente.
+ * <p>
+ * Las apariciones se guardan en un flujo de bytes comprimido, en bloques de {@value #TAMANO_BLOQUE}. De la primera
+ * de cada bloque se guardan el desplazamiento y la línea completos; de las demás, la distancia a la anterior
+ * (junto con si la línea es la misma o la siguiente) y el número del símbolo, en enteros de longitud variable.
+ * Cada símbolo guarda además los bloques donde aparece: como diferencias mientras sean pocos, y como un mapa de
+ * bits cuando eso ocupa menos. En un programa con un centenar de identificadores distintos esto ocupa unos dos
+ * bytes y medio por aparición.
+ */
+public class ReferenciasCruzadas {
+    private static final int TAMANO_BLOQUE = 64;
+
+    // Símbolos en el orden de su primera aparición
+    private final Map<String, Integer> numeros = new HashMap<>();
+    private final List<String> simbolos = new ArrayList<>();
+    private byte[][] bloquesDeSimbolo = new byte[16][]; // Bloques donde aparece cada símbolo, como diferencias
+    private int[] tamanoBloquesDeSimbolo = new int[16];
+    private long[][] mapasDeSimbolo = new long[16][]; // O como mapa de bits, para los símbolos frecuentes
+    private int[] ultimoBloqueDeSimbolo = new int[16];
+    private int[] aparicionesDeSimbolo = new int[16];
+
+    private byte[] flujo = new byte[256];
+    private int tamanoFlujo = 0;
+    private int[] inicioBloque = new int[16]; // Desplazamiento de la primera aparición de cada bloque
+    private int[] lineaBloque = new int[16];
+    private int[] posicionBloque = new int[16]; // Dónde empieza cada bloque en el flujo
+    private int cantidad = 0;
+    private int ultimoDesplazamiento = -1;
+    private int ultimaLinea = 0;
+
+    // Cambio de línea respecto de la aparición anterior, en los dos bits bajos de la distancia
+    private static final int MISMA_LINEA = 0;
+    private static final int LINEA_SIGUIENTE = 1;
+    private static final int OTRA_LINEA = 2; // La diferencia de líneas va a continuación
+
+    /** Una aparición de un símbolo en el código fuente. */
+    public static final class Aparicion {
+        private final int desplazamiento;
+        private final int linea;
+
+        private Aparicion(int desplazamiento, int linea) {
+            this.desplazamiento = desplazamiento;
+            this.linea = linea;
+        }
+
+        /** Desplazamiento (base 0) de la aparición en el código fuente. */
+        public int getDesplazamiento() {
+            return desplazamiento;
+        }
+
+        public int getLinea() {
+            return linea;
+        }
+
+        @Override
+        public String toString() {
+            return "línea " + linea + ", desplazamiento " + desplazamiento;
+        }
+    }
+
+    /**
+     * Registra una aparición. Las apariciones deben llegar en el orden del código fuente.
+     * @param lexema El lexema del símbolo.
+     * @param desplazamiento El desplazamiento (base 0) de la aparición.
+     * @param linea La línea de la aparición.
+     */
+    public void agregar(String lexema, int desplazamiento, int linea) {
+        if (desplazamiento <= ultimoDesplazamiento || linea < ultimaLinea) {
+            throw new IllegalArgumentException("Las apariciones deben agregarse en el orden del código fuente: "
+                    + desplazamiento + " después de " + ultimoDesplazamiento);
+        }
+        int numero = numero(lexema);
+        int bloque = cantidad / TAMANO_BLOQUE;
+        if (cantidad % TAMANO_BLOQUE == 0) {
+            if (bloque == inicioBloque.length) {
+                inicioBloque = Arrays.copyOf(inicioBloque, bloque * 2);
+                lineaBloque = Arrays.copyOf(lineaBloque, bloque * 2);
+                posicionBloque = Arrays.copyOf(posicionBloque, bloque * 2);
+            }
+            inicioBloque[bloque] = desplazamiento;
+            lineaBloque[bloque] = linea;
+            posicionBloque[bloque] = tamanoFlujo;
+            escribir(numero);
+        } else {
+            int lineas = linea - ultimaLinea;
+            int cambio = (lineas == 0) ? MISMA_LINEA : (lineas == 1) ? LINEA_SIGUIENTE : OTRA_LINEA;
+            escribir(((desplazamiento - ultimoDesplazamiento) << 2) | cambio);
+            if (cambio == OTRA_LINEA) {
+                escribir(lineas);
+            }
+            escribir(numero);
+        }
+        if (ultimoBloqueDeSimbolo[numero] != bloque) {
+            agregarBloque(numero, bloque);
+            ultimoBloqueDeSimbolo[numero] = bloque;
+        }
+        aparicionesDeSimbolo[numero]++;
+        cantidad++;
+        ultimoDesplazamiento = desplazamiento;
+        ultimaLinea = linea;
+    }
+
+    /**
+     * Registra las apariciones de los identificadores y tipos de datos de un buffer de tokens.
+     * @return Un índice nuevo con esas apariciones.
+     */
+    public static ReferenciasCruzadas desdeTokens(BufferTokens tokens) {
+        ReferenciasCruzadas referencias = new ReferenciasCruzadas();
+        for (int i = 0; i < tokens.tamano(); i++) {
+            if (Escaner.esRegistrable(tokens.tipo(i))) {
+                referencias.agregar(tokens.lexema(i), tokens.inicio(i), tokens.linea(i));
+            }
+        }
+        return referencias;
+    }
+
+    /** La cantidad total de apariciones. */
+    public int tamano() {
+        return cantidad;
+    }
+
+    /** Los bytes que ocupan las apariciones codificadas, sin contar los lexemas de los símbolos. */
+    public int getTamanoCodificado() {
+        int total = tamanoFlujo + (cantidad + TAMANO_BLOQUE - 1) / TAMANO_BLOQUE * 3 * Integer.BYTES;
+        for (int i = 0; i < simbolos.size(); i++) {
+            total += (mapasDeSimbolo[i] != null)
+                    ? ((ultimoBloqueDeSimbolo[i] >>> 6) + 1) * Long.BYTES
+                    : tamanoBloquesDeSimbolo[i];
+        }
+        return total;
+    }
+
+    /**
+     * Obtiene todas las apariciones de un símbolo, en orden. Solo se recorren los bloques donde aparece.
+     * @param lexema El lexema del símbolo.
+     * @return Las apariciones; vacía si el símbolo no aparece.
+     */
+    public List<Aparicion> apariciones(String lexema) {
+        Integer numero = numeros.get(lexema);
+        if (numero == null) {
+            return Collections.emptyList();
+        }
+        List<Aparicion> apariciones = new ArrayList<>(aparicionesDeSimbolo[numero]);
+        for (int bloque : bloquesDe(numero)) {
+            new LectorBloque(bloque).agregarApariciones(numero, apariciones);
+        }
+        return apariciones;
+    }
+
+    /**
+     * Busca el símbolo que ocupa una posición del código fuente.
+     * @param desplazamiento La posición (base 0).
+     * @return El lexema del símbolo, o null si en esa posición no hay ninguno.
+     */
+    public String simboloEn(int desplazamiento) {
+        if (cantidad == 0 || desplazamiento < inicioBloque[0]) {
+            return null;
+        }
+        // El último bloque que empieza en la posición o antes
+        int bajo = 0;
+        int alto = (cantidad - 1) / TAMANO_BLOQUE;
+        while (bajo < alto) {
+            int medio = (bajo + alto + 1) >>> 1;
+            if (inicioBloque[medio] <= desplazamiento) {
+                bajo = medio;
+            } else {
+                alto = medio - 1;
+            }
+        }
+        LectorBloque lector = new LectorBloque(bajo);
+        int numero = lector.numero;
+        int inicio = lector.desplazamiento;
+        while (lector.siguiente() && lector.desplazamiento <= desplazamiento) {
+            numero = lector.numero;
+            inicio = lector.desplazamiento;
+        }
+        String lexema = simbolos.get(numero);
+        return (desplazamiento < inicio + lexema.length()) ? lexema : null;
+    }
+
+    public void limpiar() {
+        numeros.clear();
+        simbolos.clear();
+        Arrays.fill(mapasDeSimbolo, null);
+        tamanoFlujo = 0;
+        cantidad = 0;
+        ultimoDesplazamiento = -1;
+        ultimaLinea = 0;
+    }
+
+    private int numero(String lexema) {
+        Integer numero = numeros.get(lexema);
+        if (numero != null) {
+            return numero;
+        }
+        int nuevo = simbolos.size();
+        if (nuevo == ultimoBloqueDeSimbolo.length) {
+            int capacidad = nuevo * 2;
+            bloquesDeSimbolo = Arrays.copyOf(bloquesDeSimbolo, capacidad);
+            tamanoBloquesDeSimbolo = Arrays.copyOf(tamanoBloquesDeSimbolo, capacidad);
+            mapasDeSimbolo = Arrays.copyOf(mapasDeSimbolo, capacidad);
+            ultimoBloqueDeSimbolo = Arrays.copyOf(ultimoBloqueDeSimbolo, capacidad);
+            aparicionesDeSimbolo = Arrays.copyOf(aparicionesDeSimbolo, capacidad);
+        }
+        bloquesDeSimbolo[nuevo] = new byte[4];
+        tamanoBloquesDeSimbolo[nuevo] = 0;
+        ultimoBloqueDeSimbolo[nuevo] = -1;
+        aparicionesDeSimbolo[nuevo] = 0;
+        numeros.put(lexema, nuevo);
+        simbolos.add(lexema);
+        return nuevo;
+    }
+
+    private void escribir(int valor) {
+        if (tamanoFlujo + 5 > flujo.length) {
+            flujo = Arrays.copyOf(flujo, flujo.length * 2);
+        }
+        tamanoFlujo = escribir(flujo, tamanoFlujo, valor);
+    }
+
+    private void agregarBloque(int numero, int bloque) {
+        long[] mapa = mapasDeSimbolo[numero];
+        if (mapa == null) {
+            byte[] bloques = bloquesDeSimbolo[numero];
+            if (tamanoBloquesDeSimbolo[numero] + 5 > bloques.length) {
+                bloques = Arrays.copyOf(bloques, bloques.length * 2);
+                bloquesDeSimbolo[numero] = bloques;
+            }
+            tamanoBloquesDeSimbolo[numero] = escribir(bloques, tamanoBloquesDeSimbolo[numero],
+                    bloque - ultimoBloqueDeSimbolo[numero]);
+            if (tamanoBloquesDeSimbolo[numero] <= ((bloque >>> 6) + 1) * Long.BYTES) {
+                return;
+            }
+            // La lista ya ocupa más que un bit por bloque: se pasa a mapa de bits
+            mapa = new long[(bloque >>> 6) + 1];
+            for (int anterior : bloquesDe(numero)) {
+                mapa[anterior >>> 6] |= 1L << anterior;
+            }
+            mapasDeSimbolo[numero] = mapa;
+            bloquesDeSimbolo[numero] = null;
+            tamanoBloquesDeSimbolo[numero] = 0;
+            return;
+        }
+        if ((bloque >>> 6) >= mapa.length) {
+            mapa = Arrays.copyOf(mapa, Math.max((bloque >>> 6) + 1, mapa.length * 2));
+            mapasDeSimbolo[numero] = mapa;
+        }
+        mapa[bloque >>> 6] |= 1L << bloque;
+    }
+
+    // Los bloques donde aparece un símbolo, en orden
+    private int[] bloquesDe(int numero) {
+        long[] mapa = mapasDeSimbolo[numero];
+        if (mapa != null) {
+            int cantidadBloques = 0;
+            for (long palabra : mapa) {
+                cantidadBloques += Long.bitCount(palabra);
+            }
+            int[] bloques = new int[cantidadBloques];
+            int i = 0;
+            for (int p = 0; p < mapa.length; p++) {
+                for (long palabra = mapa[p]; palabra != 0; palabra &= palabra - 1) {
+                    bloques[i++] = (p << 6) + Long.numberOfTrailingZeros(palabra);
+                }
+            }
+            return bloques;
+        }
+        byte[] lista = bloquesDeSimbolo[numero];
+        int[] bloques = new int[tamanoBloquesDeSimbolo[numero]]; // Al menos un byte por bloque
+        int cantidadBloques = 0;
+        int bloque = -1;
+        for (int p = 0; p < tamanoBloquesDeSimbolo[numero]; ) {
+            int diferencia = 0;
+            int corrimiento = 0;
+            byte b;
+            do {
+                b = lista[p++];
+                diferencia |= (b & 0x7F) << corrimiento;
+                corrimiento += 7;
+            } while (b < 0);
+            bloque += diferencia;
+            bloques[cantidadBloques++] = bloque;
+        }
+        return Arrays.copyOf(bloques, cantidadBloques);
+    }
+
+    // Escribe un entero no negativo de 7 en 7 bits; el bit alto indica que sigue otro byte
+    private static int escribir(byte[] destino, int posicion, int valor) {
+        while ((valor & ~0x7F) != 0) {
+            destino[posicion++] = (byte) ((valor & 0x7F) | 0x80);
+            valor >>>= 7;
+        }
+        destino[posicion++] = (byte) valor;
+        return posicion;
+    }
+
+    /** Recorre las apariciones de un bloque del flujo. */
+    private final class LectorBloque {
+        private int posicion;
+        private int restantes;
+        private int desplazamiento;
+        private int linea;
+        private int numero;
+
+        private LectorBloque(int bloque) {
+            posicion = posicionBloque[bloque];
+            restantes = Math.min(TAMANO_BLOQUE, cantidad - bloque * TAMANO_BLOQUE) - 1;
+            desplazamiento = inicioBloque[bloque];
+            linea = lineaBloque[bloque];
+            numero = leer();
+        }
+
+        // Avanza a la siguiente aparición del bloque
+        private boolean siguiente() {
+            if (restantes == 0) {
+                return false;
+            }
+            restantes--;
+            int valor = leer();
+            desplazamiento += valor >>> 2;
+            switch (valor & 3) {
+                case LINEA_SIGUIENTE:
+                    linea++;
+                    break;
+                case OTRA_LINEA:
+                    linea += leer();
+                    break;
+                default:
+                    break;
+            }
+            numero = leer();
+            return true;
+        }
+
+        private void agregarApariciones(int buscado, List<Aparicion> destino) {
+            do {
+                if (numero == buscado) {
+                    destino.add(new Aparicion(desplazamiento, linea));
+                }
+            } while (siguiente());
+        }
+
+        private int leer() {
+            int valor = 0;
+            int corrimiento = 0;
+            byte b;
+            do {
+                b = flujo[posicion++];
+                valor |= (b & 0x7F) << corrimiento;
+                corrimiento += 7;
+            } while (b < 0);
+            return valor;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Una tabla de símbolos con ámbitos anidados: las declaraciones de un ámbito pueden ocultar las de los exteriores
+ * hasta que se cierra. La implementan {@link TablaSimbolos} y {@link TablaSimbolosCompacta}.
+ */
+public interface RegistroConAmbitos extends RegistroSimbolos {
+    /**
+     * Abre un ámbito anidado dentro del actual. Las declaraciones siguientes pueden ocultar las de ámbitos exteriores.
+     */
+    void abrirAmbito();
+
+    /**
+     * Cierra el ámbito actual: sus declaraciones dejan de ser visibles y vuelven a verse las que ocultaban.
+     * Las entradas se conservan en {@link #getEntradas()}.
+     * @throws IllegalStateException Si no hay ningún ámbito abierto.
+     */
+    void cerrarAmbito();
+
+    /** Profundidad del ámbito actual; el global es 0. */
+    int getProfundidad();
+
+    /**
+     * Reemplaza el contenido de la tabla por el de una tabla binaria (ver {@link ArchivoTablaSimbolos}).
+     * Las entradas de ámbitos anidados se vuelven a declarar en un ámbito de la misma profundidad, que se cierra
+     * enseguida: quedan en la lista de entradas pero no son visibles, igual que al guardar la tabla.
+     * @param archivo El archivo .tabx.
+     * @throws IOException Si no se puede leer o no tiene el formato esperado.
+     */
+    default void cargar(Path archivo) throws IOException {
+        ArchivoTablaSimbolos tabla = ArchivoTablaSimbolos.abrir(archivo);
+        limpiar();
+        for (int i = 0; i < tabla.tamano(); i++) {
+            int ambito = tabla.ambito(i);
+            if (ambito == 0) {
+                agregar(tabla.lexema(i), tabla.tipo(i), tabla.referencia(i));
+                continue;
+            }
+            for (int j = 0; j < ambito; j++) {
+                abrirAmbito();
+            }
+            declarar(tabla.lexema(i), tabla.tipo(i), tabla.referencia(i));
+            for (int j = 0; j < ambito; j++) {
+                cerrarAmbito();
+            }
+        }
+    }
+}
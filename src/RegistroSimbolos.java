@@ -0,0 +1,90 @@
+import java.util.List;
+
+/**
+ * Lo que el análisis necesita de una tabla de símbolos: agregar los símbolos que encuentra el analizador
+ * léxico, consultarlos y listar las entradas. Lo implementan {@link TablaSimbolos}, {@link TablaSimbolosCompacta}
+ * y {@link TablaSimbolosConcurrente}; cada una agrega las operaciones que solo ella admite, como los ámbitos
+ * anidados o las del análisis incremental.
+ */
+public interface RegistroSimbolos {
+    /**
+     * Agrega un nuevo símbolo a la tabla si no existe previamente.
+     * @param lexema El lexema del símbolo.
+     * @param tipoToken El tipo de token (ej. "ID", "PROG", "TYPE").
+     * @param numeroLinea La línea donde se encontró/declaró el símbolo (para la referencia).
+     */
+    void agregar(String lexema, String tipoToken, int numeroLinea);
+
+    /**
+     * Agrega un símbolo cuyo lexema está internado. Las apariciones repetidas se reconocen por el
+     * identificador, sin calcular el hash del lexema.
+     * @param idLexema El identificador del lexema en el pool de la tabla ({@link #getLexemas()}).
+     * @param lexema El lexema del símbolo.
+     * @param tipoToken El tipo de token.
+     * @param numeroLinea La línea donde se encontró el símbolo.
+     */
+    void agregar(int idLexema, String lexema, String tipoToken, int numeroLinea);
+
+    /**
+     * Agrega un símbolo encontrado por el analizador léxico.
+     * @param idLexema El identificador del lexema en el pool de la tabla ({@link #getLexemas()}).
+     * @param lexema El lexema del símbolo.
+     * @param tipoToken El tipo de token.
+     * @param numeroLinea La línea donde se encontró el símbolo.
+     * @param posicion El desplazamiento de la aparición en el código fuente; las tablas que numeran los símbolos
+     *                 en el orden en que llegan no la usan, las concurrentes ordenan por ella.
+     */
+    void agregar(int idLexema, String lexema, String tipoToken, int numeroLinea, int posicion);
+
+    /**
+     * Agrega un símbolo con un tipo específico a la tabla.
+     * @param lexema El lexema del símbolo.
+     * @param tipo El tipo del símbolo (ej. "int", "float").
+     */
+    void agregarSimbolo(String lexema, String tipo);
+
+    /**
+     * Declara un símbolo en el ámbito actual.
+     * @return false si el lexema ya estaba declarado en el ámbito actual; en ese caso no se modifica nada.
+     */
+    boolean declarar(String lexema, String tipo, int numeroLinea);
+
+    /**
+     * Verifica si un símbolo internado existe en la tabla.
+     * @param idLexema El identificador del lexema en el pool de la tabla ({@link #getLexemas()}).
+     */
+    boolean existeSimbolo(int idLexema);
+
+    /** Verifica si un símbolo es visible desde el ámbito actual. */
+    boolean existeSimbolo(String lexema);
+
+    /** Verifica si un símbolo está declarado en el ámbito actual, sin contar los exteriores. */
+    boolean existeEnAmbitoActual(String lexema);
+
+    /**
+     * Obtiene el tipo de un símbolo según su declaración visible desde el ámbito actual.
+     * @return El tipo del símbolo, o null si no existe.
+     */
+    String obtenerTipo(String lexema);
+
+    /** Las entradas de la tabla, numeradas en orden. */
+    List<EntradaTablaSimbolos> getEntradas();
+
+    /** Limpia la tabla de símbolos para una nueva ejecución, incluidas las referencias cruzadas y los lexemas. */
+    void limpiar();
+
+    /**
+     * Pide que el análisis léxico registre, además de cada símbolo, todas sus apariciones.
+     * @return El índice de referencias cruzadas, que se llena en los análisis siguientes.
+     */
+    ReferenciasCruzadas registrarReferencias();
+
+    /** El índice de referencias cruzadas, o null si no se pidió con {@link #registrarReferencias()}. */
+    ReferenciasCruzadas getReferencias();
+
+    /**
+     * Los lexemas internados de esta compilación. El analizador léxico los interna aquí, así que los identificadores
+     * de lexema de la tabla y de los tokens solo tienen sentido junto con ella; {@link #limpiar()} empieza un pool nuevo.
+     */
+    PoolLexemas getLexemas();
+}
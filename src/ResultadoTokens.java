@@ -36,30 +36,28 @@ public class ResultadoTokens {
         return tabla.toString();
     }
 
+    /**
+     * Genera la lista de lexemas con su renglón y posición. Los tokens que traen su desplazamiento se ubican
+     * directamente; los demás se buscan en el texto a partir del token anterior.
+     * @param tokens Los tokens en el orden en que aparecen.
+     * @param contenidoOriginal El código fuente del que salieron los tokens.
+     */
     public static String generarReporteTokens(List<Token> tokens, String contenidoOriginal) {
         StringBuilder reporte = new StringBuilder();
         reporte.append("============================================================================\n");
         reporte.append("Lista de lexemas encontrados:\n");
         reporte.append("============================================================================\n");
 
+        IndiceLineas indiceLineas = new IndiceLineas(contenidoOriginal);
         int posicionActual = 0;
         for (Token token : tokens) {
-            int indice = contenidoOriginal.indexOf(token.getLexema(), posicionActual);
+            int indice = (token.getInicio() >= 0)
+                    ? token.getInicio()
+                    : contenidoOriginal.indexOf(token.getLexema(), posicionActual);
             if (indice != -1) {
-                int linea = 1;
-                int posicionEnLinea = 0;
-                for (int i = 0; i < indice; i++) {
-                    if (contenidoOriginal.charAt(i) == '\n') {
-                        linea++;
-                        posicionEnLinea = 0;
-                    } else {
-                        posicionEnLinea++;
-                    }
-                }
-
                 reporte.append("Lexema: ").append(token.getLexema())
-                       .append(", Renglón: ").append(linea)
-                       .append(", Posición: ").append(posicionEnLinea + 1)
+                       .append(", Renglón: ").append(indiceLineas.linea(indice))
+                       .append(", Posición: ").append(indiceLineas.columna(indice))
                        .append(", Token: ").append(token.getTipo()).append("\n");
 
                 posicionActual = indice + token.getLexema().length();
@@ -85,4 +83,43 @@ public class ResultadoTokens {
         }
         return reporte.toString();
     }
+
+    /**
+     * Igual que {@link #generarReporteErrores(List)}, pero arma el texto de cada error a partir de los diagnósticos.
+     */
+    public static String generarReporteErrores(Diagnosticos erroresLexicos) {
+        StringBuilder reporte = new StringBuilder();
+        if (!erroresLexicos.isEmpty()) {
+            reporte.append("\n=====================================================================\n");
+            reporte.append("Errores Léxicos:\n");
+            agregarMensajes(reporte, erroresLexicos);
+            reporte.append("=====================================================================\n");
+        }
+        return reporte.toString();
+    }
+
+    /**
+     * Genera la sección de errores que muestran el programa principal y la interfaz gráfica.
+     * @param titulo El tipo de errores, por ejemplo "Errores Léxicos".
+     * @param diagnosticos Los errores; si no hay ninguno la sección queda vacía.
+     */
+    public static String generarSeccionErrores(String titulo, Diagnosticos diagnosticos) {
+        StringBuilder seccion = new StringBuilder();
+        if (!diagnosticos.isEmpty()) {
+            seccion.append("--- ").append(titulo).append(" Encontrados ---\n");
+            agregarMensajes(seccion, diagnosticos);
+            seccion.append("-------------------------------------\n\n");
+        }
+        return seccion.toString();
+    }
+
+    private static void agregarMensajes(StringBuilder destino, Diagnosticos diagnosticos) {
+        for (int i = 0; i < diagnosticos.tamano(); i++) {
+            destino.append(diagnosticos.mensaje(i)).append("\n");
+        }
+        if (diagnosticos.isLimiteAlcanzado()) {
+            destino.append("Se alcanzó el límite de ").append(diagnosticos.getLimite())
+                   .append(" errores; el análisis se detuvo.\n");
+        }
+    }
 }
@@ -0,0 +1,261 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Tabla de análisis LL(1) generada a partir de la especificación de una gramática.
+ * <p>
+ * Al generarla se calculan los conjuntos PRIMERO y SIGUIENTE de cada no terminal y, con ellos, la producción que
+ * corresponde a cada par (no terminal, token). El resultado queda en arreglos de enteros que el analizador
+ * ({@link AnalizadorLL1}) recorre sin crear objetos: los terminales son los códigos de token de {@link Escaner}
+ * y los no terminales van a continuación; los cuerpos de las producciones se guardan al revés, en el orden en
+ * que se apilan.
+ */
+public class TablaLL1 {
+    /** La tabla de los programas pf2024 (ver {@link Gramatica#sintaxis}), calculada una sola vez. */
+    public static final TablaLL1 PF2024 = generar(Gramatica.sintaxis);
+
+    static final int SIN_PRODUCCION = -1;
+
+    final int terminales;           // Los símbolos 0 .. terminales - 1 son los códigos de token
+    final int[] celdas;             // celdas[(A - terminales) * terminales + a]: la producción, o SIN_PRODUCCION
+    final int[] inicioCuerpo;       // El cuerpo de p ocupa cuerpos[inicioCuerpo[p] .. inicioCuerpo[p + 1])
+    final int[] cuerpos;
+    final BitSet[] siguiente;        // SIGUIENTE de cada no terminal, para la recuperación de errores
+    private final String[] noTerminales;
+    private final int[] cabezas;
+    private final String[] esperados; // Lo que admite cada no terminal, para los mensajes de error
+
+    private TablaLL1(String[] noTerminales, int[] cabezas, List<int[]> producciones) {
+        this.terminales = Escaner.cantidadTipos();
+        this.noTerminales = noTerminales;
+        this.cabezas = cabezas;
+        int cantidad = producciones.size();
+        inicioCuerpo = new int[cantidad + 1];
+        for (int p = 0; p < cantidad; p++) {
+            inicioCuerpo[p + 1] = inicioCuerpo[p] + producciones.get(p).length;
+        }
+        cuerpos = new int[inicioCuerpo[cantidad]];
+        for (int p = 0; p < cantidad; p++) {
+            int[] cuerpo = producciones.get(p);
+            for (int i = 0; i < cuerpo.length; i++) {
+                cuerpos[inicioCuerpo[p + 1] - 1 - i] = cuerpo[i];
+            }
+        }
+
+        // Anulables y PRIMERO, iterando hasta que no cambien
+        int n = noTerminales.length;
+        boolean[] anulable = new boolean[n];
+        BitSet[] primero = new BitSet[n];
+        siguiente = new BitSet[n];
+        for (int i = 0; i < n; i++) {
+            primero[i] = new BitSet(terminales);
+            siguiente[i] = new BitSet(terminales);
+        }
+        boolean cambio = true;
+        while (cambio) {
+            cambio = false;
+            for (int p = 0; p < cantidad; p++) {
+                int cabeza = cabezas[p];
+                int antes = primero[cabeza].cardinality();
+                boolean cuerpoAnulable = primeroDe(producciones.get(p), 0, primero, anulable, primero[cabeza]);
+                cambio |= primero[cabeza].cardinality() != antes;
+                if (cuerpoAnulable && !anulable[cabeza]) {
+                    anulable[cabeza] = true;
+                    cambio = true;
+                }
+            }
+        }
+
+        // SIGUIENTE: el fin de la entrada sigue al símbolo inicial
+        siguiente[0].set(Escaner.FIN);
+        cambio = true;
+        while (cambio) {
+            cambio = false;
+            for (int p = 0; p < cantidad; p++) {
+                int[] cuerpo = producciones.get(p);
+                for (int i = 0; i < cuerpo.length; i++) {
+                    if (cuerpo[i] < terminales) {
+                        continue;
+                    }
+                    BitSet destino = siguiente[cuerpo[i] - terminales];
+                    int antes = destino.cardinality();
+                    if (primeroDe(cuerpo, i + 1, primero, anulable, destino)) {
+                        destino.or(siguiente[cabezas[p]]);
+                    }
+                    cambio |= destino.cardinality() != antes;
+                }
+            }
+        }
+
+        // La tabla: cada producción va en las columnas de PRIMERO de su cuerpo, y en SIGUIENTE si es anulable
+        celdas = new int[n * terminales];
+        Arrays.fill(celdas, SIN_PRODUCCION);
+        for (int p = 0; p < cantidad; p++) {
+            BitSet columnas = new BitSet(terminales);
+            if (primeroDe(producciones.get(p), 0, primero, anulable, columnas)) {
+                columnas.or(siguiente[cabezas[p]]);
+            }
+            for (int a = columnas.nextSetBit(0); a >= 0; a = columnas.nextSetBit(a + 1)) {
+                int celda = cabezas[p] * terminales + a;
+                if (celdas[celda] != SIN_PRODUCCION) {
+                    throw new IllegalArgumentException("La gramática no es LL(1): con " + describir(a) + " se puede aplicar "
+                            + texto(celdas[celda]) + " o " + texto(p));
+                }
+                celdas[celda] = p;
+            }
+        }
+
+        esperados = new String[n];
+        for (int i = 0; i < n; i++) {
+            StringJoiner lista = new StringJoiner(", ");
+            for (int a = 0; a < terminales; a++) {
+                if (celdas[i * terminales + a] != SIN_PRODUCCION) {
+                    lista.add(describir(a));
+                }
+            }
+            esperados[i] = lista.toString();
+        }
+    }
+
+    /**
+     * Genera la tabla de una gramática. Cada línea de la especificación tiene la forma {@code cabeza -> cuerpo},
+     * o empieza con '|' para agregar otra alternativa a la cabeza anterior; varias alternativas también pueden
+     * separarse con '|' en la misma línea. Los símbolos se separan con espacios: los que son tipos de token de
+     * {@link Escaner} son terminales, ε indica el cuerpo vacío y los demás deben ser cabezas de alguna
+     * producción. Lo que sigue a '#' es un comentario. La cabeza de la primera producción es el símbolo inicial.
+     * @throws IllegalArgumentException Si la especificación no es válida o la gramática no es LL(1).
+     */
+    public static TablaLL1 generar(String especificacion) {
+        // Primera pasada: las cabezas y los cuerpos como texto
+        Map<String, Integer> numeros = new LinkedHashMap<>();
+        List<String> cabezasTexto = new ArrayList<>();
+        List<String[]> cuerposTexto = new ArrayList<>();
+        String cabeza = null;
+        String[] lineas = especificacion.split("\\R");
+        for (int l = 0; l < lineas.length; l++) {
+            String linea = lineas[l];
+            int comentario = linea.indexOf('#');
+            if (comentario >= 0) {
+                linea = linea.substring(0, comentario);
+            }
+            linea = linea.strip();
+            if (linea.isEmpty()) {
+                continue;
+            }
+            String alternativas;
+            int flecha = linea.indexOf("->");
+            if (flecha >= 0) {
+                cabeza = linea.substring(0, flecha).strip();
+                if (cabeza.isEmpty() || cabeza.contains(" ") || Escaner.codigo(cabeza) >= 0) {
+                    throw new IllegalArgumentException("Línea " + (l + 1) + " de la gramática: cabeza no válida '" + cabeza + "'");
+                }
+                numeros.putIfAbsent(cabeza, numeros.size());
+                alternativas = linea.substring(flecha + 2);
+            } else if (linea.startsWith("|") && cabeza != null) {
+                alternativas = linea.substring(1);
+            } else {
+                throw new IllegalArgumentException("Línea " + (l + 1) + " de la gramática: se esperaba 'cabeza -> cuerpo' o '| cuerpo'");
+            }
+            for (String alternativa : alternativas.split("\\|", -1)) {
+                String cuerpo = alternativa.strip();
+                if (cuerpo.isEmpty()) {
+                    throw new IllegalArgumentException("Línea " + (l + 1) + " de la gramática: alternativa vacía (use ε)");
+                }
+                cabezasTexto.add(cabeza);
+                cuerposTexto.add(cuerpo.equals("ε") ? new String[0] : cuerpo.split("\\s+"));
+            }
+        }
+        if (numeros.isEmpty()) {
+            throw new IllegalArgumentException("La gramática no tiene producciones.");
+        }
+
+        // Segunda pasada: los símbolos como números
+        int terminales = Escaner.cantidadTipos();
+        int[] cabezas = new int[cabezasTexto.size()];
+        List<int[]> producciones = new ArrayList<>(cuerposTexto.size());
+        for (int p = 0; p < cabezas.length; p++) {
+            cabezas[p] = numeros.get(cabezasTexto.get(p));
+            String[] simbolos = cuerposTexto.get(p);
+            int[] cuerpo = new int[simbolos.length];
+            for (int i = 0; i < simbolos.length; i++) {
+                Integer noTerminal = numeros.get(simbolos[i]);
+                int codigo = Escaner.codigo(simbolos[i]);
+                if (noTerminal != null) {
+                    cuerpo[i] = terminales + noTerminal;
+                } else if (codigo > Escaner.FIN) {
+                    cuerpo[i] = codigo;
+                } else {
+                    throw new IllegalArgumentException("Símbolo desconocido en la gramática: '" + simbolos[i] + "'"
+                            + (simbolos[i].equals("ε") ? " (ε debe ir solo)" : ""));
+                }
+            }
+            producciones.add(cuerpo);
+        }
+        return new TablaLL1(numeros.keySet().toArray(new String[0]), cabezas, producciones);
+    }
+
+    // Agrega a destino PRIMERO de cuerpo[desde ..]; devuelve true si ese tramo puede ser vacío
+    private boolean primeroDe(int[] cuerpo, int desde, BitSet[] primero, boolean[] anulable, BitSet destino) {
+        for (int i = desde; i < cuerpo.length; i++) {
+            int simbolo = cuerpo[i];
+            if (simbolo < terminales) {
+                destino.set(simbolo);
+                return false;
+            }
+            destino.or(primero[simbolo - terminales]);
+            if (!anulable[simbolo - terminales]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** El símbolo inicial. */
+    public int getInicial() {
+        return terminales;
+    }
+
+    public boolean esTerminal(int simbolo) {
+        return simbolo < terminales;
+    }
+
+    public int cantidadProducciones() {
+        return cabezas.length;
+    }
+
+    /** El nombre de un símbolo: el tipo de token de un terminal o el nombre de un no terminal. */
+    public String nombre(int simbolo) {
+        return (simbolo < terminales) ? Escaner.tipo(simbolo) : noTerminales[simbolo - terminales];
+    }
+
+    /** Una producción escrita como en el archivo de derivación, por ejemplo {@code termino -> factor termino'}. */
+    public String texto(int produccion) {
+        StringBuilder texto = new StringBuilder(noTerminales[cabezas[produccion]]).append(" ->");
+        if (inicioCuerpo[produccion] == inicioCuerpo[produccion + 1]) {
+            return texto.append(" ε").toString();
+        }
+        for (int i = inicioCuerpo[produccion + 1] - 1; i >= inicioCuerpo[produccion]; i--) {
+            texto.append(' ').append(nombre(cuerpos[i]));
+        }
+        return texto.toString();
+    }
+
+    /** Lo que se esperaba cuando en la cima de la pila estaba un símbolo y el token no coincidía. */
+    public String esperado(int simbolo) {
+        return (simbolo < terminales) ? describir(simbolo) : esperados[simbolo - terminales];
+    }
+
+    // Un terminal como se muestra en los mensajes: su lexema si es único, o el nombre del tipo
+    private static String describir(int terminal) {
+        if (terminal == Escaner.FIN) {
+            return "el fin del programa";
+        }
+        String lexema = Escaner.lexemaCanonico(terminal);
+        return (lexema != null) ? "'" + lexema + "'" : Escaner.tipo(terminal);
+    }
+}
@@ -1,15 +1,37 @@
 // Contenido del archivo TablaSimbolos.java
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.HashMap; // Usaremos HashMap para evitar duplicados por lexema fácilmente
 import java.util.Map;
 
-public class TablaSimbolos {
+/**
+ * Tabla de símbolos de una compilación. Cada análisis usa su propia instancia, de modo que varias
+ * compilaciones pueden ejecutarse a la vez; una misma instancia no es segura entre hilos
+ * (ver {@link TablaSimbolosConcurrente}). Además de las operaciones de {@link RegistroConAmbitos}, admite las del
+ * análisis incremental ({@link #insertar}, {@link #quitar}, {@link #desplazarReferencias}).
+ * <p>
+ * Los símbolos se declaran en ámbitos anidados. El mapa de lexemas guarda solo la declaración visible de cada
+ * lexema, y esta apunta a la que oculta en un ámbito exterior; cada ámbito anota lo que declaró para deshacerlo
+ * al cerrarse. Así abrir o cerrar un ámbito cuesta lo que se declaró en él, y las consultas no dependen de la
+ * profundidad. Las entradas se listan en el orden en que se declararon, incluidas las de ámbitos ya cerrados.
+ */
+public class TablaSimbolos implements RegistroConAmbitos {
     // Usaremos una lista para mantener el orden de inserción para la numeración "No"
-    private static final List<EntradaTablaSimbolos> entradas = new ArrayList<>();
+    private final List<EntradaTablaSimbolos> entradas = new ArrayList<>();
     // Usaremos un Map para verificar rápidamente si un lexema ya existe y obtener su entrada
-    private static final Map<String, EntradaTablaSimbolos> mapaLexemas = new HashMap<>();
-    private static int contadorEntradas = 0;
+    private final Map<String, EntradaTablaSimbolos> mapaLexemas = new HashMap<>();
+    // Las mismas entradas indexadas por el identificador del lexema en su pool (null si no está)
+    private final List<EntradaTablaSimbolos> entradasPorId = new ArrayList<>();
+    private int contadorEntradas = 0;
+    // Declaraciones hechas dentro de ámbitos anidados, en orden; cada ámbito abierto empieza donde indica inicioAmbitos
+    private final List<EntradaTablaSimbolos> bitacora = new ArrayList<>();
+    private int[] inicioAmbitos = new int[8];
+    private int profundidad = 0;
+    // Todas las apariciones de los símbolos; null mientras no se pidan (ver registrarReferencias)
+    private ReferenciasCruzadas referencias;
+    // Los lexemas internados de esta compilación; los identificadores de entradasPorId se refieren a ellos
+    private PoolLexemas lexemas = new PoolLexemas();
 
     /**
      * Agrega un nuevo símbolo a la tabla si no existe previamente.
@@ -17,40 +39,235 @@ public class TablaSimbolos {
      * @param tipoToken El tipo de token (ej. "ID", "PROG", "TYPE").
      * @param numeroLinea La línea donde se encontró/declaró el símbolo (para la referencia).
      */
-    public static void agregar(String lexema, String tipoToken, int numeroLinea) {
+    public void agregar(String lexema, String tipoToken, int numeroLinea) {
         if (!mapaLexemas.containsKey(lexema)) { // Solo agregar si el lexema no existe
-            contadorEntradas++;
-            EntradaTablaSimbolos nuevaEntrada = new EntradaTablaSimbolos(contadorEntradas, lexema, tipoToken, numeroLinea);
-            entradas.add(nuevaEntrada);
-            mapaLexemas.put(lexema, nuevaEntrada);
+            crearEntrada(lexema, tipoToken, numeroLinea);
         }
         // Si decides actualizar la referencia (ej. línea) cada vez que aparece,
         // podrías hacerlo aquí incluso si el lexema ya existe. Por ahora, solo primera aparición.
     }
 
+    /**
+     * Agrega un símbolo cuyo lexema está internado. Las apariciones repetidas se reconocen por el
+     * identificador, sin calcular el hash del lexema.
+     * @param idLexema El identificador del lexema en el pool de la tabla ({@link #getLexemas()}).
+     * @param lexema El lexema del símbolo.
+     * @param tipoToken El tipo de token.
+     * @param numeroLinea La línea donde se encontró el símbolo.
+     */
+    public void agregar(int idLexema, String lexema, String tipoToken, int numeroLinea) {
+        if (existeSimbolo(idLexema)) {
+            return;
+        }
+        agregar(lexema, tipoToken, numeroLinea);
+        EntradaTablaSimbolos entrada = mapaLexemas.get(lexema);
+        while (entradasPorId.size() <= idLexema) {
+            entradasPorId.add(null);
+        }
+        entradasPorId.set(idLexema, entrada);
+        entrada.setIdLexema(idLexema);
+    }
+
+    /**
+     * Agrega un símbolo encontrado por el analizador léxico.
+     * @param idLexema El identificador del lexema en el pool de la tabla ({@link #getLexemas()}).
+     * @param lexema El lexema del símbolo.
+     * @param tipoToken El tipo de token.
+     * @param numeroLinea La línea donde se encontró el símbolo.
+     * @param posicion El desplazamiento de la aparición en el código fuente. Esta tabla numera los símbolos
+     *                 en el orden en que llegan, así que no la usa; las variantes concurrentes ordenan por ella.
+     */
+    public void agregar(int idLexema, String lexema, String tipoToken, int numeroLinea, int posicion) {
+        agregar(idLexema, lexema, tipoToken, numeroLinea);
+    }
+
+    /**
+     * Verifica si un símbolo internado existe en la tabla.
+     * @param idLexema El identificador del lexema en el pool de la tabla ({@link #getLexemas()}).
+     * @return true si el símbolo existe (y se agregó con su identificador), false en caso contrario.
+     */
+    public boolean existeSimbolo(int idLexema) {
+        return idLexema < entradasPorId.size() && entradasPorId.get(idLexema) != null;
+    }
+
     /**
      * Obtiene todas las entradas de la tabla de símbolos.
      * @return Una lista de objetos EntradaTablaSimbolos.
      */
-    public static List<EntradaTablaSimbolos> getEntradas() {
+    public List<EntradaTablaSimbolos> getEntradas() {
         return entradas;
     }
 
     /**
      * Limpia la tabla de símbolos para una nueva ejecución.
      */
-    public static void limpiar() {
+    public void limpiar() {
         entradas.clear();
         mapaLexemas.clear();
+        entradasPorId.clear();
         contadorEntradas = 0;
+        bitacora.clear();
+        profundidad = 0;
+        if (referencias != null) {
+            referencias.limpiar();
+        }
+        lexemas = new PoolLexemas();
+    }
+
+    /**
+     * Pide que el análisis léxico registre, además de cada símbolo, todas sus apariciones.
+     * @return El índice de referencias cruzadas, que se llena en los análisis siguientes.
+     */
+    public ReferenciasCruzadas registrarReferencias() {
+        if (referencias == null) {
+            referencias = new ReferenciasCruzadas();
+        }
+        return referencias;
+    }
+
+    /** El índice de referencias cruzadas, o null si no se pidió con {@link #registrarReferencias()}. */
+    public ReferenciasCruzadas getReferencias() {
+        return referencias;
+    }
+
+    public PoolLexemas getLexemas() {
+        return lexemas;
+    }
+
+    /**
+     * Abre un ámbito anidado dentro del actual. Las declaraciones siguientes pueden ocultar las de ámbitos exteriores.
+     */
+    public void abrirAmbito() {
+        if (profundidad == inicioAmbitos.length) {
+            inicioAmbitos = Arrays.copyOf(inicioAmbitos, profundidad * 2);
+        }
+        inicioAmbitos[profundidad++] = bitacora.size();
+    }
+
+    /**
+     * Cierra el ámbito actual: sus declaraciones dejan de ser visibles y vuelven a verse las que ocultaban.
+     * Las entradas se conservan en {@link #getEntradas()}.
+     * @throws IllegalStateException Si no hay ningún ámbito abierto.
+     */
+    public void cerrarAmbito() {
+        if (profundidad == 0) {
+            throw new IllegalStateException("No hay ningún ámbito abierto.");
+        }
+        int inicio = inicioAmbitos[--profundidad];
+        for (int i = bitacora.size() - 1; i >= inicio; i--) {
+            EntradaTablaSimbolos entrada = bitacora.remove(i);
+            EntradaTablaSimbolos sombreada = entrada.getSombreada();
+            if (sombreada != null) {
+                mapaLexemas.put(entrada.getLexema(), sombreada);
+            } else {
+                mapaLexemas.remove(entrada.getLexema());
+            }
+            if (entrada.getIdLexema() >= 0) {
+                entradasPorId.set(entrada.getIdLexema(), sombreada);
+            }
+        }
+    }
+
+    /**
+     * Profundidad del ámbito actual; el global es 0.
+     */
+    public int getProfundidad() {
+        return profundidad;
+    }
+
+    /**
+     * Declara un símbolo en el ámbito actual. Si el lexema está declarado en un ámbito exterior, la nueva
+     * declaración lo oculta hasta que se cierre este ámbito.
+     * @param lexema El lexema del símbolo.
+     * @param tipo El tipo del símbolo.
+     * @param numeroLinea La línea de la declaración.
+     * @return false si el lexema ya estaba declarado en el ámbito actual; en ese caso no se modifica nada.
+     */
+    public boolean declarar(String lexema, String tipo, int numeroLinea) {
+        if (existeEnAmbitoActual(lexema)) {
+            return false;
+        }
+        crearEntrada(lexema, tipo, numeroLinea);
+        return true;
+    }
+
+    /**
+     * Verifica si un símbolo está declarado en el ámbito actual, sin contar los exteriores.
+     * @param lexema El lexema del símbolo.
+     */
+    public boolean existeEnAmbitoActual(String lexema) {
+        EntradaTablaSimbolos entrada = mapaLexemas.get(lexema);
+        return entrada != null && entrada.getAmbito() == profundidad;
+    }
+
+    private EntradaTablaSimbolos crearEntrada(String lexema, String tipo, int numeroLinea) {
+        contadorEntradas++;
+        EntradaTablaSimbolos nuevaEntrada = new EntradaTablaSimbolos(contadorEntradas, lexema, tipo, numeroLinea);
+        nuevaEntrada.setAmbito(profundidad);
+        nuevaEntrada.setSombreada(mapaLexemas.put(lexema, nuevaEntrada));
+        entradas.add(nuevaEntrada);
+        if (profundidad > 0) {
+            bitacora.add(nuevaEntrada);
+        }
+        return nuevaEntrada;
+    }
+
+    /**
+     * Inserta un símbolo en una posición de la tabla; las entradas siguientes se vuelven a numerar.
+     * Solo se usa en el ámbito global, desde el análisis incremental.
+     * @param indice La posición (base 0) de la nueva entrada.
+     * @param lexema El lexema del símbolo; no debe existir en la tabla.
+     * @param tipoToken El tipo de token.
+     * @param numeroLinea La línea de la primera aparición.
+     */
+    public void insertar(int indice, String lexema, String tipoToken, int numeroLinea) {
+        EntradaTablaSimbolos nuevaEntrada = new EntradaTablaSimbolos(indice + 1, lexema, tipoToken, numeroLinea);
+        entradas.add(indice, nuevaEntrada);
+        mapaLexemas.put(lexema, nuevaEntrada);
+        contadorEntradas++;
+        renumerar(indice + 1);
+    }
+
+    /**
+     * Quita la entrada en la posición indicada; las entradas siguientes se vuelven a numerar.
+     * Solo se usa en el ámbito global, desde el análisis incremental.
+     * @param indice La posición (base 0) de la entrada.
+     */
+    public void quitar(int indice) {
+        EntradaTablaSimbolos entrada = entradas.remove(indice);
+        mapaLexemas.remove(entrada.getLexema());
+        if (entrada.getIdLexema() >= 0) {
+            entradasPorId.set(entrada.getIdLexema(), null);
+        }
+        contadorEntradas--;
+        renumerar(indice);
+    }
+
+    /**
+     * Recorre la línea de referencia de las entradas a partir de una posición, por ejemplo cuando se
+     * agregan o quitan líneas del código fuente antes de sus primeras apariciones.
+     * @param desde La posición (base 0) de la primera entrada a modificar.
+     * @param lineas Cuántas líneas se recorren (negativo hacia arriba).
+     */
+    public void desplazarReferencias(int desde, int lineas) {
+        for (int i = desde; i < entradas.size(); i++) {
+            EntradaTablaSimbolos entrada = entradas.get(i);
+            entrada.setReferencia(entrada.getReferencia() + lineas);
+        }
+    }
+
+    private void renumerar(int desde) {
+        for (int i = desde; i < entradas.size(); i++) {
+            entradas.get(i).setNumero(i + 1);
+        }
     }
 
     /**
-     * Verifica si un símbolo existe en la tabla.
+     * Verifica si un símbolo es visible desde el ámbito actual.
      * @param lexema El lexema del símbolo.
      * @return true si el símbolo existe, false en caso contrario.
      */
-    public static boolean existeSimbolo(String lexema) {
+    public boolean existeSimbolo(String lexema) {
         return mapaLexemas.containsKey(lexema);
     }
 
@@ -59,21 +276,18 @@ public class TablaSimbolos {
      * @param lexema El lexema del símbolo.
      * @param tipo El tipo del símbolo (ej. "int", "float").
      */
-    public static void agregarSimbolo(String lexema, String tipo) {
+    public void agregarSimbolo(String lexema, String tipo) {
         if (!mapaLexemas.containsKey(lexema)) {
-            contadorEntradas++;
-            EntradaTablaSimbolos nuevaEntrada = new EntradaTablaSimbolos(contadorEntradas, lexema, tipo, -1);
-            entradas.add(nuevaEntrada);
-            mapaLexemas.put(lexema, nuevaEntrada);
+            crearEntrada(lexema, tipo, -1);
         }
     }
 
     /**
-     * Obtiene el tipo de un símbolo.
+     * Obtiene el tipo de un símbolo según su declaración visible desde el ámbito actual.
      * @param lexema El lexema del símbolo.
      * @return El tipo del símbolo, o null si no existe.
      */
-    public static String obtenerTipo(String lexema) {
+    public String obtenerTipo(String lexema) {
         EntradaTablaSimbolos entrada = mapaLexemas.get(lexema);
         return (entrada != null) ? entrada.getTipo() : null;
     }
@@ -0,0 +1,432 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Tabla de símbolos para entradas muy grandes, sin un objeto por símbolo. Cada entrada se identifica por un
+ * manejador entero (su posición, en orden de declaración; su número en la tabla es el manejador + 1) y sus datos
+ * se guardan en arreglos paralelos: el código del tipo de token, la primera línea y la ubicación del lexema en
+ * un único arreglo de caracteres. Los lexemas visibles se encuentran con un índice de direccionamiento abierto
+ * cuyas casillas guardan el hash del lexema junto al manejador, así que la mayoría de las comparaciones no
+ * necesitan leer la entrada.
+ * <p>
+ * Admite ámbitos anidados igual que {@link TablaSimbolos}, pero no las operaciones del análisis incremental, que
+ * renumeran las entradas: aquí el número de cada entrada es su manejador.
+ */
+public class TablaSimbolosCompacta implements RegistroConAmbitos {
+    private static final long VACIA = 0; // Las casillas guardan el hash en la parte alta y el manejador + 1 en la baja
+
+    // Datos de cada entrada, indexados por su manejador
+    private int tamano = 0;
+    private int[] tipos = new int[16]; // Posición del tipo de token en nombresTipo
+    private int[] lineas = new int[16];
+    private int[] inicios = new int[16]; // Posición del lexema en la arena; termina donde empieza el siguiente
+    private int[] idsLexema = new int[16];
+    private int[] ambitos = new int[16];
+    private int[] sombreadas = new int[16]; // La entrada que oculta en un ámbito exterior, o -1
+    private char[] arena = new char[256];
+    private int finArena = 0;
+    private String[] nombresTipo = new String[8];
+    private int cantidadTipos = 0;
+
+    // Índice de las entradas visibles; su capacidad es una potencia de dos y se mantiene a lo sumo a la mitad
+    private long[] casillas = new long[32];
+    private int corrimiento = 32 - 5; // 32 menos el logaritmo en base 2 de la capacidad del índice
+    private int visibles = 0;
+    private int[] porId = new int[64]; // Manejador + 1 de la entrada visible de cada lexema internado
+
+    // Manejadores declarados dentro de ámbitos anidados; cada ámbito abierto empieza donde indica inicioAmbitos
+    private int[] bitacora = new int[16];
+    private int tamanoBitacora = 0;
+    private int[] inicioAmbitos = new int[8];
+    private int profundidad = 0;
+    // Todas las apariciones de los símbolos; null mientras no se pidan (ver registrarReferencias)
+    private ReferenciasCruzadas referencias;
+    private PoolLexemas lexemas = new PoolLexemas();
+
+    /** La cantidad de entradas, incluidas las de ámbitos ya cerrados. */
+    public int tamano() {
+        return tamano;
+    }
+
+    /**
+     * Busca la declaración visible de un lexema.
+     * @return Su manejador, o -1 si no está en la tabla.
+     */
+    public int buscar(CharSequence lexema) {
+        int casilla = casilla(lexema, hash(lexema));
+        return (casilla >= 0) ? manejador(casillas[casilla]) : -1;
+    }
+
+    /**
+     * Agrega un símbolo si no es visible desde el ámbito actual.
+     * @return El manejador de la entrada, nueva o existente.
+     */
+    public int agregarEntrada(CharSequence lexema, String tipoToken, int numeroLinea) {
+        int hash = hash(lexema);
+        int casilla = casilla(lexema, hash);
+        if (casilla >= 0) {
+            return manejador(casillas[casilla]);
+        }
+        return crear(lexema, hash, tipoToken, numeroLinea, casilla);
+    }
+
+    public String lexema(int manejador) {
+        Objects.checkIndex(manejador, tamano);
+        return new String(arena, inicios[manejador], longitud(manejador));
+    }
+
+    public String tipo(int manejador) {
+        Objects.checkIndex(manejador, tamano);
+        return nombresTipo[tipos[manejador]];
+    }
+
+    public int linea(int manejador) {
+        Objects.checkIndex(manejador, tamano);
+        return lineas[manejador];
+    }
+
+    public int ambito(int manejador) {
+        Objects.checkIndex(manejador, tamano);
+        return ambitos[manejador];
+    }
+
+    @Override
+    public void agregar(String lexema, String tipoToken, int numeroLinea) {
+        agregarEntrada(lexema, tipoToken, numeroLinea);
+    }
+
+    @Override
+    public void agregar(int idLexema, String lexema, String tipoToken, int numeroLinea) {
+        if (existeSimbolo(idLexema)) {
+            return;
+        }
+        int manejador = agregarEntrada(lexema, tipoToken, numeroLinea);
+        if (idLexema >= porId.length) {
+            porId = Arrays.copyOf(porId, Math.max(porId.length * 2, idLexema + 1));
+        }
+        porId[idLexema] = manejador + 1;
+        idsLexema[manejador] = idLexema;
+    }
+
+    /** Numera los símbolos en el orden en que llegan, así que no usa la posición. */
+    @Override
+    public void agregar(int idLexema, String lexema, String tipoToken, int numeroLinea, int posicion) {
+        agregar(idLexema, lexema, tipoToken, numeroLinea);
+    }
+
+    @Override
+    public boolean existeSimbolo(int idLexema) {
+        return idLexema < porId.length && porId[idLexema] != 0;
+    }
+
+    @Override
+    public boolean existeSimbolo(String lexema) {
+        return buscar(lexema) >= 0;
+    }
+
+    @Override
+    public void agregarSimbolo(String lexema, String tipo) {
+        agregarEntrada(lexema, tipo, -1);
+    }
+
+    @Override
+    public String obtenerTipo(String lexema) {
+        int manejador = buscar(lexema);
+        return (manejador >= 0) ? nombresTipo[tipos[manejador]] : null;
+    }
+
+    /**
+     * Vista de solo lectura de las entradas en orden de declaración. Cada acceso arma la entrada correspondiente.
+     */
+    @Override
+    public List<EntradaTablaSimbolos> getEntradas() {
+        return new AbstractList<EntradaTablaSimbolos>() {
+            @Override
+            public EntradaTablaSimbolos get(int indice) {
+                Objects.checkIndex(indice, tamano);
+                EntradaTablaSimbolos entrada = new EntradaTablaSimbolos(indice + 1, lexema(indice), tipo(indice), lineas[indice]);
+                entrada.setIdLexema(idsLexema[indice]);
+                entrada.setAmbito(ambitos[indice]);
+                return entrada;
+            }
+
+            @Override
+            public int size() {
+                return tamano;
+            }
+        };
+    }
+
+    @Override
+    public void limpiar() {
+        tamano = 0;
+        finArena = 0;
+        cantidadTipos = 0;
+        Arrays.fill(nombresTipo, null);
+        Arrays.fill(casillas, VACIA);
+        visibles = 0;
+        Arrays.fill(porId, 0);
+        tamanoBitacora = 0;
+        profundidad = 0;
+        if (referencias != null) {
+            referencias.limpiar();
+        }
+        lexemas = new PoolLexemas();
+    }
+
+    @Override
+    public ReferenciasCruzadas registrarReferencias() {
+        if (referencias == null) {
+            referencias = new ReferenciasCruzadas();
+        }
+        return referencias;
+    }
+
+    @Override
+    public ReferenciasCruzadas getReferencias() {
+        return referencias;
+    }
+
+    @Override
+    public PoolLexemas getLexemas() {
+        return lexemas;
+    }
+
+    @Override
+    public void abrirAmbito() {
+        if (profundidad == inicioAmbitos.length) {
+            inicioAmbitos = Arrays.copyOf(inicioAmbitos, profundidad * 2);
+        }
+        inicioAmbitos[profundidad++] = tamanoBitacora;
+    }
+
+    @Override
+    public void cerrarAmbito() {
+        if (profundidad == 0) {
+            throw new IllegalStateException("No hay ningún ámbito abierto.");
+        }
+        int inicio = inicioAmbitos[--profundidad];
+        while (tamanoBitacora > inicio) {
+            int manejador = bitacora[--tamanoBitacora];
+            int sombreada = sombreadas[manejador];
+            int casilla = casillaDe(manejador);
+            if (sombreada >= 0) {
+                casillas[casilla] = casilla(hash(casillas[casilla]), sombreada);
+            } else {
+                vaciarCasilla(casilla);
+            }
+            if (idsLexema[manejador] >= 0) {
+                porId[idsLexema[manejador]] = sombreada + 1;
+            }
+        }
+    }
+
+    @Override
+    public int getProfundidad() {
+        return profundidad;
+    }
+
+    @Override
+    public boolean declarar(String lexema, String tipo, int numeroLinea) {
+        int hash = hash(lexema);
+        int casilla = casilla(lexema, hash);
+        if (casilla >= 0 && ambitos[manejador(casillas[casilla])] == profundidad) {
+            return false;
+        }
+        crear(lexema, hash, tipo, numeroLinea, casilla);
+        return true;
+    }
+
+    @Override
+    public boolean existeEnAmbitoActual(String lexema) {
+        int manejador = buscar(lexema);
+        return manejador >= 0 && ambitos[manejador] == profundidad;
+    }
+
+    /**
+     * Crea una entrada y la hace visible.
+     * @param casilla La casilla del lexema si ya había una declaración visible (que queda oculta), o el
+     *                complemento de la casilla libre donde va la nueva.
+     */
+    private int crear(CharSequence lexema, int hash, String tipoToken, int numeroLinea, int casilla) {
+        if (tamano == tipos.length) {
+            int capacidad = tamano * 2;
+            tipos = Arrays.copyOf(tipos, capacidad);
+            lineas = Arrays.copyOf(lineas, capacidad);
+            inicios = Arrays.copyOf(inicios, capacidad);
+            idsLexema = Arrays.copyOf(idsLexema, capacidad);
+            ambitos = Arrays.copyOf(ambitos, capacidad);
+            sombreadas = Arrays.copyOf(sombreadas, capacidad);
+        }
+        int longitud = lexema.length();
+        if (finArena + longitud > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, finArena + longitud));
+        }
+        for (int i = 0; i < longitud; i++) {
+            arena[finArena + i] = lexema.charAt(i);
+        }
+
+        int manejador = tamano++;
+        tipos[manejador] = codigoTipo(tipoToken);
+        lineas[manejador] = numeroLinea;
+        inicios[manejador] = finArena;
+        idsLexema[manejador] = -1;
+        ambitos[manejador] = profundidad;
+        finArena += longitud;
+
+        if (casilla >= 0) {
+            sombreadas[manejador] = manejador(casillas[casilla]);
+            casillas[casilla] = casilla(hash, manejador);
+        } else {
+            sombreadas[manejador] = -1;
+            casillas[~casilla] = casilla(hash, manejador);
+            if (++visibles * 2 > casillas.length) {
+                agrandarIndice();
+            }
+        }
+        if (profundidad > 0) {
+            if (tamanoBitacora == bitacora.length) {
+                bitacora = Arrays.copyOf(bitacora, tamanoBitacora * 2);
+            }
+            bitacora[tamanoBitacora++] = manejador;
+        }
+        return manejador;
+    }
+
+    // Los tipos de token son pocos; cada uno se guarda una sola vez
+    private int codigoTipo(String tipoToken) {
+        for (int i = 0; i < cantidadTipos; i++) {
+            if (Objects.equals(nombresTipo[i], tipoToken)) {
+                return i;
+            }
+        }
+        if (cantidadTipos == nombresTipo.length) {
+            nombresTipo = Arrays.copyOf(nombresTipo, cantidadTipos * 2);
+        }
+        nombresTipo[cantidadTipos] = tipoToken;
+        return cantidadTipos++;
+    }
+
+    /**
+     * Busca la casilla del índice donde está la declaración visible de un lexema.
+     * @return La casilla, o su complemento ({@code ~casilla}) con la primera casilla libre si no está.
+     */
+    private int casilla(CharSequence lexema, int hash) {
+        int mascara = casillas.length - 1;
+        int i = mezclar(hash);
+        while (true) {
+            long valor = casillas[i];
+            if (valor == VACIA) {
+                return ~i;
+            }
+            if (hash(valor) == hash && iguales(manejador(valor), lexema)) {
+                return i;
+            }
+            i = (i + 1) & mascara;
+        }
+    }
+
+    // La casilla que ocupa una entrada visible
+    private int casillaDe(int manejador) {
+        int mascara = casillas.length - 1;
+        int i = mezclar(hashEntrada(manejador));
+        while (manejador(casillas[i]) != manejador) {
+            i = (i + 1) & mascara;
+        }
+        return i;
+    }
+
+    // Libera una casilla corriendo hacia atrás las entradas siguientes que quedarían fuera de su recorrido
+    private void vaciarCasilla(int libre) {
+        int mascara = casillas.length - 1;
+        int j = libre;
+        while (true) {
+            j = (j + 1) & mascara;
+            long valor = casillas[j];
+            if (valor == VACIA) {
+                break;
+            }
+            int ideal = mezclar(hash(valor));
+            if (((j - ideal) & mascara) >= ((j - libre) & mascara)) {
+                casillas[libre] = valor;
+                libre = j;
+            }
+        }
+        casillas[libre] = VACIA;
+        visibles--;
+    }
+
+    private void agrandarIndice() {
+        long[] anteriores = casillas;
+        casillas = new long[anteriores.length * 2];
+        corrimiento--;
+        int mascara = casillas.length - 1;
+        for (long valor : anteriores) {
+            if (valor != VACIA) {
+                int i = mezclar(hash(valor));
+                while (casillas[i] != VACIA) {
+                    i = (i + 1) & mascara;
+                }
+                casillas[i] = valor;
+            }
+        }
+    }
+
+    private int longitud(int manejador) {
+        return ((manejador + 1 < tamano) ? inicios[manejador + 1] : finArena) - inicios[manejador];
+    }
+
+    private boolean iguales(int manejador, CharSequence lexema) {
+        int longitud = longitud(manejador);
+        if (longitud != lexema.length()) {
+            return false;
+        }
+        int inicio = inicios[manejador];
+        for (int i = 0; i < longitud; i++) {
+            if (arena[inicio + i] != lexema.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long casilla(int hash, int manejador) {
+        return ((long) hash << 32) | (manejador + 1);
+    }
+
+    private static int hash(long casilla) {
+        return (int) (casilla >>> 32);
+    }
+
+    private static int manejador(long casilla) {
+        return (int) casilla - 1;
+    }
+
+    // El hash del lexema de una entrada, que el índice no guarda aparte
+    private int hashEntrada(int manejador) {
+        int hash = 0;
+        for (int i = inicios[manejador], fin = i + longitud(manejador); i < fin; i++) {
+            hash = 31 * hash + arena[i];
+        }
+        return hash;
+    }
+
+    // El mismo hash que String, que ya lo tiene calculado
+    private static int hash(CharSequence lexema) {
+        if (lexema instanceof String) {
+            return lexema.hashCode();
+        }
+        int hash = 0;
+        for (int i = 0; i < lexema.length(); i++) {
+            hash = 31 * hash + lexema.charAt(i);
+        }
+        return hash;
+    }
+
+    // Casilla inicial de un hash: los bits altos del producto por la razón áurea, que dependen de todo el hash
+    private int mezclar(int hash) {
+        return (hash * 0x9E3779B9) >>> corrimiento;
+    }
+}
@@ -0,0 +1,142 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tabla de símbolos que admite inserciones desde varios hilos a la vez, por ejemplo desde los trozos del
+ * análisis léxico en paralelo. Los símbolos se guardan en un mapa concurrente, donde cada inserción bloquea
+ * solo su casilla y las consultas no bloquean. De cada símbolo se conserva la aparición de menor posición,
+ * así que la numeración no depende del orden en que lleguen: al pedir las entradas se ordenan por posición.
+ * <p>
+ * Solo tiene las operaciones de {@link RegistroSimbolos}: todos los símbolos son globales, así que no hay ámbitos
+ * anidados, y la numeración depende de las posiciones, así que no admite las operaciones del análisis incremental.
+ * Las referencias cruzadas se registran después de unir los trozos, desde un solo hilo.
+ */
+public class TablaSimbolosConcurrente implements RegistroSimbolos {
+    // Los símbolos agregados sin posición van después de los del código fuente, en orden de llegada
+    private static final long SIN_POSICION = 1L << 32;
+
+    private final ConcurrentHashMap<String, Simbolo> simbolos = new ConcurrentHashMap<>();
+    private final AtomicLong llegadas = new AtomicLong(SIN_POSICION);
+    private ReferenciasCruzadas referencias;
+    private PoolLexemas lexemas = new PoolLexemas();
+
+    private static final class Simbolo {
+        private final String lexema;
+        private final String tipo;
+        private final int linea;
+        private final long orden;
+        private final int idLexema;
+
+        private Simbolo(String lexema, String tipo, int linea, long orden, int idLexema) {
+            this.lexema = lexema;
+            this.tipo = tipo;
+            this.linea = linea;
+            this.orden = orden;
+            this.idLexema = idLexema;
+        }
+    }
+
+    @Override
+    public void agregar(String lexema, String tipoToken, int numeroLinea) {
+        registrar(lexema, tipoToken, numeroLinea, llegadas.getAndIncrement(), -1);
+    }
+
+    @Override
+    public void agregar(int idLexema, String lexema, String tipoToken, int numeroLinea) {
+        registrar(lexema, tipoToken, numeroLinea, llegadas.getAndIncrement(), idLexema);
+    }
+
+    @Override
+    public void agregar(int idLexema, String lexema, String tipoToken, int numeroLinea, int posicion) {
+        registrar(lexema, tipoToken, numeroLinea, posicion, idLexema);
+    }
+
+    @Override
+    public void agregarSimbolo(String lexema, String tipo) {
+        registrar(lexema, tipo, -1, llegadas.getAndIncrement(), -1);
+    }
+
+    private void registrar(String lexema, String tipoToken, int numeroLinea, long orden, int idLexema) {
+        Simbolo actual = simbolos.get(lexema);
+        if (actual != null && actual.orden <= orden) {
+            return; // Caso común: ya estaba desde una aparición anterior
+        }
+        simbolos.merge(lexema, new Simbolo(lexema, tipoToken, numeroLinea, orden, idLexema),
+                (anterior, nuevo) -> (anterior.orden <= nuevo.orden) ? anterior : nuevo);
+    }
+
+    @Override
+    public boolean existeSimbolo(String lexema) {
+        return simbolos.containsKey(lexema);
+    }
+
+    @Override
+    public boolean existeSimbolo(int idLexema) {
+        return idLexema >= 0 && idLexema < lexemas.tamano() && simbolos.containsKey(lexemas.lexema(idLexema));
+    }
+
+    @Override
+    public String obtenerTipo(String lexema) {
+        Simbolo simbolo = simbolos.get(lexema);
+        return (simbolo != null) ? simbolo.tipo : null;
+    }
+
+    /**
+     * Obtiene las entradas ordenadas por su primera aparición y numeradas. Cada llamada arma una copia nueva,
+     * que no cambia con las inserciones siguientes.
+     */
+    @Override
+    public List<EntradaTablaSimbolos> getEntradas() {
+        List<Simbolo> ordenados = new ArrayList<>(simbolos.values());
+        ordenados.sort(Comparator.comparingLong(simbolo -> simbolo.orden));
+        List<EntradaTablaSimbolos> entradas = new ArrayList<>(ordenados.size());
+        for (Simbolo simbolo : ordenados) {
+            EntradaTablaSimbolos entrada = new EntradaTablaSimbolos(entradas.size() + 1, simbolo.lexema, simbolo.tipo, simbolo.linea);
+            entrada.setIdLexema(simbolo.idLexema);
+            entradas.add(entrada);
+        }
+        return entradas;
+    }
+
+    @Override
+    public void limpiar() {
+        simbolos.clear();
+        llegadas.set(SIN_POSICION);
+        if (referencias != null) {
+            referencias.limpiar();
+        }
+        lexemas = new PoolLexemas();
+    }
+
+    @Override
+    public ReferenciasCruzadas registrarReferencias() {
+        if (referencias == null) {
+            referencias = new ReferenciasCruzadas();
+        }
+        return referencias;
+    }
+
+    @Override
+    public ReferenciasCruzadas getReferencias() {
+        return referencias;
+    }
+
+    @Override
+    public PoolLexemas getLexemas() {
+        return lexemas;
+    }
+
+    @Override
+    public boolean declarar(String lexema, String tipo, int numeroLinea) {
+        Simbolo nuevo = new Simbolo(lexema, tipo, numeroLinea, llegadas.getAndIncrement(), -1);
+        return simbolos.putIfAbsent(lexema, nuevo) == null;
+    }
+
+    @Override
+    public boolean existeEnAmbitoActual(String lexema) {
+        return simbolos.containsKey(lexema);
+    }
+}
@@ -3,6 +3,9 @@ public class Token {
     private String lexema;
     private String tipo;
     private int linea; // Número de línea donde se encontró el token
+    private int idLexema; // Identificador del lexema en el pool de lexemas, o -1
+    private int inicio; // Desplazamiento (base 0) del token en el código fuente, o -1 si no se conoce
+    private int columna; // Columna (base 1) del token dentro de su línea, o -1 si no se conoce
 
     /**
      * Constructor para la clase Token.
@@ -11,9 +14,29 @@ public class Token {
      * @param linea El número de línea donde se encuentra el token en el código fuente.
      */
     public Token(String lexema, String tipo, int linea) {
+        this(lexema, tipo, linea, -1);
+    }
+
+    /**
+     * Constructor para un token cuyo lexema está internado.
+     * @param idLexema El identificador del lexema en el pool de la tabla de símbolos ({@link RegistroSimbolos#getLexemas()}), o -1 si no está internado.
+     */
+    public Token(String lexema, String tipo, int linea, int idLexema) {
+        this(lexema, tipo, linea, idLexema, -1, -1);
+    }
+
+    /**
+     * Constructor para un token cuya ubicación en el código fuente se conoce.
+     * @param inicio El desplazamiento (base 0) del token en el código fuente.
+     * @param columna La columna (base 1) del token dentro de su línea.
+     */
+    public Token(String lexema, String tipo, int linea, int idLexema, int inicio, int columna) {
         this.lexema = lexema;
         this.tipo = tipo;
         this.linea = linea;
+        this.idLexema = idLexema;
+        this.inicio = inicio;
+        this.columna = columna;
     }
 
     public String getLexema() {
@@ -28,6 +51,25 @@ public class Token {
         return linea;
     }
 
+    /** Desplazamiento (base 0) del token en el código fuente, o -1 si no se conoce. */
+    public int getInicio() {
+        return inicio;
+    }
+
+    /** Columna (base 1) del token dentro de su línea, o -1 si no se conoce. */
+    public int getColumna() {
+        return columna;
+    }
+
+    /**
+     * Identificador del lexema en el pool de la tabla de símbolos con que se analizó ({@link RegistroSimbolos#getLexemas()}).
+     * Dos tokens de la misma compilación con el mismo identificador tienen la misma instancia de lexema, así que se pueden comparar sin {@code equals}.
+     * @return El identificador, o -1 si el lexema no está internado.
+     */
+    public int getIdLexema() {
+        return idLexema;
+    }
+
     @Override
     public String toString() {
         return "<" + tipo + ", " + lexema + ", Linea: " + linea + ">";